@@ -0,0 +1,12 @@
+package org.wldu.webservices;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class WebservicesApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(WebservicesApplication.class, args);
+    }
+}
@@ -0,0 +1,153 @@
+package org.wldu.webservices.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admits at most as many requests per workload as its connection pool can serve and
+ * queues the rest, in arrival order, on a fair semaphore. With virtual request threads
+ * thousands of requests can be in flight; without this they would all pile onto Hikari
+ * and fail with connection timeouts, whereas a semaphore waiter costs almost nothing.
+ *
+ * Requests that cannot be admitted within queue-timeout-ms, or that arrive while
+ * max-waiting requests are already queued, get 503 with Retry-After.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String BUSY_BODY =
+            "{\"error\":\"Service Unavailable\",\"message\":\"Server busy, retry shortly\",\"status\":\"503\"}";
+
+    private final boolean enabled;
+    private final long queueTimeoutMs;
+    private final int maxWaiting;
+    private final Map<Workload, Gate> gates = new EnumMap<>(Workload.class);
+
+    private static final class Gate {
+        final int permits;
+        final Semaphore semaphore;
+        final AtomicInteger waiting = new AtomicInteger();
+        final LongAdder admitted = new LongAdder();
+        final LongAdder queued = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+
+        Gate(int permits) {
+            this.permits = permits;
+            this.semaphore = new Semaphore(permits, true);
+        }
+    }
+
+    public AdmissionControlFilter(WorkloadPoolProperties properties,
+                                  @Value("${savings.admission.enabled:true}") boolean enabled,
+                                  @Value("${savings.admission.permits-per-connection:1}") int permitsPerConnection,
+                                  @Value("${savings.admission.queue-timeout-ms:5000}") long queueTimeoutMs,
+                                  @Value("${savings.admission.max-waiting:2000}") int maxWaiting) {
+        if (permitsPerConnection < 1) {
+            throw new IllegalArgumentException("savings.admission.permits-per-connection must be at least 1");
+        }
+        this.enabled = enabled;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.maxWaiting = maxWaiting;
+        for (Workload workload : Workload.values()) {
+            gates.put(workload, new Gate(properties.pool(workload).getMaximumPoolSize() * permitsPerConnection));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        Gate gate = gates.get(Workload.current());
+        if (!admit(gate)) {
+            gate.rejected.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(BUSY_BODY);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            gate.semaphore.release();
+        }
+    }
+
+    private boolean admit(Gate gate) {
+        // The timed form honours the fair ordering; plain tryAcquire() would barge past queued requests.
+        try {
+            if (gate.semaphore.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+                gate.admitted.increment();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (gate.waiting.incrementAndGet() > maxWaiting) {
+            gate.waiting.decrementAndGet();
+            return false;
+        }
+        long started = System.nanoTime();
+        try {
+            boolean acquired = gate.semaphore.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+            if (acquired) {
+                gate.admitted.increment();
+                gate.queued.increment();
+            }
+            return acquired;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            gate.waiting.decrementAndGet();
+            gate.waitNanos.add(System.nanoTime() - started);
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", enabled);
+        status.put("queueTimeoutMs", queueTimeoutMs);
+        status.put("maxWaiting", maxWaiting);
+        Map<String, Object> workloads = new HashMap<>();
+        for (Map.Entry<Workload, Gate> entry : gates.entrySet()) {
+            Gate gate = entry.getValue();
+            long queued = gate.queued.sum();
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("permits", gate.permits);
+            stats.put("inUse", gate.permits - gate.semaphore.availablePermits());
+            stats.put("waiting", gate.waiting.get());
+            stats.put("admitted", gate.admitted.sum());
+            stats.put("queued", queued);
+            stats.put("rejected", gate.rejected.sum());
+            stats.put("avgQueueWaitMs", queued == 0 ? 0.0 : gate.waitNanos.sum() / 1e6 / queued);
+            workloads.put(entry.getKey().name().toLowerCase(), stats);
+        }
+        status.put("workloads", workloads);
+        return status;
+    }
+}
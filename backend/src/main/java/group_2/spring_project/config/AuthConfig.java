@@ -56,8 +56,10 @@ public class AuthConfig {
 
                         // ✅ YOUR ROLE-BASED RULES (UNCHANGED)
                         .requestMatchers("/api/accounts/**").hasAnyRole("ASSISTANT", "MANAGER", "ADMIN")
+                        .requestMatchers("/api/members/*/transactions").hasAnyRole("ASSISTANT", "MANAGER", "ADMIN")
                         .requestMatchers("/api/members/**").hasAnyRole("MANAGER", "ADMIN")
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/ws/payroll").hasAnyRole("MANAGER", "ADMIN")
 
                         .anyRequest().authenticated()
                 )
@@ -0,0 +1,39 @@
+package org.wldu.webservices.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Threads for batch and background work. They follow spring.threads.virtual.enabled,
+ * like Tomcat's request threads and the @Scheduled scheduler, so one switch moves the
+ * whole service between platform and virtual threads. Pools stay fixed-size either
+ * way: the worker count is what bounds concurrent use of the batch connection pool.
+ */
+@Component
+public class BatchExecutors {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    public boolean isVirtual() {
+        return virtualThreads;
+    }
+
+    /** Fixed pool of {@code threads} threads named {@code name-0}, {@code name-1}, ... */
+    public ExecutorService newFixedPool(String name, int threads) {
+        Thread.Builder builder = virtualThreads
+                ? Thread.ofVirtual().name(name + "-", 0)
+                : Thread.ofPlatform().name(name + "-", 0).daemon(true);
+        return Executors.newFixedThreadPool(threads, builder.factory());
+    }
+
+    /** Starts a long-running background thread; daemon when on platform threads. */
+    public Thread startThread(String name, Runnable task) {
+        return virtualThreads
+                ? Thread.ofVirtual().name(name).start(task)
+                : Thread.ofPlatform().name(name).daemon(true).start(task);
+    }
+}
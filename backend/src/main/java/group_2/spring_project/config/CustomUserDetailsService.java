@@ -22,7 +22,9 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        AuthUser user = authUserRepository.findByUsername(username)
+        // Runs on every authenticated request; keep it on the auth pool so a saturated
+        // interactive or batch pool cannot lock users out.
+        AuthUser user = Workload.call(Workload.AUTH, () -> authUserRepository.findByUsername(username))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
         return User.withUsername(user.getUsername())
@@ -0,0 +1,109 @@
+package org.wldu.webservices.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.wldu.webservices.metrics.SqlCountingListener;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One primary pool per {@link Workload} from spring.datasource plus optional read
+ * replicas, exposed as one routing DataSource. Locally a replica entry can point at a second Postgres instance
+ * (or a second database on the same server); lag checks report 0 for a server that is
+ * not in recovery.
+ */
+@Configuration
+@EnableConfigurationProperties({DataSourceProperties.class, ReplicaProperties.class, WorkloadPoolProperties.class})
+public class DataSourceConfig {
+
+    private ReplicaRoutingDataSource routing;
+
+    @Bean
+    public PoolMetricsTracker poolMetricsTracker() {
+        return new PoolMetricsTracker();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(DataSourceProperties dataSourceProperties,
+                                                      ReplicaProperties replicaProperties,
+                                                      WorkloadPoolProperties workloadPoolProperties,
+                                                      PoolMetricsTracker poolMetrics,
+                                                      Environment environment) {
+        Map<Workload, DataSource> primaries = new EnumMap<>(Workload.class);
+        for (Workload workload : Workload.values()) {
+            WorkloadPoolProperties.Pool settings = workloadPoolProperties.pool(workload);
+            HikariDataSource pool = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .build();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+            pool.setPoolName(workload.poolName());
+            pool.setMaximumPoolSize(settings.getMaximumPoolSize());
+            pool.setConnectionTimeout(settings.getConnectionTimeoutMs());
+            if (settings.getStatementTimeoutMs() > 0) {
+                pool.setConnectionInitSql("SET statement_timeout = " + settings.getStatementTimeoutMs());
+            }
+            pool.setMetricsTrackerFactory(poolMetrics);
+            primaries.put(workload, pool);
+        }
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        int index = 0;
+        for (ReplicaProperties.Replica replica : replicaProperties.getReplicas()) {
+            String name = replica.getName() != null ? replica.getName() : "replica-" + index;
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName(name);
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.getUsername());
+            pool.setPassword(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.getPassword());
+            pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+            pool.setReadOnly(true);
+            pool.setInitializationFailTimeout(-1);
+            pool.setMetricsTrackerFactory(poolMetrics);
+            replicas.put(name, pool);
+            index++;
+        }
+
+        routing = new ReplicaRoutingDataSource(primaries, replicas, replicaProperties, poolMetrics);
+        routing.afterPropertiesSet();
+        routing.checkReplicas();
+        return routing;
+    }
+
+    // The JDBC proxy counts statements and rows per request (see metrics.RequestCounters).
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource,
+                                 @Value("${savings.metrics.count-rows:false}") boolean countRows,
+                                 @Value("${savings.metrics.sql-budget.enforce:false}") boolean enforceSqlBudgets) {
+        SqlCountingListener listener = new SqlCountingListener(enforceSqlBudgets);
+        ProxyDataSourceBuilder builder = ProxyDataSourceBuilder
+                .create(new LazyConnectionDataSourceProxy(routingDataSource))
+                .name("savings")
+                .listener(listener);
+        if (countRows) {
+            builder.methodListener(listener).proxyResultSet();
+        }
+        return builder.build();
+    }
+
+    @Scheduled(fixedDelayString = "${savings.datasource.health-check-millis:5000}")
+    public void checkReplicas() {
+        if (routing != null) {
+            routing.checkReplicas();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.wldu.webservices.config;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.MethodMetadata;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fast-startup profile: defers creation of rarely used infrastructure (Swagger/OpenAPI,
+ * SOAP) until first use. Unlike spring.main.lazy-initialization this leaves the service
+ * beans eager, so @Scheduled jobs, job-queue workers and cache warming still start.
+ *
+ * Runs as a BeanFactoryPostProcessor, so under Spring AOT the lazy flags are applied at
+ * build time and baked into the generated bean definitions.
+ */
+@Configuration
+@Profile("fast")
+public class LazyInfrastructureConfig {
+
+    @Bean
+    public static BeanFactoryPostProcessor lazyInfrastructure(Environment environment) {
+        List<String> prefixes = Arrays.stream(environment.getProperty("savings.startup.lazy-packages",
+                        "org.springdoc.,org.springframework.ws.").split(","))
+                .map(String::trim)
+                .filter(prefix -> !prefix.isEmpty())
+                .toList();
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (definition.getRole() == BeanDefinition.ROLE_INFRASTRUCTURE || definition.isLazyInit()) {
+                    continue;
+                }
+                if (matches(prefixes, definition.getBeanClassName()) || matches(prefixes, factoryType(definition))) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    // Type declaring the @Bean method for definitions created by a factory method.
+    private static String factoryType(BeanDefinition definition) {
+        if (definition instanceof AnnotatedBeanDefinition annotated) {
+            MethodMetadata method = annotated.getFactoryMethodMetadata();
+            if (method != null) {
+                return method.getDeclaringClassName();
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(List<String> prefixes, String className) {
+        return className != null && prefixes.stream().anyMatch(className::startsWith);
+    }
+}
@@ -0,0 +1,90 @@
+package org.wldu.webservices.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hikari metrics for every pool: connection acquire time and usage time as HDR
+ * histograms, timeouts, and the live pool gauges.
+ */
+public class PoolMetricsTracker implements MetricsTrackerFactory {
+
+    private static final long MAX_TRACKED_MICROS = TimeUnit.SECONDS.toMicros(120);
+
+    private final Map<String, PoolMetrics> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        PoolMetrics metrics = new PoolMetrics(poolStats);
+        pools.put(poolName, metrics);
+        return metrics;
+    }
+
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        pools.forEach((name, metrics) -> result.put(name, metrics.snapshot()));
+        return result;
+    }
+
+    private static final class PoolMetrics implements IMetricsTracker {
+        private final PoolStats stats;
+        private final Recorder acquireRecorder = new Recorder(MAX_TRACKED_MICROS, 3);
+        private final Recorder usageRecorder = new Recorder(MAX_TRACKED_MICROS, 3);
+        private final Histogram acquireMicros = new Histogram(MAX_TRACKED_MICROS, 3);
+        private final Histogram usageMicros = new Histogram(MAX_TRACKED_MICROS, 3);
+        private final AtomicLong timeouts = new AtomicLong();
+
+        PoolMetrics(PoolStats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquireRecorder.recordValue(Math.min(MAX_TRACKED_MICROS, TimeUnit.NANOSECONDS.toMicros(elapsedAcquiredNanos)));
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageRecorder.recordValue(Math.min(MAX_TRACKED_MICROS, TimeUnit.MILLISECONDS.toMicros(elapsedBorrowedMillis)));
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.incrementAndGet();
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            acquireMicros.add(acquireRecorder.getIntervalHistogram());
+            usageMicros.add(usageRecorder.getIntervalHistogram());
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("active", stats.getActiveConnections());
+            result.put("idle", stats.getIdleConnections());
+            result.put("total", stats.getTotalConnections());
+            result.put("pending", stats.getPendingThreads());
+            result.put("max", stats.getMaxConnections());
+            result.put("timeouts", timeouts.get());
+            result.put("acquireMicros", percentiles(acquireMicros));
+            result.put("usageMicros", percentiles(usageMicros));
+            return result;
+        }
+
+        private static Map<String, Object> percentiles(Histogram histogram) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("count", histogram.getTotalCount());
+            result.put("p50", histogram.getValueAtPercentile(50));
+            result.put("p99", histogram.getValueAtPercentile(99));
+            result.put("max", histogram.getMaxValue());
+            return result;
+        }
+    }
+}
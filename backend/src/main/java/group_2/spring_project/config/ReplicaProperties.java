@@ -0,0 +1,59 @@
+package org.wldu.webservices.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas used for @Transactional(readOnly = true) work. With no replicas listed
+ * every connection goes to spring.datasource.
+ */
+@ConfigurationProperties(prefix = "savings.datasource")
+public class ReplicaProperties {
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    /** Replicas further behind than this are skipped until they catch up. */
+    private int maxLagSeconds = 5;
+
+    private long healthCheckMillis = 5000;
+
+    /** Keep the rest of a request on the primary once it has committed a write. */
+    private boolean readYourWrites = true;
+
+    public List<Replica> getReplicas() { return replicas; }
+    public void setReplicas(List<Replica> replicas) { this.replicas = replicas; }
+
+    public int getMaxLagSeconds() { return maxLagSeconds; }
+    public void setMaxLagSeconds(int maxLagSeconds) { this.maxLagSeconds = maxLagSeconds; }
+
+    public long getHealthCheckMillis() { return healthCheckMillis; }
+    public void setHealthCheckMillis(long healthCheckMillis) { this.healthCheckMillis = healthCheckMillis; }
+
+    public boolean isReadYourWrites() { return readYourWrites; }
+    public void setReadYourWrites(boolean readYourWrites) { this.readYourWrites = readYourWrites; }
+
+    public static class Replica {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+
+        public int getMaximumPoolSize() { return maximumPoolSize; }
+        public void setMaximumPoolSize(int maximumPoolSize) { this.maximumPoolSize = maximumPoolSize; }
+    }
+}
@@ -0,0 +1,186 @@
+package org.wldu.webservices.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a healthy replica and everything else to the primary
+ * pool of the current {@link Workload}.
+ *
+ * The routing key is read when the physical connection is first needed, so this must sit
+ * behind a LazyConnectionDataSourceProxy; by then the transaction's read-only flag is
+ * known. Replicas are polled for replication lag and taken out of rotation while they
+ * are unreachable, not streaming from the primary, or too far behind; with none available
+ * reads fall back to the primary.
+ *
+ * Lag is the age of the last transaction the replica has replayed. Each check first
+ * commits a heartbeat on the primary (V9__replication_heartbeat.sql), so that age stays
+ * small on a current replica even when there is no other write traffic. A replica whose
+ * WAL receiver is disconnected can be arbitrarily stale while having nothing left to
+ * replay, so it is only trusted while pg_stat_wal_receiver reports it streaming; reading
+ * that view needs the pg_read_all_stats role for the replica user.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String WROTE_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".WROTE";
+    private static final String SYNC_RESOURCE = ReplicaRoutingDataSource.class.getName() + ".SYNC";
+
+    private static final String LAG_SQL =
+            "SELECT pg_is_in_recovery(), (SELECT status FROM pg_stat_wal_receiver), " +
+            "EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())::float8";
+
+    private static final String HEARTBEAT_SQL = "UPDATE replication_heartbeat SET beat_at = now() WHERE id = 1";
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final PoolMetricsTracker poolMetrics;
+    private final Map<String, ReplicaState> states = new LinkedHashMap<>();
+    private final ReplicaProperties properties;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<String> healthy = List.of();
+
+    public ReplicaRoutingDataSource(Map<Workload, DataSource> primaries, Map<String, DataSource> replicas,
+                                    ReplicaProperties properties, PoolMetricsTracker poolMetrics) {
+        this.primary = primaries.get(Workload.INTERACTIVE);
+        this.replicas = replicas;
+        this.properties = properties;
+        this.poolMetrics = poolMetrics;
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        primaries.forEach((workload, pool) -> targets.put(workload.poolName(), pool));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        replicas.keySet().forEach(name -> states.put(name, new ReplicaState()));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        String primary = Workload.current().poolName();
+        if (!readOnly) {
+            rememberWrite();
+            return primary;
+        }
+        if (properties.isReadYourWrites() && requestHasWritten()) {
+            return primary;
+        }
+        List<String> candidates = healthy;
+        if (candidates.isEmpty()) {
+            return primary;
+        }
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    // ========== READ-YOUR-WRITES ==========
+
+    private void rememberWrite() {
+        if (!properties.isReadYourWrites() || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(SYNC_RESOURCE)) {
+            return;
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(SYNC_RESOURCE, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                request.setAttribute(WROTE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(SYNC_RESOURCE);
+            }
+        });
+    }
+
+    private static boolean requestHasWritten() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        return request != null && request.getAttribute(WROTE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    // ========== HEALTH ==========
+
+    public void checkReplicas() {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        try {
+            new JdbcTemplate(primary).update(HEARTBEAT_SQL);
+        } catch (Exception e) {
+            logger.warn("Replication heartbeat failed: {}", e.getMessage());
+        }
+        List<String> nowHealthy = new ArrayList<>();
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            ReplicaState state = states.get(replica.getKey());
+            try {
+                new JdbcTemplate(replica.getValue()).query(LAG_SQL, (RowCallbackHandler) rs -> {
+                    Double lag = rs.getObject(3) != null ? rs.getDouble(3) : null;
+                    state.lagSeconds = lag;
+                    state.error = !rs.getBoolean(1) ? "not a standby (pg_is_in_recovery() is false)"
+                            : !"streaming".equals(rs.getString(2)) ? "WAL receiver is " + (rs.getString(2) != null ? rs.getString(2) : "not running")
+                            : lag == null ? "replication lag unknown"
+                            : null;
+                });
+            } catch (Exception e) {
+                state.lagSeconds = null;
+                state.error = e.getMessage();
+            }
+            state.checkedAt = System.currentTimeMillis();
+            boolean ok = state.error == null && state.lagSeconds <= properties.getMaxLagSeconds();
+            if (ok != state.healthy) {
+                logger.warn("Replica {} is now {} (lag={}s, error={})", replica.getKey(),
+                        ok ? "in rotation" : "out of rotation", state.lagSeconds, state.error);
+            }
+            state.healthy = ok;
+            if (ok) {
+                nowHealthy.add(replica.getKey());
+            }
+        }
+        healthy = List.copyOf(nowHealthy);
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("readYourWrites", properties.isReadYourWrites());
+        status.put("maxLagSeconds", properties.getMaxLagSeconds());
+        status.put("inRotation", healthy);
+        Map<String, Object> replicaStatus = new LinkedHashMap<>();
+        states.forEach((name, state) -> {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("healthy", state.healthy);
+            entry.put("lagSeconds", state.lagSeconds);
+            entry.put("error", state.error);
+            entry.put("checkedAt", state.checkedAt);
+            replicaStatus.put(name, entry);
+        });
+        status.put("replicas", replicaStatus);
+        status.put("pools", poolMetrics.snapshot());
+        return status;
+    }
+
+    private static final class ReplicaState {
+        private volatile boolean healthy;
+        private volatile Double lagSeconds;
+        private volatile String error;
+        private volatile long checkedAt;
+    }
+}
@@ -0,0 +1,53 @@
+package org.wldu.webservices.config;
+
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.function.Supplier;
+
+/**
+ * Connection pool bulkheads. Each workload gets its own primary pool, so a bulk job or
+ * a report holding every batch connection cannot stall teller postings or logins.
+ *
+ * The workload of a thread is set by WorkloadFilter for HTTP requests and explicitly by
+ * background writers that serve interactive traffic; any other thread without a request
+ * (schedulers, job workers, batch executors) counts as BATCH.
+ */
+public enum Workload {
+
+    INTERACTIVE,
+    BATCH,
+    AUTH;
+
+    private static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+    public static Workload current() {
+        Workload workload = CURRENT.get();
+        if (workload != null) {
+            return workload;
+        }
+        return RequestContextHolder.getRequestAttributes() != null ? INTERACTIVE : BATCH;
+    }
+
+    public static void set(Workload workload) {
+        CURRENT.set(workload);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /** Runs the supplier under the given workload and restores the previous one. */
+    public static <T> T call(Workload workload, Supplier<T> supplier) {
+        Workload previous = CURRENT.get();
+        CURRENT.set(workload);
+        try {
+            return supplier.get();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    public String poolName() {
+        return "primary-" + name().toLowerCase();
+    }
+}
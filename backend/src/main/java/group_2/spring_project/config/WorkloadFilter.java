@@ -0,0 +1,60 @@
+package org.wldu.webservices.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Tags each request with its workload before anything (including the security chain)
+ * touches the database.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class WorkloadFilter extends OncePerRequestFilter {
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final WorkloadPoolProperties properties;
+
+    public WorkloadFilter(WorkloadPoolProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Workload.set(workloadFor(request.getRequestURI()));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Workload.clear();
+        }
+    }
+
+    private Workload workloadFor(String path) {
+        if (matches(properties.getAuthPaths(), path)) {
+            return Workload.AUTH;
+        }
+        if (matches(properties.getBatchPaths(), path)) {
+            return Workload.BATCH;
+        }
+        return Workload.INTERACTIVE;
+    }
+
+    private boolean matches(List<String> patterns, String path) {
+        for (String pattern : patterns) {
+            if (matcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,56 @@
+package org.wldu.webservices.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sizing of the per-workload primary pools. Settings under spring.datasource.hikari
+ * apply to every pool; the values here override them per workload.
+ */
+@ConfigurationProperties(prefix = "savings.datasource.workloads")
+public class WorkloadPoolProperties {
+
+    private Map<Workload, Pool> pools = new EnumMap<>(Workload.class);
+
+    /** Request paths (Ant patterns) served from the batch pool. */
+    private List<String> batchPaths = new ArrayList<>();
+
+    /** Request paths (Ant patterns) served from the auth pool. */
+    private List<String> authPaths = new ArrayList<>();
+
+    public Map<Workload, Pool> getPools() { return pools; }
+    public void setPools(Map<Workload, Pool> pools) { this.pools = pools; }
+
+    public List<String> getBatchPaths() { return batchPaths; }
+    public void setBatchPaths(List<String> batchPaths) { this.batchPaths = batchPaths; }
+
+    public List<String> getAuthPaths() { return authPaths; }
+    public void setAuthPaths(List<String> authPaths) { this.authPaths = authPaths; }
+
+    public Pool pool(Workload workload) {
+        return pools.getOrDefault(workload, new Pool());
+    }
+
+    public static class Pool {
+        private int maximumPoolSize = 5;
+
+        /** How long a caller may wait in the pool queue for a connection. */
+        private long connectionTimeoutMs = 2000;
+
+        /** Server-side statement_timeout for every connection of the pool; 0 disables it. */
+        private long statementTimeoutMs = 0;
+
+        public int getMaximumPoolSize() { return maximumPoolSize; }
+        public void setMaximumPoolSize(int maximumPoolSize) { this.maximumPoolSize = maximumPoolSize; }
+
+        public long getConnectionTimeoutMs() { return connectionTimeoutMs; }
+        public void setConnectionTimeoutMs(long connectionTimeoutMs) { this.connectionTimeoutMs = connectionTimeoutMs; }
+
+        public long getStatementTimeoutMs() { return statementTimeoutMs; }
+        public void setStatementTimeoutMs(long statementTimeoutMs) { this.statementTimeoutMs = statementTimeoutMs; }
+    }
+}
@@ -0,0 +1,226 @@
+package org.wldu.webservices.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.wldu.webservices.config.AdmissionControlFilter;
+import org.wldu.webservices.config.ReplicaRoutingDataSource;
+import org.wldu.webservices.metrics.MetricsRegistry;
+import org.wldu.webservices.metrics.PinningMonitor;
+import org.wldu.webservices.services.CacheInvalidationBus;
+import org.wldu.webservices.services.ClusterJobCoordinator;
+import org.wldu.webservices.services.EntityCacheService;
+import org.wldu.webservices.services.PostingJournal;
+import org.wldu.webservices.services.TransactionPartitionService;
+
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    @Autowired
+    private TransactionPartitionService partitionService;
+
+    @Autowired
+    private PostingJournal postingJournal;
+
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private ClusterJobCoordinator clusterJobCoordinator;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Autowired
+    private AdmissionControlFilter admissionControlFilter;
+
+    @Autowired
+    private PinningMonitor pinningMonitor;
+
+    // ========== TRANSACTION PARTITIONS ==========
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/partitions")
+    public ResponseEntity<?> getPartitions() {
+        try {
+            return ResponseEntity.ok(partitionService.getPartitions());
+        } catch (Exception e) {
+            return serverError("Error retrieving partitions");
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/partitions/create")
+    public ResponseEntity<?> createPartitions() {
+        try {
+            List<String> created = partitionService.createUpcomingPartitions();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Upcoming partitions ensured");
+            response.put("created", created);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return serverError("Error creating partitions: " + e.getMessage());
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/partitions/archive")
+    public ResponseEntity<?> archivePartitions(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth before) {
+        try {
+            Map<String, Object> result = partitionService.archivePartitionsBefore(before);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Partitions archived");
+            response.put("results", result);
+
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        } catch (Exception e) {
+            return serverError("Error archiving partitions: " + e.getMessage());
+        }
+    }
+
+    // ========== POSTING JOURNAL ==========
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/posting-journal")
+    public ResponseEntity<?> getPostingJournalStats() {
+        try {
+            return ResponseEntity.ok(postingJournal.getStats());
+        } catch (Exception e) {
+            return serverError("Error retrieving posting journal statistics");
+        }
+    }
+
+    // ========== DATA SOURCES ==========
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/datasources")
+    public ResponseEntity<?> getDataSourceStatus() {
+        try {
+            return ResponseEntity.ok(routingDataSource.getStatus());
+        } catch (Exception e) {
+            return serverError("Error retrieving data source status");
+        }
+    }
+
+    // ========== ENTITY CACHE ==========
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/cache")
+    public ResponseEntity<?> getCacheStatistics() {
+        try {
+            return ResponseEntity.ok(entityCacheService.getStatistics());
+        } catch (Exception e) {
+            return serverError("Error retrieving cache statistics");
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/cache/evict")
+    public ResponseEntity<?> evictCache() {
+        try {
+            entityCacheService.evictAll();
+            return ResponseEntity.ok(Map.of("message", "Entity cache cleared"));
+        } catch (Exception e) {
+            return serverError("Error clearing cache");
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/cache/invalidation")
+    public ResponseEntity<?> getCacheInvalidationStatus() {
+        try {
+            return ResponseEntity.ok(cacheInvalidationBus.getStatus());
+        } catch (Exception e) {
+            return serverError("Error retrieving cache invalidation status");
+        }
+    }
+
+    // ========== CLUSTER JOBS ==========
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/jobs")
+    public ResponseEntity<?> getJobs(@RequestParam(defaultValue = "7") int days) {
+        try {
+            if (days < 1) {
+                return badRequest("days must be at least 1");
+            }
+            return ResponseEntity.ok(clusterJobCoordinator.getStatus(days));
+        } catch (Exception e) {
+            return serverError("Error retrieving job status");
+        }
+    }
+
+    // ========== METRICS ==========
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/metrics")
+    public ResponseEntity<?> getMetrics() {
+        try {
+            return ResponseEntity.ok(metricsRegistry.toJson());
+        } catch (Exception e) {
+            return serverError("Error retrieving metrics");
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping(value = "/metrics/prometheus", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public ResponseEntity<String> getPrometheusMetrics() {
+        return ResponseEntity.ok(metricsRegistry.toPrometheus());
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/metrics/sql-budget")
+    public ResponseEntity<?> getSqlBudgetViolations() {
+        try {
+            return ResponseEntity.ok(metricsRegistry.getBudgetViolations());
+        } catch (Exception e) {
+            return serverError("Error retrieving SQL budget violations");
+        }
+    }
+
+    // ========== THREADS AND ADMISSION ==========
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/threads")
+    public ResponseEntity<?> getThreadStatus() {
+        try {
+            Map<String, Object> status = new HashMap<>();
+            status.put("admission", admissionControlFilter.getStatus());
+            status.put("pinning", pinningMonitor.getStatus());
+            return ResponseEntity.ok(status);
+        } catch (Exception e) {
+            return serverError("Error retrieving thread status");
+        }
+    }
+
+    // ========== ERROR HELPER METHODS ==========
+    private ResponseEntity<Map<String, String>> badRequest(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Bad Request");
+        error.put("message", message);
+        error.put("status", "400");
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    private ResponseEntity<Map<String, String>> serverError(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Internal Server Error");
+        error.put("message", message);
+        error.put("status", "500");
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+    }
+}
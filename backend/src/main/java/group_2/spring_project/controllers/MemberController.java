@@ -4,14 +4,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.wldu.webservices.dto.MemberListItem;
 import org.wldu.webservices.entities.Member;
+import org.wldu.webservices.entities.Share;
+import org.wldu.webservices.entities.Transaction;
+import org.wldu.webservices.metrics.SqlBudget;
+import org.wldu.webservices.money.Money;
 import org.wldu.webservices.services.MemberService;
+import org.wldu.webservices.services.TransactionHistoryService;
 import org.wldu.webservices.repositories.MemberRepository;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,8 +34,12 @@ public class MemberController {
     @Autowired
     private MemberRepository memberRepository;
 
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+
     // ========== PUBLIC ENDPOINT ==========
     @PreAuthorize("permitAll()")
+    @SqlBudget(value = 10, maxRepeats = 3)
     @PostMapping
     public ResponseEntity<?> createMember(@RequestBody Member member) {
         try {
@@ -66,16 +78,16 @@ public class MemberController {
             Member member = memberService.purchaseAdditionalShares(id, quantity);
 
             int totalShares = 0;
-            double totalShareValue = 0.0;
+            long totalShareValue = 0;
 
             try {
                 if (member.getShares() != null) {
                     totalShares = member.getShares().size();
-                    totalShareValue = totalShares * 150.0;
+                    totalShareValue = Money.multiply(Share.SHARE_VALUE, totalShares);
                 }
             } catch (Exception e) {
                 totalShares = quantity;
-                totalShareValue = totalShares * 150.0;
+                totalShareValue = Money.multiply(Share.SHARE_VALUE, totalShares);
             }
 
             Map<String, Object> response = new HashMap<>();
@@ -85,7 +97,7 @@ public class MemberController {
             response.put("memberName", member.getFirstName() + " " + member.getLastName());
             response.put("quantityPurchased", quantity);
             response.put("totalShares", totalShares);
-            response.put("totalShareValue", totalShareValue);
+            response.put("totalShareValue", Money.toDecimal(totalShareValue));
 
             return ResponseEntity.ok(response);
 
@@ -97,6 +109,7 @@ public class MemberController {
     }
 
     @PreAuthorize("hasAnyRole('ASSISTANT', 'MANAGER', 'ADMIN')")
+    @SqlBudget(4)
     @GetMapping
     public ResponseEntity<?> getAllMembers(
             @PageableDefault(size = 10, sort = "id") Pageable pageable,
@@ -105,15 +118,15 @@ public class MemberController {
         try {
             if (search != null && !search.trim().isEmpty()) {
                 // For search, always include all members (active and inactive)
-                Page<Member> members = memberService.searchMembers(search.trim(), pageable);
+                Page<MemberListItem> members = memberService.searchMembers(search.trim(), pageable);
                 return ResponseEntity.ok(members);
             } else if (includeInactive) {
                 // Return all members including inactive ones
-                Page<Member> members = memberService.getAllMembers(pageable);
+                Page<MemberListItem> members = memberService.getAllMembers(pageable);
                 return ResponseEntity.ok(members);
             } else {
                 // Default behavior - return only active members
-                Page<Member> members = memberService.getAllActiveMembers(pageable);
+                Page<MemberListItem> members = memberService.getAllActiveMembers(pageable);
                 return ResponseEntity.ok(members);
             }
         } catch (Exception e) {
@@ -127,7 +140,7 @@ public class MemberController {
             @RequestParam(required = false) String q,
             @PageableDefault(size = 10, sort = "id") Pageable pageable) {
         try {
-            Page<Member> members = memberService.searchMembers(q, pageable);
+            Page<MemberListItem> members = memberService.searchMembers(q, pageable);
             return ResponseEntity.ok(members);
         } catch (Exception e) {
             return serverError("Error searching members");
@@ -135,12 +148,13 @@ public class MemberController {
     }
 
     @PreAuthorize("hasAnyRole('ASSISTANT', 'MANAGER', 'ADMIN')")
+    @SqlBudget(4)
     @GetMapping("/domain/{domain}")
     public ResponseEntity<?> getMembersByDomain(
             @PathVariable Member.WorkDomain domain,
             @PageableDefault(size = 10, sort = "id") Pageable pageable) {
         try {
-            Page<Member> members = memberService.getMembersByDomain(domain, pageable);
+            Page<MemberListItem> members = memberService.getMembersByDomain(domain, pageable);
             return ResponseEntity.ok(members);
         } catch (Exception e) {
             return serverError("Error retrieving members by domain");
@@ -148,6 +162,7 @@ public class MemberController {
     }
 
     @PreAuthorize("hasAnyRole('ASSISTANT', 'MANAGER', 'ADMIN')")
+    @SqlBudget(3)
     @GetMapping("/{id}/eligibility")
     public ResponseEntity<?> checkEligibility(@PathVariable Long id) {
         try {
@@ -173,11 +188,11 @@ public class MemberController {
     @GetMapping("/{id}/shares/value")
     public ResponseEntity<?> getTotalShareValue(@PathVariable Long id) {
         try {
-            double totalValue = memberService.getTotalShareValue(id);
+            long totalValue = memberService.getTotalShareValue(id);
 
             Map<String, Object> response = new HashMap<>();
             response.put("memberId", id);
-            response.put("totalShareValue", totalValue);
+            response.put("totalShareValue", Money.toDecimal(totalValue));
             response.put("currency", "ETB");
 
             return ResponseEntity.ok(response);
@@ -211,6 +226,7 @@ public class MemberController {
 
     // ========== MANAGER + ADMIN ONLY ==========
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    @SqlBudget(3)
     @GetMapping("/{id}")
     public ResponseEntity<?> getMember(@PathVariable Long id) {
         try {
@@ -236,6 +252,25 @@ public class MemberController {
         }
     }
 
+    // Same roles as the per-account history and GET /api/accounts/member/{memberId}.
+    @PreAuthorize("hasAnyRole('ASSISTANT', 'MANAGER', 'ADMIN')")
+    @GetMapping("/{id}/transactions")
+    public ResponseEntity<?> getMemberTransactions(
+            @PathVariable Long id,
+            @RequestParam(required = false) Transaction.TransactionType type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(transactionHistoryService.getMemberHistory(id, type, from, to, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        } catch (Exception e) {
+            return serverError("Error retrieving member transactions");
+        }
+    }
+
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
     @PutMapping("/{id}")
     public ResponseEntity<?> updateMember(@PathVariable Long id, @RequestBody Member memberUpdates) {
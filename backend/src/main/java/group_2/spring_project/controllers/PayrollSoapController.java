@@ -0,0 +1,77 @@
+package org.wldu.webservices.controllers;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.wldu.webservices.services.PayrollDepositService;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+
+/**
+ * SOAP endpoint for the university payroll system. The request body is read and the
+ * response written as streams by PayrollDepositService; nothing here buffers the message.
+ */
+@RestController
+@RequestMapping("/ws/payroll")
+public class PayrollSoapController {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayrollSoapController.class);
+
+    private static final String SOAP_12_CONTENT_TYPE = "application/soap+xml";
+
+    @Autowired
+    private PayrollDepositService payrollDepositService;
+
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    @GetMapping(params = "wsdl")
+    public ResponseEntity<Resource> getWsdl() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_XML)
+                .body(new ClassPathResource("wsdl/payroll.wsdl"));
+    }
+
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    @PostMapping(consumes = {MediaType.TEXT_XML_VALUE, SOAP_12_CONTENT_TYPE})
+    public void postDeposits(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean soap12 = request.getContentType() != null && request.getContentType().startsWith(SOAP_12_CONTENT_TYPE);
+        String contentType = (soap12 ? SOAP_12_CONTENT_TYPE : MediaType.TEXT_XML_VALUE) + ";charset=UTF-8";
+
+        PayrollDepositService.PayrollRequest payroll;
+        try {
+            payroll = payrollDepositService.openRequest(request.getInputStream());
+        } catch (IllegalArgumentException | XMLStreamException e) {
+            logger.warn("Rejected payroll SOAP request: {}", e.getMessage());
+            // SOAP 1.1 reports client faults as 500, SOAP 1.2 sender faults as 400
+            response.setStatus(soap12 ? HttpServletResponse.SC_BAD_REQUEST : HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            response.setContentType(contentType);
+            writeFault(soap12, e.getMessage(), response);
+            return;
+        }
+
+        response.setContentType(contentType);
+        try {
+            payrollDepositService.writeResponse(payroll, response.getOutputStream());
+        } catch (XMLStreamException e) {
+            // The response is already partly sent; the client sees a truncated envelope.
+            logger.error("Writing payroll response for batch {} failed: {}", payroll.batchId(), e.getMessage(), e);
+        }
+    }
+
+    private void writeFault(boolean soap12, String message, HttpServletResponse response) throws IOException {
+        try {
+            payrollDepositService.writeFault(soap12 ? PayrollDepositService.SOAP_12 : PayrollDepositService.SOAP_11,
+                    String.valueOf(message), response.getOutputStream());
+        } catch (XMLStreamException e) {
+            throw new IOException("Writing SOAP fault failed", e);
+        }
+    }
+}
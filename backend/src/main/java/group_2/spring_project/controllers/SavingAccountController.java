@@ -1,42 +1,96 @@
 package org.wldu.webservices.controllers;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.wldu.webservices.dto.AccountListItem;
+import org.wldu.webservices.dto.PostingRequest;
+import org.wldu.webservices.dto.PostingResult;
 import org.wldu.webservices.entities.FormalSavingAccount;
 import org.wldu.webservices.entities.InformalSavingAccount;
 import org.wldu.webservices.entities.SavingAccount;
 import org.wldu.webservices.entities.Transaction;
+import org.wldu.webservices.metrics.SqlBudget;
+import org.wldu.webservices.money.Money;
+import org.wldu.webservices.services.DormancyService;
+import org.wldu.webservices.services.InterestService;
+import org.wldu.webservices.services.LedgerService;
+import org.wldu.webservices.services.MonthlyDepositService;
+import org.wldu.webservices.services.PayrollFileIngestService;
+import org.wldu.webservices.services.PostingJournal;
 import org.wldu.webservices.services.SavingAccountService;
+import org.wldu.webservices.services.StatementService;
+import org.wldu.webservices.services.TransactionHistoryService;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/api/accounts")
 public class SavingAccountController {
 
+    private static final Logger logger = LoggerFactory.getLogger(SavingAccountController.class);
+
+    private static final long JOURNAL_TIMEOUT_SECONDS = 30;
+
     @Autowired
     private SavingAccountService savingAccountService;
 
+    @Autowired
+    private MonthlyDepositService monthlyDepositService;
+
+    @Autowired
+    private InterestService interestService;
+
+    @Autowired
+    private DormancyService dormancyService;
+
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private PostingJournal postingJournal;
+
+    @Autowired
+    private PayrollFileIngestService payrollFileIngestService;
+
     // ========== ASSISTANT + MANAGER + ADMIN ==========
     @PreAuthorize("hasAnyRole('ASSISTANT', 'MANAGER', 'ADMIN')")
+    @SqlBudget(8)
     @PostMapping("/formal")
-    public ResponseEntity<?> openFormalAccount(@RequestParam Long memberId, @RequestParam Double monthlyAmount) {
+    public ResponseEntity<?> openFormalAccount(@RequestParam Long memberId, @RequestParam BigDecimal monthlyAmount) {
         try {
-            FormalSavingAccount account = savingAccountService.openFormalAccount(memberId, monthlyAmount);
+            FormalSavingAccount account = savingAccountService.openFormalAccount(memberId, Money.fromDecimal(monthlyAmount));
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Formal saving account created successfully");
             response.put("accountId", account.getId());
             response.put("accountNumber", account.getAccountNumber());
-            response.put("monthlyAmount", account.getMonthlyAmount());
+            response.put("monthlyAmount", Money.toDecimal(account.getMonthlyAmount()));
             response.put("memberId", memberId);
 
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
@@ -49,16 +103,17 @@ public class SavingAccountController {
     }
 
     @PreAuthorize("hasAnyRole('ASSISTANT', 'MANAGER', 'ADMIN')")
+    @SqlBudget(8)
     @PostMapping("/informal")
-    public ResponseEntity<?> openInformalAccount(@RequestParam Long memberId, @RequestParam(required = false) Double targetAmount) {
+    public ResponseEntity<?> openInformalAccount(@RequestParam Long memberId, @RequestParam(required = false) BigDecimal targetAmount) {
         try {
-            InformalSavingAccount account = savingAccountService.openInformalAccount(memberId, targetAmount);
+            InformalSavingAccount account = savingAccountService.openInformalAccount(memberId, Money.fromDecimalOrNull(targetAmount));
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Informal saving account created successfully");
             response.put("accountId", account.getId());
             response.put("accountNumber", account.getAccountNumber());
-            response.put("targetAmount", account.getTargetAmount());
+            response.put("targetAmount", Money.toDecimalOrNull(account.getTargetAmount()));
             response.put("memberId", memberId);
 
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
@@ -76,7 +131,7 @@ public class SavingAccountController {
             @PageableDefault(size = 10, sort = "id") Pageable pageable,
             @RequestParam(required = false) String search) {
         try {
-            Page<SavingAccount> accounts;
+            Page<AccountListItem> accounts;
             if (search != null && !search.trim().isEmpty()) {
                 accounts = savingAccountService.searchAccounts(search.trim(), pageable);
             } else {
@@ -89,6 +144,26 @@ public class SavingAccountController {
     }
 
     @PreAuthorize("hasAnyRole('ASSISTANT', 'MANAGER', 'ADMIN')")
+    @GetMapping("/dormant")
+    public ResponseEntity<?> getDormantAccounts(
+            @RequestParam(required = false) Integer inactiveDays,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterAt,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false, defaultValue = "50") int size) {
+        try {
+            if (size < 1 || size > 500) {
+                return badRequest("Size must be between 1 and 500");
+            }
+            return ResponseEntity.ok(dormancyService.scanDormantAccounts(inactiveDays, afterAt, afterId, size));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        } catch (Exception e) {
+            return serverError("Error retrieving dormant accounts");
+        }
+    }
+
+    @PreAuthorize("hasAnyRole('ASSISTANT', 'MANAGER', 'ADMIN')")
+    @SqlBudget(3)
     @GetMapping("/{id}")
     public ResponseEntity<?> getAccount(@PathVariable Long id) {
         try {
@@ -102,6 +177,96 @@ public class SavingAccountController {
     }
 
     @PreAuthorize("hasAnyRole('ASSISTANT', 'MANAGER', 'ADMIN')")
+    @GetMapping("/{id}/transactions")
+    public ResponseEntity<?> getAccountTransactions(
+            @PathVariable Long id,
+            @RequestParam(required = false) Transaction.TransactionType type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(transactionHistoryService.getAccountHistory(id, type, from, to, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        } catch (Exception e) {
+            return serverError("Error retrieving account transactions");
+        }
+    }
+
+    @PreAuthorize("hasAnyRole('ASSISTANT', 'MANAGER', 'ADMIN')")
+    @GetMapping("/{id}/statement")
+    public ResponseEntity<?> getStatement(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            StatementService.StatementHeader header = statementService.prepareStatement(id, from, to);
+            StreamingResponseBody body = out -> statementService.writeStatement(header, out);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        } catch (Exception e) {
+            return serverError("Error generating statement");
+        }
+    }
+
+    @PreAuthorize("hasAnyRole('ASSISTANT', 'MANAGER', 'ADMIN')")
+    @GetMapping("/{id}/ledger-balance")
+    public ResponseEntity<?> getLedgerBalance(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        try {
+            savingAccountService.getAccount(id);
+        } catch (IllegalArgumentException e) {
+            return notFound(e.getMessage());
+        }
+        try {
+            LedgerService.LedgerBalance balance = asOf != null
+                    ? ledgerService.balanceAsOf(id, asOf)
+                    : ledgerService.balance(id);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("accountId", id);
+            response.put("balance", Money.toDecimal(balance.balance()));
+            response.put("sequenceNumber", balance.sequenceNumber());
+            response.put("tailEntries", balance.tailEntries());
+            response.put("asOf", balance.asOf());
+
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", "Conflict",
+                    "message", e.getMessage(),
+                    "status", "409"));
+        } catch (Exception e) {
+            return serverError("Error retrieving ledger balance");
+        }
+    }
+
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    @GetMapping("/{id}/ledger-verify")
+    public ResponseEntity<?> verifyLedger(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(ledgerService.verify(id));
+        } catch (IllegalArgumentException e) {
+            return notFound(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", "Conflict",
+                    "message", e.getMessage(),
+                    "status", "409"));
+        } catch (Exception e) {
+            return serverError("Error verifying ledger");
+        }
+    }
+
+    @PreAuthorize("hasAnyRole('ASSISTANT', 'MANAGER', 'ADMIN')")
+    @SqlBudget(3)
     @GetMapping("/number/{accountNumber}")
     public ResponseEntity<?> getAccountByNumber(@PathVariable String accountNumber) {
         try {
@@ -115,6 +280,7 @@ public class SavingAccountController {
     }
 
     @PreAuthorize("hasAnyRole('ASSISTANT', 'MANAGER', 'ADMIN')")
+    @SqlBudget(4)
     @GetMapping("/member/{memberId}")
     public ResponseEntity<?> getMemberAccounts(@PathVariable Long memberId) {
         try {
@@ -140,11 +306,11 @@ public class SavingAccountController {
     @GetMapping("/member/{memberId}/balance")
     public ResponseEntity<?> getMemberTotalBalance(@PathVariable Long memberId) {
         try {
-            Double totalBalance = savingAccountService.getMemberTotalBalance(memberId);
+            long totalBalance = savingAccountService.getMemberTotalBalance(memberId);
 
             Map<String, Object> response = new HashMap<>();
             response.put("memberId", memberId);
-            response.put("totalBalance", totalBalance);
+            response.put("totalBalance", Money.toDecimal(totalBalance));
             response.put("currency", "ETB");
 
             return ResponseEntity.ok(response);
@@ -154,23 +320,28 @@ public class SavingAccountController {
     }
 
     @PreAuthorize("hasAnyRole('ASSISTANT', 'MANAGER', 'ADMIN')")
+    @SqlBudget(8)
     @PostMapping("/{id}/deposit")
-    public ResponseEntity<?> deposit(@PathVariable Long id, @RequestParam Double amount, @RequestParam(required = false) String description) {
+    public ResponseEntity<?> deposit(@PathVariable Long id, @RequestParam BigDecimal amount, @RequestParam(required = false) String description) {
         try {
-            if (amount == null || amount <= 0) {
+            if (amount == null || amount.signum() <= 0) {
                 return badRequest("Amount must be positive");
             }
+            if (postingJournal.isEnabled()) {
+                return postThroughJournal(id, Transaction.TransactionType.DEPOSIT, amount,
+                        description != null ? description : "Deposit", "Deposit successful");
+            }
 
             Transaction transaction = savingAccountService.deposit(
-                    id, amount, description != null ? description : "Deposit"
+                    id, Money.fromDecimal(amount), description != null ? description : "Deposit"
             );
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Deposit successful");
             response.put("transactionId", transaction.getId());
             response.put("referenceNumber", transaction.getReferenceNumber());
-            response.put("amount", transaction.getAmount());
-            response.put("newBalance", transaction.getAccount().getCurrentBalance());
+            response.put("amount", Money.toDecimal(transaction.getAmount()));
+            response.put("newBalance", Money.toDecimal(transaction.getAccount().getCurrentBalance()));
 
             return ResponseEntity.ok(response);
 
@@ -185,18 +356,8 @@ public class SavingAccountController {
     @PostMapping("/{id}/deposit/monthly")
     public ResponseEntity<?> makeMonthlyDeposit(@PathVariable Long id, @RequestParam(required = false) String description) {
         try {
-            SavingAccount account = savingAccountService.getAccount(id);
-
-            if (!(account instanceof FormalSavingAccount)) {
-                return badRequest("Only formal accounts can make monthly deposits");
-            }
-
-            FormalSavingAccount formalAccount = (FormalSavingAccount) account;
-
-            Transaction transaction = savingAccountService.deposit(
-                    id,
-                    formalAccount.getMonthlyAmount(),
-                    description != null ? description : "Monthly deposit"
+            Transaction transaction = savingAccountService.depositMonthly(
+                    id, description != null ? description : "Monthly deposit"
             );
 
             Map<String, Object> response = new HashMap<>();
@@ -214,23 +375,28 @@ public class SavingAccountController {
     }
 
     @PreAuthorize("hasAnyRole('ASSISTANT', 'MANAGER', 'ADMIN')")
+    @SqlBudget(8)
     @PostMapping("/{id}/withdraw")
-    public ResponseEntity<?> withdraw(@PathVariable Long id, @RequestParam Double amount, @RequestParam(required = false) String description) {
+    public ResponseEntity<?> withdraw(@PathVariable Long id, @RequestParam BigDecimal amount, @RequestParam(required = false) String description) {
         try {
-            if (amount == null || amount <= 0) {
+            if (amount == null || amount.signum() <= 0) {
                 return badRequest("Amount must be positive");
             }
+            if (postingJournal.isEnabled()) {
+                return postThroughJournal(id, Transaction.TransactionType.WITHDRAWAL, amount,
+                        description != null ? description : "Withdrawal", "Withdrawal successful");
+            }
 
             Transaction transaction = savingAccountService.withdraw(
-                    id, amount, description != null ? description : "Withdrawal"
+                    id, Money.fromDecimal(amount), description != null ? description : "Withdrawal"
             );
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Withdrawal successful");
             response.put("transactionId", transaction.getId());
             response.put("referenceNumber", transaction.getReferenceNumber());
-            response.put("amount", transaction.getAmount());
-            response.put("newBalance", transaction.getAccount().getCurrentBalance());
+            response.put("amount", Money.toDecimal(transaction.getAmount()));
+            response.put("newBalance", Money.toDecimal(transaction.getAccount().getCurrentBalance()));
 
             return ResponseEntity.ok(response);
 
@@ -305,20 +471,23 @@ public class SavingAccountController {
         }
     }
 
+    // No @SqlBudget: the deposits are batched, but every batch entry counts as a statement
+    // and there are two per member, so no fixed budget fits a domain of any size.
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
     @PostMapping("/bulk-deposit")
     public ResponseEntity<?> bulkDepositByDomain(
             @RequestParam String workDomain, 
-            @RequestParam Double amount, 
-            @RequestParam(required = false) String description) {
+            @RequestParam BigDecimal amount, 
+            @RequestParam(required = false) String description,
+            @RequestParam(required = false) String runKey) {
         try {
-            if (amount == null || amount <= 0) {
+            if (amount == null || amount.signum() <= 0) {
                 return badRequest("Amount must be positive");
             }
 
-            System.out.println("DEBUG: Starting bulk deposit for domain: " + workDomain + ", amount: " + amount);
+            logger.debug("Starting bulk deposit for domain {} (amount {})", workDomain, amount);
 
-            Map<String, Object> result = savingAccountService.bulkDepositByDomain(workDomain, amount, description);
+            Map<String, Object> result = savingAccountService.bulkDepositByDomain(workDomain, Money.fromDecimal(amount), description, runKey);
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Bulk deposit completed successfully");
@@ -332,12 +501,142 @@ public class SavingAccountController {
         } catch (IllegalArgumentException e) {
             return badRequest(e.getMessage());
         } catch (Exception e) {
-            System.err.println("ERROR in bulk deposit: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Bulk deposit for domain {} failed: {}", workDomain, e.getMessage(), e);
             return serverError("Error processing bulk deposit: " + e.getMessage());
         }
     }
 
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    @PostMapping("/monthly-deposits/run")
+    public ResponseEntity<?> runMonthlyDeposits(@RequestParam(required = false) String description) {
+        try {
+            Map<String, Object> result = monthlyDepositService.runMonthlyDeposits(LocalDate.now(), description);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Monthly deposit run completed");
+            response.put("results", result);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", "Conflict",
+                    "message", e.getMessage(),
+                    "status", "409"));
+        } catch (Exception e) {
+            return serverError("Error running monthly deposits: " + e.getMessage());
+        }
+    }
+
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    @PostMapping("/payroll-deductions/ingest")
+    public ResponseEntity<?> ingestPayrollDeductions(
+            @RequestParam String fileName,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth period) {
+        try {
+            Map<String, Object> result = payrollFileIngestService.ingest(fileName, period);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Payroll deduction file ingested");
+            response.put("results", result);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", "Conflict",
+                    "message", e.getMessage(),
+                    "status", "409"));
+        } catch (Exception e) {
+            logger.error("Payroll file {} ingestion failed: {}", fileName, e.getMessage(), e);
+            return serverError("Error ingesting payroll file: " + e.getMessage());
+        }
+    }
+
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    @PostMapping("/dormant/flag")
+    public ResponseEntity<?> flagDormantAccounts(@RequestParam(required = false) Integer inactiveDays) {
+        try {
+            Map<String, Object> result = dormancyService.flagDormantAccounts(inactiveDays);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Dormant accounts flagged");
+            response.put("results", result);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        } catch (Exception e) {
+            return serverError("Error flagging dormant accounts");
+        }
+    }
+
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    @PostMapping("/interest/run")
+    public ResponseEntity<?> runInterest(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false, defaultValue = "false") Boolean dryRun) {
+        try {
+            Map<String, Object> result = interestService.runInterest(from, to, dryRun);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", dryRun ? "Interest computed (dry run)" : "Interest posted successfully");
+            response.put("results", result);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", "Conflict",
+                    "message", e.getMessage(),
+                    "status", "409"));
+        } catch (Exception e) {
+            return serverError("Error running interest: " + e.getMessage());
+        }
+    }
+
+    // With the posting journal enabled, teller postings are group-committed with concurrent ones.
+    private ResponseEntity<?> postThroughJournal(Long id, Transaction.TransactionType type, BigDecimal amount,
+                                                 String description, String message) throws Exception {
+        PostingJournal.Ticket ticket = postingJournal.submit(new PostingRequest(id, type, Money.fromDecimal(amount), description));
+        PostingResult result;
+        try {
+            result = ticket.future().get(JOURNAL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                return badRequest(e.getCause().getMessage());
+            }
+            throw e;
+        } catch (TimeoutException e) {
+            if (ticket.cancel()) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                        "error", "Service Unavailable",
+                        "message", "Posting was not applied; it is safe to retry",
+                        "status", "503"));
+            }
+            // Already handed to the database: it may still commit, so the caller must not blindly retry.
+            logger.warn("Journal posting {} on account {} timed out in flight", ticket.referenceNumber(), id);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                    "message", "Posting outcome unknown; look up the reference number before retrying",
+                    "referenceNumber", ticket.referenceNumber(),
+                    "status", "202"));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", message);
+        response.put("transactionId", result.transactionId());
+        response.put("referenceNumber", result.referenceNumber());
+        response.put("amount", Money.toDecimal(result.amount()));
+        response.put("newBalance", Money.toDecimal(result.balanceAfter()));
+        return ResponseEntity.ok(response);
+    }
+
     // ========== ERROR HELPER METHODS ==========
     private ResponseEntity<Map<String, String>> badRequest(String message) {
         Map<String, String> error = new HashMap<>();
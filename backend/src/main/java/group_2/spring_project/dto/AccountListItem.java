@@ -0,0 +1,23 @@
+package org.wldu.webservices.dto;
+
+import org.wldu.webservices.money.MoneyAmount;
+
+import java.time.LocalDate;
+
+/**
+ * Row of the account list view, with the owning member's id and name. monthlyAmount
+ * is only set for formal accounts and targetAmount only for informal ones.
+ */
+public record AccountListItem(
+        Long id,
+        String accountNumber,
+        String accountType,
+        @MoneyAmount long currentBalance,
+        LocalDate openingDate,
+        Boolean isActive,
+        LocalDate dormantSince,
+        @MoneyAmount Long monthlyAmount,
+        @MoneyAmount Long targetAmount,
+        Long memberId,
+        String memberName) {
+}
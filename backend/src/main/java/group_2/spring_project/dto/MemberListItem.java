@@ -0,0 +1,26 @@
+package org.wldu.webservices.dto;
+
+import org.wldu.webservices.entities.Member;
+import org.wldu.webservices.money.MoneyAmount;
+
+import java.time.LocalDate;
+
+/**
+ * Row of the member list views. Shares are reduced to their count; the full member
+ * with shares is still served by GET /api/members/{id}/full.
+ */
+public record MemberListItem(
+        Long id,
+        String firstName,
+        String lastName,
+        String employeeId,
+        Member.WorkDomain workDomain,
+        String email,
+        String phoneNumber,
+        LocalDate registrationDate,
+        @MoneyAmount long registrationFee,
+        Boolean isActive,
+        LocalDate deactivationDate,
+        String deactivationReason,
+        long shareCount) {
+}
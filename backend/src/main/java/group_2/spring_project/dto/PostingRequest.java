@@ -0,0 +1,39 @@
+package org.wldu.webservices.dto;
+
+import org.wldu.webservices.entities.Transaction;
+
+import java.time.YearMonth;
+
+/**
+ * A deposit or withdrawal queued for batched posting. Amounts are minor units. The
+ * reference number is assigned when the posting is generated if it is null here. A
+ * payroll period marks a deposit as a payroll deduction for that month, which follows
+ * PostingRules.checkDeduction instead of the teller deposit rules.
+ */
+public record PostingRequest(
+        Long accountId,
+        Transaction.TransactionType transactionType,
+        long amount,
+        String description,
+        String referenceNumber,
+        YearMonth payrollPeriod) {
+
+    public PostingRequest(Long accountId, Transaction.TransactionType transactionType, long amount, String description) {
+        this(accountId, transactionType, amount, description, null, null);
+    }
+
+    public PostingRequest(Long accountId, Transaction.TransactionType transactionType, long amount, String description,
+                          String referenceNumber) {
+        this(accountId, transactionType, amount, description, referenceNumber, null);
+    }
+
+    public static PostingRequest deduction(Long accountId, long amount, String description, String referenceNumber,
+                                           YearMonth payrollPeriod) {
+        return new PostingRequest(accountId, Transaction.TransactionType.DEPOSIT, amount, description,
+                referenceNumber, payrollPeriod);
+    }
+
+    public PostingRequest withReferenceNumber(String referenceNumber) {
+        return new PostingRequest(accountId, transactionType, amount, description, referenceNumber, payrollPeriod);
+    }
+}
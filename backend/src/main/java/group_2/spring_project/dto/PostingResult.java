@@ -0,0 +1,19 @@
+package org.wldu.webservices.dto;
+
+import org.wldu.webservices.entities.Transaction;
+import org.wldu.webservices.money.MoneyAmount;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one posting applied by PostingBatchApplier.
+ */
+public record PostingResult(
+        Long transactionId,
+        String referenceNumber,
+        Long accountId,
+        Transaction.TransactionType transactionType,
+        @MoneyAmount long amount,
+        @MoneyAmount long balanceAfter,
+        LocalDateTime postedAt) {
+}
@@ -0,0 +1,39 @@
+package org.wldu.webservices.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Keyset position in a transaction history ordered by (transactionDate DESC, id ASC).
+ * Serialized as {@code <ISO date-time>_<id>}.
+ */
+public record TransactionCursor(LocalDateTime transactionDate, Long id) {
+
+    public static final TransactionCursor START = new TransactionCursor(LocalDateTime.of(9999, 12, 31, 0, 0), 0L);
+
+    public static TransactionCursor after(TransactionView row) {
+        return new TransactionCursor(row.transactionDate(), row.id());
+    }
+
+    public static TransactionCursor parse(String value) {
+        if (value == null || value.isBlank()) {
+            return START;
+        }
+        int separator = value.lastIndexOf('_');
+        if (separator < 1) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+        try {
+            return new TransactionCursor(
+                    LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return transactionDate + "_" + id;
+    }
+}
@@ -0,0 +1,20 @@
+package org.wldu.webservices.dto;
+
+import org.wldu.webservices.entities.Transaction;
+import org.wldu.webservices.money.MoneyAmount;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model for transaction history rows, selected with a constructor expression
+ * so history pages never hydrate Transaction or SavingAccount entities.
+ */
+public record TransactionView(
+        Long id,
+        String referenceNumber,
+        Transaction.TransactionType transactionType,
+        @MoneyAmount long amount,
+        String description,
+        LocalDateTime transactionDate,
+        Long accountId) {
+}
@@ -3,7 +3,7 @@ package org.wldu.webservices.entities;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
-import jakarta.validation.constraints.NotNull;
+import org.wldu.webservices.money.MoneyAmount;
 
 import java.time.LocalDate;
 
@@ -11,10 +11,10 @@ import java.time.LocalDate;
 @DiscriminatorValue("FORMAL")
 public class FormalSavingAccount extends SavingAccount {
 
-    @NotNull
-    @Min(value = 100, message = "Minimum monthly amount is 100 ETB")
+    @Min(value = 10000, message = "Minimum monthly amount is 100 ETB")
     @Column(name = "monthly_amount", nullable = false)
-    private Double monthlyAmount;
+    @MoneyAmount
+    private long monthlyAmount;
 
     @Column(name = "last_monthly_deposit_date")
     private LocalDate lastMonthlyDepositDate;
@@ -30,14 +30,14 @@ public class FormalSavingAccount extends SavingAccount {
         super();
     }
 
-    public FormalSavingAccount(Double monthlyAmount) {
+    public FormalSavingAccount(long monthlyAmount) {
         this();
         this.monthlyAmount = monthlyAmount;
     }
 
 
-    public Double getMonthlyAmount() { return monthlyAmount; }
-    public void setMonthlyAmount(Double monthlyAmount) { this.monthlyAmount = monthlyAmount; }
+    public long getMonthlyAmount() { return monthlyAmount; }
+    public void setMonthlyAmount(long monthlyAmount) { this.monthlyAmount = monthlyAmount; }
 
     public LocalDate getLastMonthlyDepositDate() { return lastMonthlyDepositDate; }
     public void setLastMonthlyDepositDate(LocalDate lastMonthlyDepositDate) {
@@ -2,39 +2,44 @@ package org.wldu.webservices.entities;
 
 
 import jakarta.persistence.*;
+import org.wldu.webservices.money.Money;
+import org.wldu.webservices.money.MoneyAmount;
 
 @Entity
 @DiscriminatorValue("INFORMAL")
 public class InformalSavingAccount extends SavingAccount {
 
     @Column(name = "target_amount")
-    private Double targetAmount;
+    @MoneyAmount
+    private Long targetAmount;
 
     @Column(name = "daily_withdrawal_limit")
-    private Double dailyWithdrawalLimit = 10000.0; // Default 10,000 ETB
+    @MoneyAmount
+    private long dailyWithdrawalLimit = Money.etb(10000); // Default 10,000 ETB
 
     @Column(name = "minimum_balance")
-    private Double minimumBalance = 0.0;
+    @MoneyAmount
+    private long minimumBalance = 0;
 
 
     public InformalSavingAccount() {
         super();
     }
 
-    public InformalSavingAccount(Double targetAmount) {
+    public InformalSavingAccount(Long targetAmount) {
         this();
         this.targetAmount = targetAmount;
     }
 
 
-    public Double getTargetAmount() { return targetAmount; }
-    public void setTargetAmount(Double targetAmount) { this.targetAmount = targetAmount; }
+    public Long getTargetAmount() { return targetAmount; }
+    public void setTargetAmount(Long targetAmount) { this.targetAmount = targetAmount; }
 
-    public Double getDailyWithdrawalLimit() { return dailyWithdrawalLimit; }
-    public void setDailyWithdrawalLimit(Double dailyWithdrawalLimit) {
+    public long getDailyWithdrawalLimit() { return dailyWithdrawalLimit; }
+    public void setDailyWithdrawalLimit(long dailyWithdrawalLimit) {
         this.dailyWithdrawalLimit = dailyWithdrawalLimit;
     }
 
-    public Double getMinimumBalance() { return minimumBalance; }
-    public void setMinimumBalance(Double minimumBalance) { this.minimumBalance = minimumBalance; }
+    public long getMinimumBalance() { return minimumBalance; }
+    public void setMinimumBalance(long minimumBalance) { this.minimumBalance = minimumBalance; }
 }
\ No newline at end of file
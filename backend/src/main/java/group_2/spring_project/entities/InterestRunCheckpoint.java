@@ -0,0 +1,58 @@
+package org.wldu.webservices.entities;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "interest_run_checkpoints", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_interest_checkpoint_range", columnNames = {"run_key", "range_start"})
+})
+public class InterestRunCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_key", nullable = false, length = 40)
+    private String runKey;
+
+    @Column(name = "range_start", nullable = false)
+    private Long rangeStart;
+
+    @Column(name = "range_end", nullable = false)
+    private Long rangeEnd;
+
+    @Column(name = "accounts_posted", nullable = false)
+    private Integer accountsPosted;
+
+    @Column(name = "total_interest", nullable = false)
+    private long totalInterest;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+
+    public InterestRunCheckpoint() {
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getRunKey() { return runKey; }
+    public void setRunKey(String runKey) { this.runKey = runKey; }
+
+    public Long getRangeStart() { return rangeStart; }
+    public void setRangeStart(Long rangeStart) { this.rangeStart = rangeStart; }
+
+    public Long getRangeEnd() { return rangeEnd; }
+    public void setRangeEnd(Long rangeEnd) { this.rangeEnd = rangeEnd; }
+
+    public Integer getAccountsPosted() { return accountsPosted; }
+    public void setAccountsPosted(Integer accountsPosted) { this.accountsPosted = accountsPosted; }
+
+    public long getTotalInterest() { return totalInterest; }
+    public void setTotalInterest(long totalInterest) { this.totalInterest = totalInterest; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+}
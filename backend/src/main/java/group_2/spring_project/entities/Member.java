@@ -3,6 +3,13 @@ package org.wldu.webservices.entities;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.wldu.webservices.money.Money;
+import org.wldu.webservices.money.MoneyAmount;
+import org.wldu.webservices.services.EntityCacheListener;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -13,6 +20,9 @@ import java.util.List;
         @Index(name = "idx_member_work_domain", columnList = "work_domain"),
         @Index(name = "idx_member_active", columnList = "is_active")
 })
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "members")
+@EntityListeners(EntityCacheListener.class)
+@NaturalIdCache(region = "member-employee-ids")
 public class Member {
 
     @Id
@@ -25,6 +35,7 @@ public class Member {
     @Column(name = "last_name", nullable = false, length = 100)
     private String lastName;
 
+    @NaturalId
     @Column(name = "employee_id", unique = true, nullable = false, length = 50)
     private String employeeId;
 
@@ -41,8 +52,11 @@ public class Member {
     @Column(name = "registration_date", nullable = false)
     private LocalDate registrationDate;
 
+    public static final long REGISTRATION_FEE = Money.etb(500);
+
     @Column(name = "registration_fee", nullable = false)
-    private Double registrationFee = 500.0;
+    @MoneyAmount
+    private long registrationFee = REGISTRATION_FEE;
 
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
@@ -54,6 +68,7 @@ public class Member {
     private String deactivationReason;
 
     @OneToMany(mappedBy = "member", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member-shares")
     private List<Share> shares = new ArrayList<>();
 
     @OneToMany(mappedBy = "member", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -96,8 +111,8 @@ public class Member {
     public LocalDate getRegistrationDate() { return registrationDate; }
     public void setRegistrationDate(LocalDate registrationDate) { this.registrationDate = registrationDate; }
 
-    public Double getRegistrationFee() { return registrationFee; }
-    public void setRegistrationFee(Double registrationFee) { this.registrationFee = registrationFee; }
+    public long getRegistrationFee() { return registrationFee; }
+    public void setRegistrationFee(long registrationFee) { this.registrationFee = registrationFee; }
 
     public Boolean getIsActive() { return isActive; }
     public void setIsActive(Boolean isActive) { this.isActive = isActive; }
@@ -4,10 +4,18 @@ package org.wldu.webservices.entities;
 import jakarta.persistence.*;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.wldu.webservices.money.Money;
+import org.wldu.webservices.money.MoneyAmount;
+import org.wldu.webservices.services.EntityCacheListener;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,24 +29,33 @@ import java.util.List;
 @Table(name = "saving_accounts", indexes = {
         @Index(name = "idx_account_member", columnList = "member_id"),
         @Index(name = "idx_account_number", columnList = "account_number"),
-        @Index(name = "idx_account_active", columnList = "is_active")
+        @Index(name = "idx_account_active", columnList = "is_active"),
+        // Equality on the leading columns leaves the scan in id order for keyset paging;
+        // last_monthly_deposit_date is filtered from the index entry.
+        @Index(name = "idx_account_monthly_due",
+                columnList = "account_type, is_active, id, last_monthly_deposit_date"),
+        @Index(name = "idx_account_dormancy", columnList = "is_active, last_transaction_at, id")
 })
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "accounts")
+@EntityListeners(EntityCacheListener.class)
+@NaturalIdCache(region = "account-numbers")
 public abstract class SavingAccount {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId
     @Column(name = "account_number", unique = true, nullable = false, length = 50)
     private String accountNumber;
 
     @Column(name = "account_type", insertable = false, updatable = false, length = 20)
     private String accountType;
 
-    @NotNull
     @Min(value = 0, message = "Balance cannot be negative")
     @Column(name = "current_balance", nullable = false)
-    private Double currentBalance = 0.0;
+    @MoneyAmount
+    private long currentBalance = 0;
 
     @NotNull
     @Column(name = "opening_date", nullable = false)
@@ -48,13 +65,22 @@ public abstract class SavingAccount {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
 
+    // Last customer posting (or account opening); interest credits do not count as activity.
+    @Column(name = "last_transaction_at")
+    private LocalDateTime lastTransactionAt;
+
+    @Column(name = "dormant_since")
+    private LocalDate dormantSince;
+
     @NotNull
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "member_id", nullable = false)
     @JsonIgnore
     private Member member;
 
-    @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, orphanRemoval = true)
+    // Read-only view: transactions are append-only (the ledger trigger rejects updates and
+    // deletes) and are saved through TransactionRepository, so nothing cascades from here.
+    @OneToMany(mappedBy = "account")
     @OrderBy("transactionDate DESC")
     @JsonIgnore
     private List<Transaction> transactions = new ArrayList<>();
@@ -62,6 +88,7 @@ public abstract class SavingAccount {
 
     protected SavingAccount() {
         this.openingDate = LocalDate.now();
+        this.lastTransactionAt = LocalDateTime.now();
     }
 
 
@@ -74,8 +101,11 @@ public abstract class SavingAccount {
     public String getAccountType() { return accountType; }
     public void setAccountType(String accountType) { this.accountType = accountType; }
 
-    public Double getCurrentBalance() { return currentBalance; }
-    public void setCurrentBalance(Double currentBalance) { this.currentBalance = currentBalance; }
+    public long getCurrentBalance() { return currentBalance; }
+    public void setCurrentBalance(long currentBalance) { this.currentBalance = currentBalance; }
+
+    public void credit(long amount) { this.currentBalance = Money.add(currentBalance, amount); }
+    public void debit(long amount) { this.currentBalance = Money.subtract(currentBalance, amount); }
 
     public LocalDate getOpeningDate() { return openingDate; }
     public void setOpeningDate(LocalDate openingDate) { this.openingDate = openingDate; }
@@ -83,6 +113,18 @@ public abstract class SavingAccount {
     public Boolean getIsActive() { return isActive; }
     public void setIsActive(Boolean isActive) { this.isActive = isActive; }
 
+    public LocalDateTime getLastTransactionAt() { return lastTransactionAt; }
+    public void setLastTransactionAt(LocalDateTime lastTransactionAt) { this.lastTransactionAt = lastTransactionAt; }
+
+    public LocalDate getDormantSince() { return dormantSince; }
+    public void setDormantSince(LocalDate dormantSince) { this.dormantSince = dormantSince; }
+
+    /** Records a customer posting: refreshes last activity and clears any dormancy flag. */
+    public void recordActivity(LocalDateTime at) {
+        this.lastTransactionAt = at;
+        this.dormantSince = null;
+    }
+
     public Member getMember() { return member; }
     public void setMember(Member member) { this.member = member; }
 
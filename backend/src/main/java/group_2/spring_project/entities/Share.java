@@ -3,18 +3,30 @@ package org.wldu.webservices.entities;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.wldu.webservices.money.Money;
+import org.wldu.webservices.money.MoneyAmount;
+import org.wldu.webservices.services.EntityCacheListener;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "shares")
+@Table(name = "shares", indexes = {
+        @Index(name = "idx_share_member", columnList = "member_id")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "shares")
+@EntityListeners(EntityCacheListener.class)
 public class Share {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    public static final long SHARE_VALUE = Money.etb(150);
+
     @Column(name = "share_value", nullable = false)
-    private Double shareValue = 150.0;
+    @MoneyAmount
+    private long shareValue = SHARE_VALUE;
 
     @Column(name = "purchase_date", nullable = false)
     private LocalDate purchaseDate;
@@ -42,8 +54,8 @@ public class Share {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
-    public Double getShareValue() { return shareValue; }
-    public void setShareValue(Double shareValue) { this.shareValue = shareValue; }
+    public long getShareValue() { return shareValue; }
+    public void setShareValue(long shareValue) { this.shareValue = shareValue; }
 
     public LocalDate getPurchaseDate() { return purchaseDate; }
     public void setPurchaseDate(LocalDate purchaseDate) { this.purchaseDate = purchaseDate; }
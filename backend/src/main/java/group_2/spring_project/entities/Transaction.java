@@ -7,13 +7,18 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Generated;
+import org.wldu.webservices.money.MoneyAmount;
 import java.time.LocalDateTime;
 
+// Range-partitioned by transaction_date month (see V2__partition_transactions.sql);
+// the physical primary key is (id, transaction_date).
 @Entity
 @Table(name = "transactions", indexes = {
-        @Index(name = "idx_transaction_account", columnList = "account_id"),
+        @Index(name = "idx_transaction_account_date", columnList = "account_id, transaction_date DESC, id"),
         @Index(name = "idx_transaction_date", columnList = "transaction_date"),
-        @Index(name = "idx_transaction_reference", columnList = "reference_number")
+        @Index(name = "idx_transaction_reference", columnList = "reference_number"),
+        @Index(name = "idx_transaction_account_sequence", columnList = "account_id, sequence_number")
 })
 public class Transaction {
 
@@ -21,10 +26,10 @@ public class Transaction {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @NotNull
-    @Min(value = 1, message = "Amount must be at least 1 ETB")
+    @Min(value = 100, message = "Amount must be at least 1 ETB")
     @Column(nullable = false)
-    private Double amount;
+    @MoneyAmount
+    private long amount;
 
     @NotNull
     @Enumerated(EnumType.STRING)
@@ -39,9 +44,16 @@ public class Transaction {
     @Column(name = "transaction_date", nullable = false)
     private LocalDateTime transactionDate;
 
-    @Column(name = "reference_number", unique = true, length = 50)
+    // Unique through the transaction_references side table (V6): a unique index on the
+    // partitioned table would have to include transaction_date.
+    @Column(name = "reference_number", length = 50)
     private String referenceNumber;
 
+    // Per-account ledger position, assigned by the ledger_append trigger.
+    @Generated
+    @Column(name = "sequence_number", insertable = false, updatable = false)
+    private Long sequenceNumber;
+
     // Relationship with SavingAccount
     @NotNull
     @ManyToOne(fetch = FetchType.LAZY)
@@ -55,7 +67,11 @@ public class Transaction {
         WITHDRAWAL,
         INTEREST,
         PENALTY,
-        FEE
+        FEE;
+
+        public boolean isCredit() {
+            return this == DEPOSIT || this == INTEREST;
+        }
     }
 
 
@@ -63,7 +79,7 @@ public class Transaction {
         this.transactionDate = LocalDateTime.now();
     }
 
-    public Transaction(Double amount, TransactionType transactionType, String description) {
+    public Transaction(long amount, TransactionType transactionType, String description) {
         this();
         this.amount = amount;
         this.transactionType = transactionType;
@@ -74,8 +90,8 @@ public class Transaction {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
-    public Double getAmount() { return amount; }
-    public void setAmount(Double amount) { this.amount = amount; }
+    public long getAmount() { return amount; }
+    public void setAmount(long amount) { this.amount = amount; }
 
     public TransactionType getTransactionType() { return transactionType; }
     public void setTransactionType(TransactionType transactionType) { this.transactionType = transactionType; }
@@ -89,6 +105,8 @@ public class Transaction {
     public String getReferenceNumber() { return referenceNumber; }
     public void setReferenceNumber(String referenceNumber) { this.referenceNumber = referenceNumber; }
 
+    public Long getSequenceNumber() { return sequenceNumber; }
+
     public SavingAccount getAccount() { return account; }
     public void setAccount(SavingAccount account) { this.account = account; }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package org.wldu.webservices.metrics;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Counts entities hydrated by Hibernate (from JDBC rows or the second-level cache).
+ * Registered through hibernate.integrator_provider in MetricsConfig.
+ */
+public class EntityLoadIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, (PostLoadEventListener) EntityLoadIntegrator::onPostLoad);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    private static void onPostLoad(PostLoadEvent event) {
+        RequestCounters.entityLoaded();
+    }
+}
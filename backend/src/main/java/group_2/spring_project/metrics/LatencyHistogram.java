@@ -0,0 +1,30 @@
+package org.wldu.webservices.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Lock-free recording into an HDR interval recorder, folded into a cumulative histogram
+ * when read (so exported counts only ever grow, as Prometheus expects).
+ */
+public class LatencyHistogram {
+
+    private final long highestTrackable;
+    private final Recorder recorder;
+    private final Histogram cumulative;
+
+    public LatencyHistogram(long highestTrackable, int significantDigits) {
+        this.highestTrackable = highestTrackable;
+        this.recorder = new Recorder(highestTrackable, significantDigits);
+        this.cumulative = new Histogram(highestTrackable, significantDigits);
+    }
+
+    public void record(long value) {
+        recorder.recordValue(Math.max(0, Math.min(highestTrackable, value)));
+    }
+
+    public synchronized Histogram snapshot() {
+        cumulative.add(recorder.getIntervalHistogram());
+        return cumulative.copy();
+    }
+}
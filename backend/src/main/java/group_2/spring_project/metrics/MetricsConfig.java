@@ -0,0 +1,29 @@
+package org.wldu.webservices.metrics;
+
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlBudgetInterceptor(metricsRegistry));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityLoadMetrics() {
+        return properties -> properties.put("hibernate.integrator_provider",
+                (IntegratorProvider) () -> List.of(new EntityLoadIntegrator()));
+    }
+}
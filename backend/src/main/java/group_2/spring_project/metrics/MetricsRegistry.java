@@ -0,0 +1,212 @@
+package org.wldu.webservices.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.wldu.webservices.config.PoolMetricsTracker;
+
+import java.time.LocalDateTime;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency and SQL-work histograms per controller endpoint and per service method, plus
+ * connection pool metrics, exported as JSON and in the Prometheus text format.
+ */
+@Component
+public class MetricsRegistry {
+
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final long MAX_COUNT = 10_000_000;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final int MAX_VIOLATIONS = 100;
+    private static final String[] QUANTILE_KEYS = {"p50", "p90", "p99", "p999"};
+
+    @Autowired
+    private PoolMetricsTracker poolMetrics;
+
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> methods = new ConcurrentHashMap<>();
+    private final Deque<Map<String, Object>> budgetViolations = new ConcurrentLinkedDeque<>();
+    private final AtomicLong budgetViolationCount = new AtomicLong();
+
+    // ========== RECORDING ==========
+
+    public void recordRequest(String endpoint, long elapsedNanos, RequestCounters counters, int status) {
+        EndpointMetrics metrics = endpoints.computeIfAbsent(endpoint, e -> new EndpointMetrics());
+        metrics.latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+        metrics.statements.record(counters.getStatements());
+        metrics.rows.record(counters.getRows());
+        metrics.entities.record(counters.getEntities());
+        if (status >= 500) {
+            metrics.errors.incrementAndGet();
+        }
+    }
+
+    public void recordMethod(String method, long elapsedNanos) {
+        methods.computeIfAbsent(method, m -> new LatencyHistogram(MAX_MICROS, 3))
+                .record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+    }
+
+    public void recordBudgetViolation(String endpoint, int budget, int statements,
+                                      List<RequestCounters.RepeatedQuery> repeated) {
+        Map<String, Object> violation = new LinkedHashMap<>();
+        violation.put("endpoint", endpoint);
+        violation.put("budget", budget);
+        violation.put("statements", statements);
+        violation.put("repeatedQueries", repeated);
+        violation.put("at", LocalDateTime.now());
+        budgetViolations.addFirst(violation);
+        budgetViolationCount.incrementAndGet();
+        while (budgetViolations.size() > MAX_VIOLATIONS) {
+            budgetViolations.pollLast();
+        }
+    }
+
+    /** Most recent @SqlBudget violations first. */
+    public Map<String, Object> getBudgetViolations() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("total", budgetViolationCount.get());
+        result.put("recent", List.copyOf(budgetViolations));
+        return result;
+    }
+
+    // ========== JSON ==========
+
+    public Map<String, Object> toJson() {
+        Map<String, Object> endpointJson = new TreeMap<>();
+        endpoints.forEach((name, metrics) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("latencyMicros", summary(metrics.latencyMicros.snapshot()));
+            entry.put("sqlStatements", summary(metrics.statements.snapshot()));
+            entry.put("rowsFetched", summary(metrics.rows.snapshot()));
+            entry.put("entitiesLoaded", summary(metrics.entities.snapshot()));
+            entry.put("serverErrors", metrics.errors.get());
+            endpointJson.put(name, entry);
+        });
+        Map<String, Object> methodJson = new TreeMap<>();
+        methods.forEach((name, histogram) -> methodJson.put(name, summary(histogram.snapshot())));
+
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("sqlStatements", RequestCounters.TOTAL_STATEMENTS.get());
+        totals.put("rowsFetched", RequestCounters.TOTAL_ROWS.get());
+        totals.put("entitiesLoaded", RequestCounters.TOTAL_ENTITIES.get());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("endpoints", endpointJson);
+        result.put("serviceMethods", methodJson);
+        result.put("totals", totals);
+        result.put("pools", poolMetrics.snapshot());
+        return result;
+    }
+
+    private static Map<String, Object> summary(Histogram histogram) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", histogram.getTotalCount());
+        result.put("mean", histogram.getTotalCount() > 0 ? histogram.getMean() : 0);
+        for (int i = 0; i < QUANTILES.length; i++) {
+            result.put(QUANTILE_KEYS[i], histogram.getValueAtPercentile(QUANTILES[i] * 100));
+        }
+        result.put("max", histogram.getMaxValue());
+        return result;
+    }
+
+    // ========== PROMETHEUS ==========
+
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+
+        type(out, "savings_http_request_duration_seconds", "summary");
+        endpoints.forEach((name, m) -> summary(out, "savings_http_request_duration_seconds",
+                "endpoint", name, m.latencyMicros.snapshot(), 1e-6));
+        type(out, "savings_http_request_sql_statements", "summary");
+        endpoints.forEach((name, m) -> summary(out, "savings_http_request_sql_statements",
+                "endpoint", name, m.statements.snapshot(), 1));
+        type(out, "savings_http_request_rows_fetched", "summary");
+        endpoints.forEach((name, m) -> summary(out, "savings_http_request_rows_fetched",
+                "endpoint", name, m.rows.snapshot(), 1));
+        type(out, "savings_http_request_entities_loaded", "summary");
+        endpoints.forEach((name, m) -> summary(out, "savings_http_request_entities_loaded",
+                "endpoint", name, m.entities.snapshot(), 1));
+        type(out, "savings_http_server_errors_total", "counter");
+        endpoints.forEach((name, m) -> sample(out, "savings_http_server_errors_total",
+                "endpoint=\"" + escape(name) + "\"", m.errors.get()));
+
+        type(out, "savings_service_method_duration_seconds", "summary");
+        methods.forEach((name, h) -> summary(out, "savings_service_method_duration_seconds",
+                "method", name, h.snapshot(), 1e-6));
+
+        type(out, "savings_sql_budget_violations_total", "counter");
+        sample(out, "savings_sql_budget_violations_total", null, budgetViolationCount.get());
+
+        type(out, "savings_sql_statements_total", "counter");
+        sample(out, "savings_sql_statements_total", null, RequestCounters.TOTAL_STATEMENTS.get());
+        type(out, "savings_sql_rows_fetched_total", "counter");
+        sample(out, "savings_sql_rows_fetched_total", null, RequestCounters.TOTAL_ROWS.get());
+        type(out, "savings_entities_loaded_total", "counter");
+        sample(out, "savings_entities_loaded_total", null, RequestCounters.TOTAL_ENTITIES.get());
+
+        Map<String, Map<String, Object>> pools = poolMetrics.snapshot();
+        for (String gauge : new String[]{"active", "idle", "pending", "max"}) {
+            type(out, "savings_pool_connections_" + gauge, "gauge");
+            pools.forEach((pool, stats) -> sample(out, "savings_pool_connections_" + gauge,
+                    "pool=\"" + escape(pool) + "\"", ((Number) stats.get(gauge)).doubleValue()));
+        }
+        type(out, "savings_pool_timeouts_total", "counter");
+        pools.forEach((pool, stats) -> sample(out, "savings_pool_timeouts_total",
+                "pool=\"" + escape(pool) + "\"", ((Number) stats.get("timeouts")).doubleValue()));
+        type(out, "savings_pool_acquire_seconds", "summary");
+        pools.forEach((pool, stats) -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> acquire = (Map<String, Object>) stats.get("acquireMicros");
+            String labels = "pool=\"" + escape(pool) + "\"";
+            sample(out, "savings_pool_acquire_seconds", labels + ",quantile=\"0.5\"",
+                    ((Number) acquire.get("p50")).doubleValue() * 1e-6);
+            sample(out, "savings_pool_acquire_seconds", labels + ",quantile=\"0.99\"",
+                    ((Number) acquire.get("p99")).doubleValue() * 1e-6);
+            sample(out, "savings_pool_acquire_seconds_count", labels, ((Number) acquire.get("count")).doubleValue());
+        });
+        return out.toString();
+    }
+
+    private static void summary(StringBuilder out, String metric, String label, String value,
+                                Histogram histogram, double scale) {
+        String labels = label + "=\"" + escape(value) + "\"";
+        for (double q : QUANTILES) {
+            sample(out, metric, labels + ",quantile=\"" + q + "\"", histogram.getValueAtPercentile(q * 100) * scale);
+        }
+        sample(out, metric + "_count", labels, histogram.getTotalCount());
+        sample(out, metric + "_sum", labels, histogram.getMean() * histogram.getTotalCount() * scale);
+    }
+
+    private static void type(StringBuilder out, String metric, String type) {
+        out.append("# TYPE ").append(metric).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String metric, String labels, double value) {
+        out.append(metric);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class EndpointMetrics {
+        private final LatencyHistogram latencyMicros = new LatencyHistogram(MAX_MICROS, 3);
+        private final LatencyHistogram statements = new LatencyHistogram(MAX_COUNT, 2);
+        private final LatencyHistogram rows = new LatencyHistogram(MAX_COUNT, 2);
+        private final LatencyHistogram entities = new LatencyHistogram(MAX_COUNT, 2);
+        private final AtomicLong errors = new AtomicLong();
+    }
+}
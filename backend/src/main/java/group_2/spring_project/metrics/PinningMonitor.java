@@ -0,0 +1,153 @@
+package org.wldu.webservices.metrics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier, typically inside a
+ * synchronized block or method on the JDBC path. A pinned virtual thread holds a carrier
+ * (there are only as many as cores) for the whole blocking call, so a few of them can
+ * stall every request.
+ *
+ * Listens to the JFR jdk.VirtualThreadPinned event in-process and groups occurrences by
+ * the first application frame (or first non-JDK frame) of the stack. The full stack of
+ * each new site is logged once.
+ */
+@Component
+public class PinningMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PinningMonitor.class);
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 15;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${savings.threads.pinning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${savings.threads.pinning.threshold-millis:20}")
+    private long thresholdMillis;
+
+    private final LongAdder events = new LongAdder();
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+    private volatile RecordingStream stream;
+
+    private static final class Site {
+        final LongAdder count = new LongAdder();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled || !virtualThreads) {
+            return;
+        }
+        try {
+            RecordingStream recording = new RecordingStream();
+            recording.enable(EVENT).withThreshold(Duration.ofMillis(thresholdMillis)).withStackTrace();
+            recording.onEvent(EVENT, this::onPinned);
+            recording.startAsync();
+            stream = recording;
+            logger.info("Watching for virtual threads pinned longer than {} ms", thresholdMillis);
+        } catch (RuntimeException e) {
+            logger.warn("Virtual thread pinning detection unavailable: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        events.increment();
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        String site = site(frames);
+        long nanos = event.getDuration().toNanos();
+
+        boolean first = !sites.containsKey(site);
+        Site stats = sites.computeIfAbsent(site, s -> new Site());
+        stats.count.increment();
+        stats.totalNanos.addAndGet(nanos);
+        stats.maxNanos.accumulateAndGet(nanos, Math::max);
+
+        if (first) {
+            StringBuilder stack = new StringBuilder();
+            for (int i = 0; i < Math.min(LOGGED_FRAMES, frames.size()); i++) {
+                stack.append("\n    at ").append(frame(frames.get(i)));
+            }
+            logger.warn("Virtual thread pinned for {} ms at {}{}", nanos / 1_000_000, site, stack);
+        }
+    }
+
+    private static String site(List<RecordedFrame> frames) {
+        String firstExternal = null;
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith("org.wldu.")) {
+                return frame(frame);
+            }
+            if (firstExternal == null && !type.startsWith("java.") && !type.startsWith("jdk.")
+                    && !type.startsWith("sun.")) {
+                firstExternal = frame(frame);
+            }
+        }
+        if (firstExternal != null) {
+            return firstExternal;
+        }
+        return frames.isEmpty() ? "unknown" : frame(frames.get(0));
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("virtualThreads", virtualThreads);
+        status.put("monitoring", stream != null);
+        status.put("thresholdMillis", thresholdMillis);
+        status.put("pinnedEvents", events.sum());
+        List<Map<String, Object>> top = new ArrayList<>();
+        sites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Site> e) -> e.getValue().count.sum()).reversed())
+                .limit(20)
+                .forEach(e -> {
+                    Site site = e.getValue();
+                    long count = site.count.sum();
+                    Map<String, Object> entry = new HashMap<>();
+                    entry.put("site", e.getKey());
+                    entry.put("count", count);
+                    entry.put("avgMillis", count == 0 ? 0.0 : site.totalNanos.get() / 1e6 / count);
+                    entry.put("maxMillis", site.maxNanos.get() / 1e6);
+                    top.add(entry);
+                });
+        status.put("sites", top);
+        return status;
+    }
+}
@@ -0,0 +1,147 @@
+package org.wldu.webservices.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-request SQL work, collected on the request thread by the JDBC proxy and the
+ * Hibernate post-load listener, plus process-wide totals of the same counters.
+ * Work done on other threads (job workers, the posting journal) only counts in the totals.
+ */
+public final class RequestCounters {
+
+    private static final ThreadLocal<RequestCounters> CURRENT = new ThreadLocal<>();
+
+    static final AtomicLong TOTAL_STATEMENTS = new AtomicLong();
+    static final AtomicLong TOTAL_ROWS = new AtomicLong();
+    static final AtomicLong TOTAL_ENTITIES = new AtomicLong();
+
+    private int statements;
+    private long rows;
+    private int entities;
+
+    // Set by SqlBudgetInterceptor for handlers annotated with @SqlBudget.
+    private SqlBudget budget;
+    private int budgetBaseline;
+    private final Map<String, QueryOccurrence> queries = new HashMap<>();
+
+    private RequestCounters() {
+    }
+
+    public static RequestCounters begin() {
+        RequestCounters counters = new RequestCounters();
+        CURRENT.set(counters);
+        return counters;
+    }
+
+    public static RequestCounters current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    static void statementsExecuted(int count) {
+        TOTAL_STATEMENTS.addAndGet(count);
+        RequestCounters counters = CURRENT.get();
+        if (counters != null) {
+            counters.statements += count;
+        }
+    }
+
+    /** Remembers the SQL text; from its second execution on, also where it was issued from. */
+    static void queryExecuted(String sql) {
+        RequestCounters counters = CURRENT.get();
+        if (counters == null || counters.budget == null) {
+            return;
+        }
+        QueryOccurrence occurrence = counters.queries.computeIfAbsent(sql, q -> new QueryOccurrence());
+        occurrence.count++;
+        if (occurrence.count == 2) {
+            occurrence.callSite = callSite();
+        }
+    }
+
+    /** True if executing {@code count} more statements would exceed the handler's budget. */
+    static boolean wouldExceedBudget(int count) {
+        RequestCounters counters = CURRENT.get();
+        return counters != null && counters.budget != null
+                && counters.statements - counters.budgetBaseline + count > counters.budget.value();
+    }
+
+    static String describeBudget() {
+        RequestCounters counters = CURRENT.get();
+        return counters != null && counters.budget != null
+                ? "SQL budget of " + counters.budget.value() + " statements exceeded" : "";
+    }
+
+    void startBudget(SqlBudget budget) {
+        this.budget = budget;
+        this.budgetBaseline = statements;
+        this.queries.clear();
+    }
+
+    SqlBudget getBudget() { return budget; }
+
+    int getBudgetedStatements() { return statements - budgetBaseline; }
+
+    /** Queries run more often than the budget allows, most frequent first. */
+    List<RepeatedQuery> repeatedQueries() {
+        List<RepeatedQuery> repeated = new ArrayList<>();
+        if (budget == null) {
+            return repeated;
+        }
+        queries.forEach((sql, occurrence) -> {
+            if (occurrence.count > budget.maxRepeats()) {
+                repeated.add(new RepeatedQuery(sql, occurrence.count, occurrence.callSite));
+            }
+        });
+        repeated.sort((a, b) -> Integer.compare(b.count(), a.count()));
+        return repeated;
+    }
+
+    // First application frame outside the metrics package (repositories are proxies, so
+    // this is normally the service or controller line that issued the query).
+    private static String callSite() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith("org.wldu.webservices.")
+                        && !f.getClassName().startsWith("org.wldu.webservices.metrics.")
+                        && !f.getClassName().contains("$$"))
+                .findFirst()
+                .map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1)
+                        + "." + f.getMethodName() + ":" + f.getLineNumber())
+                .orElse("unknown"));
+    }
+
+    static void rowFetched() {
+        TOTAL_ROWS.incrementAndGet();
+        RequestCounters counters = CURRENT.get();
+        if (counters != null) {
+            counters.rows++;
+        }
+    }
+
+    static void entityLoaded() {
+        TOTAL_ENTITIES.incrementAndGet();
+        RequestCounters counters = CURRENT.get();
+        if (counters != null) {
+            counters.entities++;
+        }
+    }
+
+    public int getStatements() { return statements; }
+    public long getRows() { return rows; }
+    public int getEntities() { return entities; }
+
+    private static final class QueryOccurrence {
+        private int count;
+        private String callSite;
+    }
+
+    public record RepeatedQuery(String sql, int count, String callSite) {
+    }
+}
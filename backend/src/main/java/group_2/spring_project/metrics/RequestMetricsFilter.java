@@ -0,0 +1,44 @@
+package org.wldu.webservices.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Times every request and collects its SQL work, keyed by the matched handler pattern
+ * (e.g. "GET /api/accounts/{id}") so path variables do not explode the key space.
+ * Runs right after WorkloadFilter, so authentication lookups count towards the request.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final MetricsRegistry registry;
+
+    public RequestMetricsFilter(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestCounters counters = RequestCounters.begin();
+        long started = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestCounters.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String endpoint = request.getMethod() + " " + (pattern != null ? pattern : "unmatched");
+            registry.recordRequest(endpoint, System.nanoTime() - started, counters, response.getStatus());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.wldu.webservices.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the latency of every public service method called through its Spring proxy
+ * (calls within the same service are not intercepted).
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    private final MetricsRegistry registry;
+
+    public ServiceMetricsAspect(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("within(org.wldu.webservices.services..*) && execution(public * *(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long started = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            registry.recordMethod(joinPoint.getSignature().getDeclaringType().getSimpleName() + "."
+                    + joinPoint.getSignature().getName(), System.nanoTime() - started);
+        }
+    }
+}
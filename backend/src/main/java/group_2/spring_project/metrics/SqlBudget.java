@@ -0,0 +1,28 @@
+package org.wldu.webservices.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how many SQL statements a controller method may execute per request.
+ *
+ * Requests over budget, or running the same SQL text more than {@link #maxRepeats()}
+ * times (the N+1 shape), are logged with the repeated queries and the code line that
+ * issued them, and listed under GET /api/admin/metrics/sql-budget. With
+ * savings.metrics.sql-budget.enforce=true (for test and dev profiles) the statement
+ * that would exceed the budget fails instead.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+    /** Maximum statements executed by the handler, batch entries counted individually. */
+    int value();
+
+    /** How often one identical SQL text may run before it counts as repeated. */
+    int maxRepeats() default 1;
+}
@@ -0,0 +1,8 @@
+package org.wldu.webservices.metrics;
+
+public class SqlBudgetExceededException extends IllegalStateException {
+
+    public SqlBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,58 @@
+package org.wldu.webservices.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.List;
+
+/**
+ * Applies @SqlBudget declarations: starts counting when the handler is entered (so the
+ * authentication lookup does not count) and reports violations when the request ends.
+ */
+public class SqlBudgetInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlBudgetInterceptor.class);
+
+    private final MetricsRegistry registry;
+
+    public SqlBudgetInterceptor(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestCounters counters = RequestCounters.current();
+        if (counters != null && handler instanceof HandlerMethod method) {
+            SqlBudget budget = method.getMethodAnnotation(SqlBudget.class);
+            if (budget != null) {
+                counters.startBudget(budget);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestCounters counters = RequestCounters.current();
+        if (counters == null || counters.getBudget() == null || !(handler instanceof HandlerMethod method)) {
+            return;
+        }
+        int statements = counters.getBudgetedStatements();
+        int budget = counters.getBudget().value();
+        List<RequestCounters.RepeatedQuery> repeated = counters.repeatedQueries();
+        if (statements <= budget && repeated.isEmpty()) {
+            return;
+        }
+        String endpoint = method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        logger.warn("SQL budget check failed for {}: {} statements (budget {}), {} repeated queries",
+                endpoint, statements, budget, repeated.size());
+        for (RequestCounters.RepeatedQuery query : repeated) {
+            logger.warn("  {}x from {}: {}", query.count(), query.callSite(), query.sql());
+        }
+        registry.recordBudgetViolation(endpoint, budget, statements, repeated);
+    }
+}
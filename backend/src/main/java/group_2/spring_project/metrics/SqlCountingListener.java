@@ -0,0 +1,58 @@
+package org.wldu.webservices.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * datasource-proxy listener counting executed statements (each batch entry counts) and,
+ * with result set proxying on, rows read through ResultSet.next().
+ *
+ * Inside a handler with an @SqlBudget it also records each query's text for repeat
+ * detection, and with enforcement on it refuses the statement that would exceed the budget.
+ */
+public class SqlCountingListener implements QueryExecutionListener, MethodExecutionListener {
+
+    private final boolean enforceBudgets;
+
+    public SqlCountingListener(boolean enforceBudgets) {
+        this.enforceBudgets = enforceBudgets;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (enforceBudgets && RequestCounters.wouldExceedBudget(statementCount(execInfo))) {
+            throw new SqlBudgetExceededException(RequestCounters.describeBudget() + " by: " + queryInfoList.get(0).getQuery());
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestCounters.statementsExecuted(statementCount(execInfo));
+        for (QueryInfo query : queryInfoList) {
+            RequestCounters.queryExecuted(query.getQuery());
+        }
+    }
+
+    private static int statementCount(ExecutionInfo execInfo) {
+        return execInfo.isBatch() ? Math.max(1, execInfo.getBatchSize()) : 1;
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof ResultSet
+                && "next".equals(executionContext.getMethod().getName())
+                && Boolean.TRUE.equals(executionContext.getResult())) {
+            RequestCounters.rowFetched();
+        }
+    }
+}
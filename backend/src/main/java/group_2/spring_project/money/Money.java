@@ -0,0 +1,84 @@
+package org.wldu.webservices.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Helpers for amounts held as {@code long} minor units (santim, 1/100 ETB).
+ *
+ * Entities, service signatures and aggregate queries carry plain longs, so posting
+ * arithmetic never boxes and sums are exact. Conversion to {@link BigDecimal} only
+ * happens at the API boundary (request parameters and JSON).
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+    public static final long MINOR_PER_MAJOR = 100;
+
+    /** Interest rates are carried in basis points (1/100 %) over a 365-day year. */
+    public static final long BASIS_POINTS = 10_000;
+    public static final long DAYS_PER_YEAR = 365;
+
+    private Money() {
+    }
+
+    /** Whole birr to minor units, e.g. {@code etb(150) == 15000}. */
+    public static long etb(long major) {
+        return Math.multiplyExact(major, MINOR_PER_MAJOR);
+    }
+
+    /** Exact conversion from a decimal ETB amount; more than two decimal places is rejected. */
+    public static long fromDecimal(BigDecimal amount) {
+        try {
+            return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid amount: " + amount.toPlainString());
+        }
+    }
+
+    public static Long fromDecimalOrNull(BigDecimal amount) {
+        return amount != null ? fromDecimal(amount) : null;
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static BigDecimal toDecimalOrNull(Long minor) {
+        return minor != null ? toDecimal(minor) : null;
+    }
+
+    public static String format(long minor) {
+        return toDecimal(minor).toPlainString();
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public static long multiply(long minor, long factor) {
+        return Math.multiplyExact(minor, factor);
+    }
+
+    /**
+     * Simple interest for {@code days} at an annual rate in basis points, as the exact
+     * product balance × rate × days. Sum the products over a period and convert the sum
+     * once with {@link #interest}, so no rounding happens per day.
+     */
+    public static long accrue(long balance, long annualRateBasisPoints, long days) {
+        if (balance <= 0 || days <= 0) {
+            return 0L;
+        }
+        return Math.multiplyExact(Math.multiplyExact(balance, annualRateBasisPoints), days);
+    }
+
+    /** Whole santim for a sum of {@link #accrue} products, rounded half-up. */
+    public static long interest(long accrued) {
+        long divisor = BASIS_POINTS * DAYS_PER_YEAR;
+        return Math.floorDiv(Math.addExact(accrued, divisor / 2), divisor);
+    }
+}
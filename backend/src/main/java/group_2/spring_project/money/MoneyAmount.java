@@ -0,0 +1,22 @@
+package org.wldu.webservices.money;
+
+import com.fasterxml.jackson.annotation.JacksonAnnotationsInside;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code long}/{@code Long} minor-unit field that is exchanged as a decimal ETB
+ * amount in JSON, e.g. {@code 15000} is written and read as {@code 150.00}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER})
+@JacksonAnnotationsInside
+@JsonSerialize(using = MoneyJsonSerializer.class)
+@JsonDeserialize(using = MoneyJsonDeserializer.class)
+public @interface MoneyAmount {
+}
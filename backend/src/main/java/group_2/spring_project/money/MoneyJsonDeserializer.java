@@ -0,0 +1,24 @@
+package org.wldu.webservices.money;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+public class MoneyJsonDeserializer extends JsonDeserializer<Long> {
+
+    @Override
+    public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        BigDecimal amount = p.currentToken() == JsonToken.VALUE_STRING
+                ? new BigDecimal(p.getText().trim())
+                : p.getDecimalValue();
+        try {
+            return Money.fromDecimal(amount);
+        } catch (IllegalArgumentException e) {
+            return (Long) ctxt.handleWeirdNumberValue(Long.class, amount, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.wldu.webservices.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.wldu.webservices.entities.InterestRunCheckpoint;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InterestRunCheckpointRepository extends JpaRepository<InterestRunCheckpoint, Long> {
+
+    List<InterestRunCheckpoint> findByRunKeyOrderByRangeStart(String runKey);
+
+    Optional<InterestRunCheckpoint> findByRunKeyAndRangeStart(String runKey, Long rangeStart);
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.wldu.webservices.dto.MemberListItem;
 import org.wldu.webservices.entities.Member;
 
 import java.util.List;
@@ -20,24 +21,15 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     Optional<Member> findByEmployeeId(String employeeId);
     @Query("SELECT DISTINCT m FROM Member m LEFT JOIN FETCH m.shares WHERE m.workDomain = :workDomain")
     List<Member> findByWorkDomainWithShares(@Param("workDomain") Member.WorkDomain workDomain);
-    
-    @Query("SELECT DISTINCT m FROM Member m LEFT JOIN FETCH m.shares WHERE m.workDomain = :workDomain")
-    Page<Member> findByWorkDomainWithShares(@Param("workDomain") Member.WorkDomain workDomain, Pageable pageable);
 
     List<Member> findByWorkDomain(Member.WorkDomain workDomain);
     Page<Member> findByWorkDomain(Member.WorkDomain workDomain, Pageable pageable);
-    @Query("SELECT DISTINCT m FROM Member m LEFT JOIN FETCH m.shares WHERE m.isActive = :isActive")
-    Page<Member> findByIsActiveWithShares(@Param("isActive") Boolean isActive, Pageable pageable);
-
     @Query("SELECT DISTINCT m FROM Member m LEFT JOIN FETCH m.shares WHERE m.isActive = :isActive")
     List<Member> findByIsActiveWithShares(@Param("isActive") Boolean isActive);
 
     @Query("SELECT DISTINCT m FROM Member m LEFT JOIN FETCH m.shares")
     List<Member> findAllWithShares();
 
-    @Query("SELECT DISTINCT m FROM Member m LEFT JOIN FETCH m.shares")
-    Page<Member> findAllWithShares(Pageable pageable);
-
     List<Member> findByIsActive(Boolean isActive);
     Page<Member> findByIsActive(Boolean isActive, Pageable pageable);
     boolean existsByEmployeeId(String employeeId);
@@ -56,12 +48,6 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
             "LOWER(m.employeeId) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     List<Member> searchWithShares(@Param("keyword") String keyword);
 
-    @Query("SELECT DISTINCT m FROM Member m LEFT JOIN FETCH m.shares WHERE " +
-            "LOWER(m.firstName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(m.lastName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(m.employeeId) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    Page<Member> searchWithShares(@Param("keyword") String keyword, Pageable pageable);
-
     @Query("SELECT m FROM Member m WHERE " +
             "LOWER(m.firstName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
             "LOWER(m.lastName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
@@ -87,4 +73,30 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
             "WHERE m.id = :id")
     Optional<Member> findByIdWithRelations(@Param("id") Long id);
 
+    // ========== LIST PROJECTIONS ==========
+    // Unmanaged DTOs built from the list columns only; shares are counted, not loaded.
+
+    String LIST_ITEM = "SELECT new org.wldu.webservices.dto.MemberListItem(m.id, m.firstName, m.lastName, " +
+            "m.employeeId, m.workDomain, m.email, m.phoneNumber, m.registrationDate, m.registrationFee, " +
+            "m.isActive, m.deactivationDate, m.deactivationReason, " +
+            "(SELECT COUNT(s) FROM Share s WHERE s.member = m)) FROM Member m ";
+
+    String SEARCH_CONDITION = "WHERE LOWER(m.firstName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+            "LOWER(m.lastName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+            "LOWER(m.employeeId) LIKE LOWER(CONCAT('%', :keyword, '%'))";
+
+    @Query(value = LIST_ITEM, countQuery = "SELECT COUNT(m) FROM Member m")
+    Page<MemberListItem> findListItems(Pageable pageable);
+
+    @Query(value = LIST_ITEM + "WHERE m.isActive = :isActive",
+            countQuery = "SELECT COUNT(m) FROM Member m WHERE m.isActive = :isActive")
+    Page<MemberListItem> findListItemsByIsActive(@Param("isActive") Boolean isActive, Pageable pageable);
+
+    @Query(value = LIST_ITEM + "WHERE m.workDomain = :workDomain",
+            countQuery = "SELECT COUNT(m) FROM Member m WHERE m.workDomain = :workDomain")
+    Page<MemberListItem> findListItemsByWorkDomain(@Param("workDomain") Member.WorkDomain workDomain, Pageable pageable);
+
+    @Query(value = LIST_ITEM + SEARCH_CONDITION, countQuery = "SELECT COUNT(m) FROM Member m " + SEARCH_CONDITION)
+    Page<MemberListItem> searchListItems(@Param("keyword") String keyword, Pageable pageable);
+
 }
\ No newline at end of file
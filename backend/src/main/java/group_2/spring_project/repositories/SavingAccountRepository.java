@@ -1,13 +1,16 @@
 package org.wldu.webservices.repositories;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.wldu.webservices.dto.AccountListItem;
 import org.wldu.webservices.entities.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -22,13 +25,30 @@ public interface SavingAccountRepository extends JpaRepository<SavingAccount, Lo
     boolean existsByAccountNumber(String accountNumber);
     List<SavingAccount> findByIsActive(Boolean isActive);
 
+    @Query("SELECT sa.id FROM SavingAccount sa WHERE sa.member.id = :memberId")
+    List<Long> findIdsByMemberId(@Param("memberId") Long memberId);
+
     // ========== PAGINATION QUERIES ==========
-    @Query("SELECT sa FROM SavingAccount sa WHERE " +
-            "LOWER(sa.accountNumber) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(sa.member.firstName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(sa.member.lastName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(sa.member.employeeId) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    Page<SavingAccount> searchAccounts(@Param("keyword") String keyword, Pageable pageable);
+    // List rows as unmanaged DTOs; the subtype columns come from primary-key joins on the
+    // subclass entities, which carry the discriminator restriction.
+    String LIST_ITEM = "SELECT new org.wldu.webservices.dto.AccountListItem(sa.id, sa.accountNumber, sa.accountType, " +
+            "sa.currentBalance, sa.openingDate, sa.isActive, sa.dormantSince, fa.monthlyAmount, ia.targetAmount, " +
+            "m.id, CONCAT(m.firstName, ' ', m.lastName)) " +
+            "FROM SavingAccount sa JOIN sa.member m " +
+            "LEFT JOIN FormalSavingAccount fa ON fa.id = sa.id " +
+            "LEFT JOIN InformalSavingAccount ia ON ia.id = sa.id ";
+
+    String SEARCH_CONDITION = "WHERE LOWER(sa.accountNumber) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+            "LOWER(m.firstName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+            "LOWER(m.lastName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+            "LOWER(m.employeeId) LIKE LOWER(CONCAT('%', :keyword, '%'))";
+
+    @Query(value = LIST_ITEM, countQuery = "SELECT COUNT(sa) FROM SavingAccount sa")
+    Page<AccountListItem> findListItems(Pageable pageable);
+
+    @Query(value = LIST_ITEM + SEARCH_CONDITION,
+            countQuery = "SELECT COUNT(sa) FROM SavingAccount sa JOIN sa.member m " + SEARCH_CONDITION)
+    Page<AccountListItem> searchListItems(@Param("keyword") String keyword, Pageable pageable);
 
     // ✅ FIXED COUNT QUERIES - THIS IS THE ONLY CHANGE NEEDED
     @Query("SELECT COUNT(sa) FROM SavingAccount sa " +
@@ -53,13 +73,30 @@ public interface SavingAccountRepository extends JpaRepository<SavingAccount, Lo
     List<InformalSavingAccount> findInformalAccountsByMemberId(@Param("memberId") Long memberId);
 
     @Query("SELECT COALESCE(SUM(sa.currentBalance), 0) FROM SavingAccount sa WHERE sa.member.id = :memberId AND sa.isActive = true")
-    Double getTotalBalanceByMemberId(@Param("memberId") Long memberId);
+    Long getTotalBalanceByMemberId(@Param("memberId") Long memberId);
 
     @Query("SELECT DISTINCT sa FROM SavingAccount sa LEFT JOIN FETCH sa.transactions WHERE sa.id = :id")
     Optional<SavingAccount> findByIdWithTransactions(@Param("id") Long id);
 
+    // Keyset page over idx_account_monthly_due (account_type, is_active, id, ...); callers pass
+    // the last id of the previous page.
+    @Query("SELECT fa.id FROM FormalSavingAccount fa WHERE fa.isActive = true " +
+            "AND (fa.lastMonthlyDepositDate IS NULL OR fa.lastMonthlyDepositDate < :monthStart) " +
+            "AND fa.id > :afterId ORDER BY fa.id")
+    List<Long> findFormalAccountIdsDueForMonthlyDeposit(@Param("monthStart") LocalDate monthStart,
+                                                        @Param("afterId") Long afterId,
+                                                        Limit limit);
+
     @Query("SELECT sa FROM SavingAccount sa WHERE sa.isActive = true AND sa.currentBalance > 0 " +
-            "AND sa.id IN (SELECT t.account.id FROM Transaction t GROUP BY t.account.id " +
-            "HAVING MAX(t.transactionDate) < :cutoffDate)")
+            "AND sa.lastTransactionAt < :cutoffDate")
     List<SavingAccount> findAccountsWithLastTransactionBefore(@Param("cutoffDate") LocalDateTime cutoffDate);
+
+    // Keyset page over idx_account_dormancy, ordered by (lastTransactionAt, id).
+    @Query("SELECT sa FROM SavingAccount sa WHERE sa.isActive = true AND sa.lastTransactionAt < :cutoffDate " +
+            "AND (sa.lastTransactionAt > :afterAt OR (sa.lastTransactionAt = :afterAt AND sa.id > :afterId)) " +
+            "ORDER BY sa.lastTransactionAt, sa.id")
+    List<SavingAccount> findDormantAccountsAfter(@Param("cutoffDate") LocalDateTime cutoffDate,
+                                                 @Param("afterAt") LocalDateTime afterAt,
+                                                 @Param("afterId") Long afterId,
+                                                 Limit limit);
 }
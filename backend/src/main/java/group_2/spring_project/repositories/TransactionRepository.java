@@ -1,12 +1,15 @@
 package org.wldu.webservices.repositories;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.wldu.webservices.dto.TransactionView;
 import org.wldu.webservices.entities.Transaction;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,22 +25,22 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     // ========== DATE-BASED DATA QUERIES ==========
 
-    // FIXED: Changed to native query
-    @Query(value = "SELECT COALESCE(SUM(t.amount), 0) FROM transactions t " +
+    // Range predicates on the bare column so only the current month's partition is scanned.
+    @Query(value = "SELECT CAST(COALESCE(SUM(t.amount), 0) AS bigint) FROM transactions t " +
             "WHERE t.account_id = :accountId " +
             "AND t.transaction_type = 'WITHDRAWAL' " +
-            "AND DATE(t.transaction_date) = CURRENT_DATE",
+            "AND t.transaction_date >= CAST(CURRENT_DATE AS timestamp) " +
+            "AND t.transaction_date < CAST(CURRENT_DATE + 1 AS timestamp)",
             nativeQuery = true)
-    Double getTodayWithdrawalTotal(@Param("accountId") Long accountId);
+    Long getTodayWithdrawalTotal(@Param("accountId") Long accountId);
 
-    // FIXED: Changed to native query
-    @Query(value = "SELECT COALESCE(SUM(t.amount), 0) FROM transactions t " +
+    @Query(value = "SELECT CAST(COALESCE(SUM(t.amount), 0) AS bigint) FROM transactions t " +
             "WHERE t.account_id = :accountId " +
             "AND t.transaction_type = 'DEPOSIT' " +
-            "AND YEAR(t.transaction_date) = YEAR(CURRENT_DATE) " +
-            "AND MONTH(t.transaction_date) = MONTH(CURRENT_DATE)",
+            "AND t.transaction_date >= date_trunc('month', CAST(CURRENT_DATE AS timestamp)) " +
+            "AND t.transaction_date < date_trunc('month', CAST(CURRENT_DATE AS timestamp)) + INTERVAL '1 month'",
             nativeQuery = true)
-    Double getThisMonthDepositTotal(@Param("accountId") Long accountId);
+    Long getThisMonthDepositTotal(@Param("accountId") Long accountId);
 
     @Query("SELECT t FROM Transaction t " +
             "JOIN t.account sa " +
@@ -45,6 +48,35 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
             "ORDER BY t.transactionDate DESC")
     List<Transaction> findByMemberId(@Param("memberId") Long memberId);
 
+    // Bounded variant of findByMemberId; the lower bound prunes partitions older than it.
+    @Query("SELECT t FROM Transaction t " +
+            "JOIN t.account sa " +
+            "WHERE sa.member.id = :memberId AND t.transactionDate >= :since " +
+            "ORDER BY t.transactionDate DESC")
+    List<Transaction> findByMemberIdSince(@Param("memberId") Long memberId,
+                                          @Param("since") LocalDateTime since);
+
+    // ========== HISTORY (KEYSET) QUERIES ==========
+
+    // One account per call, so the scan walks idx_transaction_account_date in order and stops at the
+    // limit; multi-account pages merge per-account pages. The cursor is the (date, id) of the last
+    // row already returned.
+    @Query("SELECT new org.wldu.webservices.dto.TransactionView(" +
+            "t.id, t.referenceNumber, t.transactionType, t.amount, t.description, t.transactionDate, t.account.id) " +
+            "FROM Transaction t " +
+            "WHERE t.account.id = :accountId " +
+            "AND t.transactionType IN :types " +
+            "AND t.transactionDate >= :from AND t.transactionDate < :to " +
+            "AND (t.transactionDate < :cursorDate OR (t.transactionDate = :cursorDate AND t.id > :cursorId)) " +
+            "ORDER BY t.transactionDate DESC, t.id ASC")
+    List<TransactionView> findHistoryPage(@Param("accountId") Long accountId,
+                                          @Param("types") Collection<Transaction.TransactionType> types,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to,
+                                          @Param("cursorDate") LocalDateTime cursorDate,
+                                          @Param("cursorId") Long cursorId,
+                                          Limit limit);
+
     @Query("SELECT t FROM Transaction t " +
             "WHERE t.account.id = :accountId " +
             "ORDER BY t.transactionDate DESC " +
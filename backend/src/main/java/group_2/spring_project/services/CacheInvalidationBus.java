@@ -0,0 +1,300 @@
+package org.wldu.webservices.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Cross-node cache invalidation over PostgreSQL LISTEN/NOTIFY.
+ *
+ * Writers publish (entity, id) changes; they are queued after the surrounding transaction
+ * commits, coalesced for a few milliseconds and sent as compact NOTIFY payloads of the
+ * form {@code origin:entity:id,id,...} ({@code *} for every id). Each node listens on a
+ * dedicated connection outside the pool and hands foreign notifications to the local
+ * handlers. Notifications sent while a node is disconnected are lost, so after every
+ * reconnect the node flushes all of its local caches. Changes that could not be sent are
+ * queued again and retried with the next batch, so other nodes are never left holding
+ * entries this node changed.
+ */
+@Service
+public class CacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    public static final String ALL = "*";
+
+    // NOTIFY payloads are limited to 8000 bytes; larger id sets are split or sent as ALL.
+    private static final int MAX_PAYLOAD = 7000;
+    private static final int MAX_IDS_PER_ENTITY = 5000;
+    private static final Long ALL_IDS = -1L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Value("${savings.cache.invalidation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${savings.cache.invalidation.channel:cache_invalidation}")
+    private String channel;
+
+    @Value("${savings.cache.invalidation.coalesce-millis:50}")
+    private long coalesceMillis;
+
+    private final String origin = UUID.randomUUID().toString().substring(0, 8);
+    private final Map<String, Consumer<Set<Long>>> handlers = new ConcurrentHashMap<>();
+    private final List<Runnable> flushHandlers = new CopyOnWriteArrayList<>();
+    private final Map<String, Set<Long>> pending = new HashMap<>();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private ScheduledExecutorService publisher;
+    private Thread listener;
+    private volatile boolean running;
+    private volatile boolean connected;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cache-invalidation-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher.scheduleWithFixedDelay(this::flushPending, coalesceMillis, coalesceMillis, TimeUnit.MILLISECONDS);
+        listener = new Thread(this::listenLoop, "cache-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (publisher != null) {
+            publisher.shutdown();
+            flushPending();
+        }
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    // ========== REGISTRATION ==========
+
+    /** Handler for remote changes to one entity type; receives ids, or an empty set for "all". */
+    public void register(String entity, Consumer<Set<Long>> handler) {
+        handlers.put(entity, handler);
+    }
+
+    /** Called when this node may have missed notifications and must drop everything. */
+    public void registerFlush(Runnable handler) {
+        flushHandlers.add(handler);
+    }
+
+    // ========== PUBLISHING ==========
+
+    public void publish(String entity, Collection<Long> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        Set<Long> copy = new HashSet<>(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(entity, copy);
+                }
+            });
+        } else {
+            enqueue(entity, copy);
+        }
+    }
+
+    public void publishAll(String entity) {
+        publish(entity, Set.of(ALL_IDS));
+    }
+
+    // A null id set means "every id of this entity".
+    private void enqueue(String entity, Set<Long> ids) {
+        synchronized (pending) {
+            if (pending.containsKey(entity) && pending.get(entity) == null) {
+                return;
+            }
+            Set<Long> queued = pending.computeIfAbsent(entity, e -> new HashSet<>());
+            queued.addAll(ids);
+            if (queued.contains(ALL_IDS) || queued.size() > MAX_IDS_PER_ENTITY) {
+                pending.put(entity, null);
+            }
+        }
+    }
+
+    private void flushPending() {
+        Map<String, Set<Long>> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new HashMap<>(pending);
+            pending.clear();
+        }
+        List<String> unsent = new ArrayList<>(batch.keySet());
+        try {
+            for (Map.Entry<String, Set<Long>> entry : batch.entrySet()) {
+                for (String payload : payloads(entry.getKey(), entry.getValue())) {
+                    jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", channel, payload);
+                    published.incrementAndGet();
+                }
+                unsent.remove(entry.getKey());
+            }
+        } catch (Exception e) {
+            // Entities are re-sent whole; a repeated eviction is harmless. A backlog that
+            // grows past MAX_IDS_PER_ENTITY collapses into one "all" per entity.
+            logger.warn("Publishing cache invalidations failed: {}; retrying {} entities", e.getMessage(), unsent.size());
+            failed.incrementAndGet();
+            synchronized (pending) {
+                for (String entity : unsent) {
+                    Set<Long> ids = batch.get(entity);
+                    enqueue(entity, ids != null ? ids : Set.of(ALL_IDS));
+                }
+            }
+        }
+    }
+
+    private List<String> payloads(String entity, Set<Long> ids) {
+        String prefix = origin + ":" + entity + ":";
+        if (ids == null) {
+            return List.of(prefix + ALL);
+        }
+        List<String> payloads = new ArrayList<>();
+        StringBuilder current = new StringBuilder(prefix);
+        for (Long id : ids) {
+            String token = id.toString();
+            if (current.length() + token.length() + 1 > MAX_PAYLOAD) {
+                payloads.add(current.toString());
+                current = new StringBuilder(prefix);
+            }
+            if (current.length() > prefix.length()) {
+                current.append(',');
+            }
+            current.append(token);
+        }
+        payloads.add(current.toString());
+        return payloads;
+    }
+
+    // ========== LISTENING ==========
+
+    private void listenLoop() {
+        long backoff = 1000;
+        boolean firstConnect = true;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                connected = true;
+                backoff = 1000;
+                if (!firstConnect) {
+                    reconnects.incrementAndGet();
+                    logger.info("Cache invalidation listener reconnected; flushing local caches");
+                    flushHandlers.forEach(Runnable::run);
+                }
+                firstConnect = false;
+
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(500);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                connected = false;
+                if (!running) {
+                    return;
+                }
+                logger.warn("Cache invalidation listener disconnected: {}; retrying in {} ms", e.getMessage(), backoff);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, 30000);
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        String[] parts = payload.split(":", 3);
+        if (parts.length != 3 || parts[0].equals(origin)) {
+            return;
+        }
+        received.incrementAndGet();
+        Consumer<Set<Long>> handler = handlers.get(parts[1]);
+        if (handler == null) {
+            return;
+        }
+        if (ALL.equals(parts[2])) {
+            handler.accept(Set.of());
+            return;
+        }
+        Set<Long> ids = new HashSet<>();
+        for (String id : parts[2].split(",")) {
+            ids.add(Long.parseLong(id));
+        }
+        handler.accept(ids);
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", enabled);
+        status.put("origin", origin);
+        status.put("channel", channel);
+        status.put("connected", connected);
+        status.put("published", published.get());
+        status.put("received", received.get());
+        status.put("reconnects", reconnects.get());
+        status.put("failedPublishes", failed.get());
+        return status;
+    }
+}
@@ -0,0 +1,262 @@
+package org.wldu.webservices.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.wldu.webservices.config.BatchExecutors;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs scheduled batch jobs once per cluster and spreads their work across all nodes.
+ *
+ * Every node fires the same cron triggers. {@link #runAsLeader} lets only the node that
+ * wins a session-level advisory lock do the job's setup (for range jobs: enqueueing
+ * account-id ranges into job_ranges); the others skip. Worker threads on every node
+ * claim enqueued ranges with FOR UPDATE SKIP LOCKED and hand them to the handler
+ * registered for the job type. Workers start once the application is ready, when every
+ * handler has registered, and only claim ranges of job types this node has a handler
+ * for. Leader locks use the two-int advisory key space
+ * (LEADER_LOCK_CLASS, hashtext(name)); the single bigint space belongs to the ledger.
+ */
+@Service
+public class ClusterJobCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterJobCoordinator.class);
+
+    private static final int LEADER_LOCK_CLASS = 0x4A4F42; // "JOB"
+
+    private static final String ENQUEUE_SQL =
+            "INSERT INTO job_ranges (job_key, range_start, range_end, job_type, params) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT (job_key, range_start) DO NOTHING";
+
+    private static final String CLAIM_SQL =
+            "UPDATE job_ranges SET status = 'RUNNING', claimed_by = ?, claimed_at = LOCALTIMESTAMP, attempts = attempts + 1 " +
+            "WHERE (job_key, range_start) = (" +
+            "    SELECT job_key, range_start FROM job_ranges " +
+            "     WHERE (status = 'PENDING' " +
+            "        OR (status = 'RUNNING' AND claimed_at < LOCALTIMESTAMP - make_interval(secs => ?))) " +
+            "       AND job_type = ANY (?) " +
+            "     ORDER BY created_at, range_start LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+            "RETURNING job_key, range_start, range_end, job_type, params, attempts";
+
+    private static final String COMPLETE_SQL =
+            "UPDATE job_ranges SET status = 'DONE', completed_at = LOCALTIMESTAMP, processed = ?, last_error = NULL " +
+            "WHERE job_key = ? AND range_start = ? AND claimed_by = ?";
+
+    private static final String FAIL_SQL =
+            "UPDATE job_ranges SET status = CASE WHEN attempts >= ? THEN 'FAILED' ELSE 'PENDING' END, " +
+            "last_error = ? WHERE job_key = ? AND range_start = ? AND claimed_by = ?";
+
+    // Undoes a claim without counting it as an attempt.
+    private static final String RELEASE_SQL =
+            "UPDATE job_ranges SET status = 'PENDING', claimed_by = NULL, claimed_at = NULL, attempts = attempts - 1 " +
+            "WHERE job_key = ? AND range_start = ? AND claimed_by = ?";
+
+    private static final String SUMMARY_SQL =
+            "SELECT job_key, job_type, status, COUNT(*) AS ranges, COALESCE(SUM(processed), 0) AS processed, " +
+            "MIN(created_at) AS created_at, MAX(completed_at) AS completed_at " +
+            "FROM job_ranges WHERE created_at >= ? GROUP BY job_key, job_type, status ORDER BY MIN(created_at) DESC, job_key";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BatchExecutors batchExecutors;
+
+    @Value("${savings.jobs.workers:2}")
+    private int workers;
+
+    @Value("${savings.jobs.poll-millis:2000}")
+    private long pollMillis;
+
+    @Value("${savings.jobs.lease-seconds:600}")
+    private int leaseSeconds;
+
+    @Value("${savings.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+    private final Map<String, RangeHandler> handlers = new ConcurrentHashMap<>();
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private volatile boolean running;
+
+    /** Processes [rangeStart, rangeEnd] of a job; must be idempotent. Returns rows processed. */
+    @FunctionalInterface
+    public interface RangeHandler {
+        int process(String jobKey, String params, long rangeStart, long rangeEnd);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            workerThreads.add(batchExecutors.startThread("job-range-worker-" + i, this::workLoop));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workerThreads.forEach(Thread::interrupt);
+    }
+
+    public void register(String jobType, RangeHandler handler) {
+        handlers.put(jobType, handler);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // ========== LEADER ELECTION ==========
+
+    /**
+     * Runs the task if this node holds the named leader lock, skipping it otherwise.
+     * The lock is held on its own connection for the duration of the task, so it is
+     * released by the database if this node dies mid-run.
+     */
+    public boolean runAsLeader(String name, Runnable task) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?, hashtext(?))", name)) {
+                logger.info("Job {} is led by another node; skipping on {}", name, nodeId);
+                return false;
+            }
+            try {
+                task.run();
+                return true;
+            } finally {
+                advisoryLock(connection, "SELECT pg_advisory_unlock(?, hashtext(?))", name);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Leader election for " + name + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql, String name) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, LEADER_LOCK_CLASS);
+            ps.setString(2, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    // ========== WORK QUEUE ==========
+
+    /**
+     * Enqueues the grid-aligned ranges covering [lo, hi]. Ranges already enqueued for
+     * the job key are left as they are, so a repeated trigger does not duplicate work.
+     */
+    public int enqueueRanges(String jobType, String jobKey, String params, long lo, long hi, long rangeSize) {
+        if (rangeSize < 1) {
+            throw new IllegalArgumentException("Range size must be at least 1");
+        }
+        List<Object[]> rows = new ArrayList<>();
+        for (long start = Math.floorDiv(lo, rangeSize) * rangeSize; start <= hi; start += rangeSize) {
+            rows.add(new Object[]{jobKey, start, start + rangeSize - 1, jobType, params});
+        }
+        int enqueued = 0;
+        for (int count : jdbcTemplate.batchUpdate(ENQUEUE_SQL, rows)) {
+            enqueued += Math.max(count, 0);
+        }
+        logger.info("Enqueued {} of {} ranges for job {} (ids {}..{}, rangeSize={})",
+                enqueued, rows.size(), jobKey, lo, hi, rangeSize);
+        return enqueued;
+    }
+
+    private void workLoop() {
+        while (running) {
+            boolean worked;
+            try {
+                worked = claimAndProcess();
+            } catch (Exception e) {
+                logger.warn("Job range worker error: {}", e.getMessage());
+                worked = false;
+            }
+            if (!worked) {
+                try {
+                    Thread.sleep(pollMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean claimAndProcess() {
+        Object[] jobTypes = handlers.keySet().toArray();
+        if (jobTypes.length == 0) {
+            return false;
+        }
+        List<Map<String, Object>> claimed = jdbcTemplate.query(CLAIM_SQL, ps -> {
+            ps.setString(1, nodeId);
+            ps.setInt(2, leaseSeconds);
+            ps.setArray(3, ps.getConnection().createArrayOf("varchar", jobTypes));
+        }, new ColumnMapRowMapper());
+        if (claimed.isEmpty()) {
+            return false;
+        }
+        Map<String, Object> range = claimed.get(0);
+        String jobKey = (String) range.get("job_key");
+        String jobType = (String) range.get("job_type");
+        long rangeStart = ((Number) range.get("range_start")).longValue();
+        long rangeEnd = ((Number) range.get("range_end")).longValue();
+
+        RangeHandler handler = handlers.get(jobType);
+        if (handler == null) {
+            // Not expected given the claim filter; leave the range to a node that can run it.
+            jdbcTemplate.update(RELEASE_SQL, jobKey, rangeStart, nodeId);
+            logger.warn("No handler for job type {} on {}; released range {}..{} of job {}",
+                    jobType, nodeId, rangeStart, rangeEnd, jobKey);
+            return false;
+        }
+        try {
+            int processed = handler.process(jobKey, (String) range.get("params"), rangeStart, rangeEnd);
+            jdbcTemplate.update(COMPLETE_SQL, processed, jobKey, rangeStart, nodeId);
+        } catch (RuntimeException e) {
+            logger.error("Range {}..{} of job {} failed (attempt {}): {}",
+                    rangeStart, rangeEnd, jobKey, range.get("attempts"), e.getMessage(), e);
+            String message = String.valueOf(e.getMessage());
+            jdbcTemplate.update(FAIL_SQL, maxAttempts, message.substring(0, Math.min(500, message.length())),
+                    jobKey, rangeStart, nodeId);
+        }
+        return true;
+    }
+
+    // ========== STATUS ==========
+
+    /** Per job and status range counts for jobs enqueued in the last {@code days} days. */
+    public Map<String, Object> getStatus(int days) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("nodeId", nodeId);
+        result.put("workers", workers);
+        result.put("handlers", handlers.keySet());
+        result.put("jobs", jdbcTemplate.queryForList(SUMMARY_SQL,
+                Timestamp.valueOf(LocalDateTime.now().minusDays(days))));
+        return result;
+    }
+}
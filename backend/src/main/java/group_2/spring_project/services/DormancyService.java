@@ -0,0 +1,180 @@
+package org.wldu.webservices.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.wldu.webservices.entities.SavingAccount;
+import org.wldu.webservices.repositories.SavingAccountRepository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds and flags dormant accounts using the denormalized last_transaction_at column.
+ *
+ * Candidates are read with keyset iteration over idx_account_dormancy, so each page
+ * costs one index range scan regardless of how large the transactions table grows.
+ */
+@Service
+public class DormancyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DormancyService.class);
+
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    // One-time fill for rows created before last_transaction_at existed.
+    private static final String BACKFILL_SQL =
+            "UPDATE saving_accounts sa SET last_transaction_at = COALESCE(" +
+            "(SELECT MAX(t.transaction_date) FROM transactions t " +
+            " WHERE t.account_id = sa.id AND t.transaction_type <> 'INTEREST'), " +
+            "CAST(sa.opening_date AS timestamp)) " +
+            "WHERE sa.last_transaction_at IS NULL";
+
+    // Plain JDBC rather than a JPQL bulk update, which would drop the whole local account
+    // region and tell no other node; only the flagged rows are evicted, cluster-wide.
+    // Accounts with a posting since the scan read them are left alone.
+    private static final String FLAG_DORMANT_SQL =
+            "UPDATE saving_accounts SET dormant_since = ? " +
+            "WHERE id = ANY (?) AND dormant_since IS NULL AND last_transaction_at < ? RETURNING id";
+
+    @Autowired
+    private SavingAccountRepository savingAccountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private ClusterJobCoordinator jobCoordinator;
+
+    @Value("${savings.dormancy.inactive-days:365}")
+    private int defaultInactiveDays;
+
+    @Value("${savings.dormancy.page-size:500}")
+    private int pageSize;
+
+    // The column is added by Hibernate after Flyway has run, so the fill cannot be a migration.
+    // Only the node holding the leader lock runs it; nodes starting alongside skip it.
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillLastTransactionAt() {
+        jobCoordinator.runAsLeader("dormancy-backfill", () -> {
+            int filled = jdbcTemplate.update(BACKFILL_SQL);
+            if (filled > 0) {
+                entityCacheService.evictAllAccounts();
+                logger.info("Backfilled last_transaction_at for {} accounts", filled);
+            }
+        });
+    }
+
+    @Scheduled(cron = "${savings.dormancy.cron:0 30 2 * * *}")
+    public void scheduledFlagging() {
+        jobCoordinator.runAsLeader("dormancy", () -> flagDormantAccounts(defaultInactiveDays));
+    }
+
+    // ========== READ OPERATIONS ==========
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> scanDormantAccounts(Integer inactiveDays, LocalDateTime afterAt, Long afterId, int size) {
+        LocalDateTime cutoff = cutoffFor(inactiveDays);
+        List<SavingAccount> accounts = savingAccountRepository.findDormantAccountsAfter(
+                cutoff,
+                afterAt != null ? afterAt : KEYSET_START,
+                afterId != null ? afterId : 0L,
+                Limit.of(size));
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("content", accounts);
+        page.put("cutoff", cutoff);
+        page.put("size", accounts.size());
+        if (accounts.size() == size) {
+            SavingAccount last = accounts.get(accounts.size() - 1);
+            page.put("nextAfterAt", last.getLastTransactionAt());
+            page.put("nextAfterId", last.getId());
+        }
+        return page;
+    }
+
+    // ========== FLAGGING ==========
+
+    public Map<String, Object> flagDormantAccounts(Integer inactiveDays) {
+        long started = System.currentTimeMillis();
+        LocalDateTime cutoff = cutoffFor(inactiveDays);
+        LocalDate today = LocalDate.now();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        int scanned = 0;
+        int flagged = 0;
+        LocalDateTime afterAt = KEYSET_START;
+        Long afterId = 0L;
+        while (true) {
+            List<SavingAccount> page = savingAccountRepository.findDormantAccountsAfter(
+                    cutoff, afterAt, afterId, Limit.of(pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            scanned += page.size();
+            List<Long> ids = page.stream()
+                    .filter(account -> account.getDormantSince() == null)
+                    .map(SavingAccount::getId)
+                    .toList();
+            if (!ids.isEmpty()) {
+                List<Long> updated = tx.execute(status -> flagDormant(ids, today, cutoff));
+                if (updated != null && !updated.isEmpty()) {
+                    entityCacheService.evictAccounts(updated);
+                    flagged += updated.size();
+                }
+            }
+            SavingAccount last = page.get(page.size() - 1);
+            afterAt = last.getLastTransactionAt();
+            afterId = last.getId();
+        }
+
+        long duration = System.currentTimeMillis() - started;
+        logger.info("Dormancy scan (cutoff {}) completed: {} dormant, {} newly flagged in {} ms",
+                cutoff, scanned, flagged, duration);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("cutoff", cutoff);
+        result.put("dormantAccounts", scanned);
+        result.put("newlyFlagged", flagged);
+        result.put("durationMs", duration);
+        return result;
+    }
+
+    private List<Long> flagDormant(List<Long> ids, LocalDate since, LocalDateTime cutoff) {
+        Object[] idArray = ids.toArray();
+        return jdbcTemplate.query(FLAG_DORMANT_SQL, ps -> {
+            ps.setDate(1, Date.valueOf(since));
+            ps.setArray(2, ps.getConnection().createArrayOf("bigint", idArray));
+            ps.setTimestamp(3, Timestamp.valueOf(cutoff));
+        }, (rs, i) -> rs.getLong(1));
+    }
+
+    private LocalDateTime cutoffFor(Integer inactiveDays) {
+        int days = inactiveDays != null ? inactiveDays : defaultInactiveDays;
+        if (days < 1) {
+            throw new IllegalArgumentException("Inactive days must be at least 1");
+        }
+        return LocalDate.now().minusDays(days).atStartOfDay();
+    }
+}
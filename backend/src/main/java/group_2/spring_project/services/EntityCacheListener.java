@@ -0,0 +1,40 @@
+package org.wldu.webservices.services;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.wldu.webservices.entities.Member;
+import org.wldu.webservices.entities.SavingAccount;
+import org.wldu.webservices.entities.Share;
+
+import java.util.List;
+
+/**
+ * JPA entity listener that broadcasts entity writes to the other nodes' caches.
+ *
+ * Hibernate already keeps this node's second-level cache current for these writes; the
+ * bus defers the broadcast until the transaction commits. Instantiated by Hibernate
+ * through Spring's bean container, so field injection works as in a regular bean.
+ */
+public class EntityCacheListener {
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        if (entity instanceof SavingAccount account) {
+            invalidationBus.publish(EntityCacheService.ACCOUNT, List.of(account.getId()));
+        } else if (entity instanceof Member member) {
+            invalidationBus.publish(EntityCacheService.MEMBER, List.of(member.getId()));
+        } else if (entity instanceof Share share) {
+            invalidationBus.publish(EntityCacheService.SHARE, List.of(share.getId()));
+            if (share.getMember() != null) {
+                invalidationBus.publish(EntityCacheService.MEMBER, List.of(share.getMember().getId()));
+            }
+        }
+    }
+}
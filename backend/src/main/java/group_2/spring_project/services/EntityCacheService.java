@@ -0,0 +1,188 @@
+package org.wldu.webservices.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.wldu.webservices.entities.Member;
+import org.wldu.webservices.entities.SavingAccount;
+import org.wldu.webservices.entities.Share;
+import org.wldu.webservices.repositories.MemberRepository;
+import org.wldu.webservices.repositories.SavingAccountRepository;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Housekeeping for the Hibernate second-level cache (Caffeine via JCache, regions in
+ * application.conf).
+ *
+ * Hibernate keeps the cache consistent for writes made through entities and JPQL bulk
+ * updates. Set-based JDBC writers (monthly deposits, interest, the posting journal)
+ * bypass it and must evict the accounts they touched once their transaction commits.
+ * The public eviction methods also broadcast over CacheInvalidationBus so every other
+ * node drops the same entries; entity writes are broadcast by EntityCacheListener.
+ */
+@Service
+public class EntityCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityCacheService.class);
+
+    public static final String ACCOUNT = "account";
+    public static final String MEMBER = "member";
+    public static final String SHARE = "share";
+
+    private static final List<String> REGIONS =
+            List.of("members", "member-employee-ids", "member-shares", "shares", "accounts", "account-numbers");
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private SavingAccountRepository savingAccountRepository;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    @Value("${savings.cache.warm-size:1000}")
+    private int warmSize;
+
+    @PostConstruct
+    public void registerInvalidationHandlers() {
+        invalidationBus.register(ACCOUNT, ids -> {
+            if (ids.isEmpty()) {
+                evictAllAccountsLocally();
+            } else {
+                evictAccountsLocally(ids);
+            }
+        });
+        invalidationBus.register(MEMBER, ids -> {
+            if (ids.isEmpty()) {
+                entityManagerFactory.getCache().evict(Member.class);
+            } else {
+                ids.forEach(this::evictMemberLocally);
+            }
+        });
+        invalidationBus.register(SHARE, ids -> {
+            if (ids.isEmpty()) {
+                entityManagerFactory.getCache().evict(Share.class);
+            } else {
+                ids.forEach(id -> entityManagerFactory.getCache().evict(Share.class, id));
+            }
+        });
+        invalidationBus.registerFlush(this::evictAllLocally);
+    }
+
+    // Runs after the other ready listeners (e.g. the dormancy backfill) have touched rows.
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warm() {
+        if (warmSize <= 0) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        List<Member> members = memberRepository.findByIsActive(true, PageRequest.of(0, warmSize, Sort.by("id"))).getContent();
+        List<SavingAccount> accounts = savingAccountRepository.findAll(PageRequest.of(0, warmSize, Sort.by("id"))).getContent();
+        logger.info("Warmed entity cache with {} members and {} accounts in {} ms",
+                members.size(), accounts.size(), System.currentTimeMillis() - started);
+    }
+
+    // ========== EVICTION ==========
+
+    public void evictAccounts(Collection<Long> accountIds) {
+        evictAccountsLocally(accountIds);
+        invalidationBus.publish(ACCOUNT, accountIds);
+    }
+
+    public void evictAllAccounts() {
+        evictAllAccountsLocally();
+        invalidationBus.publishAll(ACCOUNT);
+    }
+
+    public void evictMember(Long memberId) {
+        evictMemberLocally(memberId);
+        invalidationBus.publish(MEMBER, List.of(memberId));
+    }
+
+    public void evictAll() {
+        evictAllLocally();
+        invalidationBus.publishAll(ACCOUNT);
+        invalidationBus.publishAll(MEMBER);
+        invalidationBus.publishAll(SHARE);
+    }
+
+    private void evictAccountsLocally(Collection<Long> accountIds) {
+        Cache cache = entityManagerFactory.getCache();
+        for (Long id : accountIds) {
+            cache.evict(SavingAccount.class, id);
+        }
+    }
+
+    private void evictAllAccountsLocally() {
+        entityManagerFactory.getCache().evict(SavingAccount.class);
+    }
+
+    // Also drops the cached shares collection, which is keyed by the member id.
+    private void evictMemberLocally(Long memberId) {
+        entityManagerFactory.getCache().evict(Member.class, memberId);
+        entityManagerFactory.unwrap(SessionFactory.class).getCache()
+                .evictCollectionData(Member.class.getName() + ".shares", memberId);
+    }
+
+    private void evictAllLocally() {
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    // ========== STATISTICS ==========
+
+    public Map<String, Object> getStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : REGIONS) {
+            CacheRegionStatistics stats = statistics.getCacheRegionStatistics(region);
+            if (stats == null) {
+                continue;
+            }
+            long lookups = stats.getHitCount() + stats.getMissCount();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("hits", stats.getHitCount());
+            entry.put("misses", stats.getMissCount());
+            entry.put("puts", stats.getPutCount());
+            entry.put("hitRatio", lookups > 0 ? (double) stats.getHitCount() / lookups : 0.0);
+            entry.put("elementsInMemory", stats.getElementCountInMemory());
+            regions.put(region, entry);
+        }
+
+        long hits = statistics.getSecondLevelCacheHitCount();
+        long lookups = hits + statistics.getSecondLevelCacheMissCount();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        result.put("hits", hits);
+        result.put("misses", statistics.getSecondLevelCacheMissCount());
+        result.put("hitRatio", lookups > 0 ? (double) hits / lookups : 0.0);
+        result.put("naturalIdHits", statistics.getNaturalIdCacheHitCount());
+        result.put("naturalIdMisses", statistics.getNaturalIdCacheMissCount());
+        result.put("regions", regions);
+        return result;
+    }
+}
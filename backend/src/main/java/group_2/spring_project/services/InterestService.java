@@ -0,0 +1,424 @@
+package org.wldu.webservices.services;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.wldu.webservices.entities.InterestRunCheckpoint;
+import org.wldu.webservices.money.Money;
+import org.wldu.webservices.repositories.InterestRunCheckpointRepository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Accrues and posts interest on formal accounts for a period [from, to).
+ *
+ * The account id space is cut into fixed, grid-aligned ranges that are processed in
+ * parallel on a fork/join pool. Each range reads its balances and period movements in
+ * two bulk queries (one read-only REPEATABLE READ snapshot), computes interest on the
+ * daily balance, and writes the INTEREST
+ * transactions, balance updates and a checkpoint row in one database transaction.
+ * A re-run of the same period skips checkpointed ranges, so a crashed run can simply
+ * be started again.
+ *
+ * The scheduled run is cluster-wide: the leader enqueues the same grid of ranges into
+ * the job queue and every node works them through {@link #processQueuedRange}.
+ */
+@Service
+public class InterestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InterestService.class);
+
+    private static final DateTimeFormatter DAY_KEY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String JOB_TYPE = "interest";
+
+    private static final String ACCOUNTS_SQL =
+            "SELECT id, current_balance, ROUND(interest_rate * 100) FROM saving_accounts " +
+            "WHERE account_type = 'FORMAL' AND is_active = true AND id BETWEEN ? AND ? ORDER BY id";
+
+    // Signed amount and epoch day are computed by the database so rows map to primitives.
+    private static final String MOVEMENTS_SQL =
+            "SELECT t.account_id, ledger_signed_amount(t.transaction_type, t.amount), " +
+            "t.transaction_date::date - DATE '1970-01-01' FROM transactions t " +
+            "JOIN saving_accounts sa ON sa.id = t.account_id " +
+            "WHERE sa.account_type = 'FORMAL' AND sa.is_active = true " +
+            "AND t.account_id BETWEEN ? AND ? AND t.transaction_date >= ? " +
+            "ORDER BY t.account_id, t.transaction_date, t.id";
+
+    private static final String INSERT_INTEREST_SQL =
+            "INSERT INTO transactions (amount, transaction_type, description, transaction_date, reference_number, account_id) " +
+            "VALUES (?, 'INTEREST', ?, ?, ?, ?)";
+
+    // Not used in ledger mode, where the INTEREST postings only append.
+    private static final String CREDIT_BALANCE_SQL =
+            "UPDATE saving_accounts SET current_balance = current_balance + ? WHERE id = ?";
+
+    private static final String INSERT_CHECKPOINT_SQL =
+            "INSERT INTO interest_run_checkpoints (run_key, range_start, range_end, accounts_posted, total_interest, completed_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private InterestRunCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private ClusterJobCoordinator jobCoordinator;
+
+    @Autowired
+    private TransactionPartitionService partitionService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Value("${savings.interest.range-size:2000}")
+    private long rangeSize;
+
+    @Value("${savings.interest.parallelism:4}")
+    private int parallelism;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @PostConstruct
+    public void registerJob() {
+        jobCoordinator.register(JOB_TYPE, this::processQueuedRange);
+    }
+
+    @Scheduled(cron = "${savings.interest.cron:-}")
+    public void scheduledRun() {
+        LocalDate to = LocalDate.now().withDayOfMonth(1);
+        LocalDate from = to.minusMonths(1);
+        jobCoordinator.runAsLeader(JOB_TYPE, () -> {
+            Map<String, Object> bounds = jdbcTemplate.queryForMap(
+                    "SELECT MIN(id) AS lo, MAX(id) AS hi FROM saving_accounts WHERE account_type = 'FORMAL'");
+            if (bounds.get("lo") != null) {
+                jobCoordinator.enqueueRanges(JOB_TYPE, runKey(from, to), from + "/" + to,
+                        ((Number) bounds.get("lo")).longValue(), ((Number) bounds.get("hi")).longValue(), rangeSize);
+            }
+        });
+    }
+
+    public Map<String, Object> runInterest(LocalDate from, LocalDate to, boolean dryRun) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Interest period must have from < to");
+        }
+        if (to.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("Interest period cannot end in the future");
+        }
+        // Balances are rolled back through live movements, which no longer include archived months.
+        partitionService.getArchivedBefore().ifPresent(limit -> {
+            if (from.isBefore(limit)) {
+                throw new IllegalArgumentException("Interest can only be run for periods from " + limit);
+            }
+        });
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Interest run already in progress");
+        }
+        try {
+            return doRun(from, to, dryRun);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Map<String, Object> doRun(LocalDate from, LocalDate to, boolean dryRun) {
+        long started = System.currentTimeMillis();
+        String runKey = runKey(from, to);
+
+        Map<Long, InterestRunCheckpoint> checkpoints = dryRun ? Map.of() :
+                checkpointRepository.findByRunKeyOrderByRangeStart(runKey).stream()
+                        .collect(Collectors.toMap(InterestRunCheckpoint::getRangeStart, c -> c));
+        for (InterestRunCheckpoint checkpoint : checkpoints.values()) {
+            if (checkpoint.getRangeEnd() - checkpoint.getRangeStart() + 1 != rangeSize) {
+                throw new IllegalStateException("Run " + runKey + " was started with range size " +
+                        (checkpoint.getRangeEnd() - checkpoint.getRangeStart() + 1) + ", not " + rangeSize);
+            }
+        }
+
+        Map<String, Object> bounds = jdbcTemplate.queryForMap(
+                "SELECT MIN(id) AS lo, MAX(id) AS hi FROM saving_accounts WHERE account_type = 'FORMAL'");
+        Number lo = (Number) bounds.get("lo");
+        Number hi = (Number) bounds.get("hi");
+
+        RangeResult total = new RangeResult(0, 0, 0L, 0);
+        if (lo != null) {
+            long first = Math.floorDiv(lo.longValue(), rangeSize) * rangeSize;
+            long last = Math.floorDiv(hi.longValue(), rangeSize) * rangeSize + rangeSize;
+            RunContext context = new RunContext(runKey, from, to, dryRun, checkpoints);
+
+            logger.info("Starting interest run {} (dryRun={}, ids {}..{}, rangeSize={}, parallelism={})",
+                    runKey, dryRun, lo, hi, rangeSize, parallelism);
+
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                total = pool.invoke(new RangeTask(context, first, last));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        long duration = System.currentTimeMillis() - started;
+        logger.info("Interest run {} completed: {} ranges ({} resumed), {} accounts, {} ETB in {} ms",
+                runKey, total.ranges(), total.resumedRanges(), total.accounts(), Money.format(total.interest()), duration);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("runKey", runKey);
+        result.put("from", from.toString());
+        result.put("to", to.toString());
+        result.put("dryRun", dryRun);
+        result.put("ranges", total.ranges());
+        result.put("resumedRanges", total.resumedRanges());
+        result.put("accounts", total.accounts());
+        result.put("totalInterest", Money.toDecimal(total.interest()));
+        result.put("durationMs", duration);
+        return result;
+    }
+
+    private static String runKey(LocalDate from, LocalDate to) {
+        return "INT" + from.format(DAY_KEY) + "-" + to.format(DAY_KEY);
+    }
+
+    // ========== RANGE PROCESSING ==========
+
+    /** Job queue handler: one grid range of a scheduled run, params "from/to". */
+    private int processQueuedRange(String runKey, String params, long rangeStart, long rangeEnd) {
+        if (rangeEnd - rangeStart + 1 != rangeSize) {
+            throw new IllegalStateException("Run " + runKey + " was enqueued with range size " +
+                    (rangeEnd - rangeStart + 1) + ", not " + rangeSize);
+        }
+        String[] period = params.split("/");
+        Map<Long, InterestRunCheckpoint> checkpoints = checkpointRepository.findByRunKeyAndRangeStart(runKey, rangeStart)
+                .map(c -> Map.of(rangeStart, c))
+                .orElse(Map.of());
+        RunContext context = new RunContext(runKey, LocalDate.parse(period[0]), LocalDate.parse(period[1]), false, checkpoints);
+        return processRange(context, rangeStart, rangeEnd).accounts();
+    }
+
+    private RangeResult processRange(RunContext context, long rangeStart, long rangeEnd) {
+        InterestRunCheckpoint checkpoint = context.checkpoints().get(rangeStart);
+        if (checkpoint != null) {
+            return new RangeResult(1, checkpoint.getAccountsPosted(), checkpoint.getTotalInterest(), 1);
+        }
+
+        List<Accrual> accruals = computeAccruals(context, rangeStart, rangeEnd);
+        long rangeInterest = accruals.stream().mapToLong(Accrual::interest).sum();
+
+        if (!context.dryRun()) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    postRange(context, rangeStart, rangeEnd, accruals, rangeInterest));
+            entityCacheService.evictAccounts(accruals.stream().map(Accrual::accountId).toList());
+        }
+        return new RangeResult(1, accruals.size(), rangeInterest, 0);
+    }
+
+    private List<Accrual> computeAccruals(RunContext context, long rangeStart, long rangeEnd) {
+        // Balances are rolled back through the movements, so both reads must see the same
+        // snapshot; a posting committed between them would otherwise be counted twice or not at all.
+        TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+        snapshot.setReadOnly(true);
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        return snapshot.execute(status -> computeAccrualsInSnapshot(context, rangeStart, rangeEnd));
+    }
+
+    private List<Accrual> computeAccrualsInSnapshot(RunContext context, long rangeStart, long rangeEnd) {
+        AccountRows accounts = new AccountRows();
+        jdbcTemplate.query(ACCOUNTS_SQL, accounts, rangeStart, rangeEnd);
+        if (accounts.size == 0) {
+            return List.of();
+        }
+        if (ledgerService.isEnabled()) {
+            // current_balance is a projection that may lag the ledger; read in this snapshot,
+            // the ledger balance matches the movements below.
+            List<Long> ids = new ArrayList<>(accounts.size);
+            for (int a = 0; a < accounts.size; a++) {
+                ids.add(accounts.ids[a]);
+            }
+            Map<Long, Long> balances = ledgerService.balances(ids);
+            for (int a = 0; a < accounts.size; a++) {
+                accounts.balances[a] = balances.getOrDefault(accounts.ids[a], 0L);
+            }
+        }
+        MovementRows movements = new MovementRows();
+        jdbcTemplate.query(MOVEMENTS_SQL, movements,
+                rangeStart, rangeEnd, Timestamp.valueOf(context.from().atStartOfDay()));
+
+        long periodStart = context.from().toEpochDay();
+        long periodEnd = context.to().toEpochDay();
+        List<Accrual> accruals = new ArrayList<>();
+        int m = 0;
+        for (int a = 0; a < accounts.size; a++) {
+            long accountId = accounts.ids[a];
+            long rate = accounts.rates[a];
+
+            // Both result sets are ordered by account id; find this account's movements.
+            while (m < movements.size && movements.accountIds[m] < accountId) {
+                m++;
+            }
+            int firstMovement = m;
+            while (m < movements.size && movements.accountIds[m] == accountId) {
+                m++;
+            }
+
+            // Roll the current balance back to the start of the period.
+            long balance = accounts.balances[a];
+            for (int i = firstMovement; i < m; i++) {
+                balance -= movements.signedAmounts[i];
+            }
+
+            long accrued = 0L;
+            long cursor = periodStart;
+            for (int i = firstMovement; i < m; i++) {
+                long day = movements.days[i];
+                if (day >= periodEnd) {
+                    break;
+                }
+                accrued = Money.add(accrued, Money.accrue(balance, rate, day - cursor));
+                balance += movements.signedAmounts[i];
+                cursor = day;
+            }
+            accrued = Money.add(accrued, Money.accrue(balance, rate, periodEnd - cursor));
+
+            long interest = Money.interest(accrued);
+            if (interest > 0) {
+                accruals.add(new Accrual(accountId, interest));
+            }
+        }
+        return accruals;
+    }
+
+    private void postRange(RunContext context, long rangeStart, long rangeEnd,
+                           List<Accrual> accruals, long rangeInterest) {
+        Timestamp postedAt = Timestamp.valueOf(context.to().atStartOfDay());
+        String description = "Interest " + context.from() + " to " + context.to();
+
+        List<Object[]> inserts = new ArrayList<>(accruals.size());
+        List<Object[]> credits = new ArrayList<>(accruals.size());
+        for (Accrual accrual : accruals) {
+            inserts.add(new Object[]{accrual.interest(), description, postedAt,
+                    context.runKey() + "-" + accrual.accountId(), accrual.accountId()});
+            credits.add(new Object[]{accrual.interest(), accrual.accountId()});
+        }
+        if (!accruals.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_INTEREST_SQL, inserts);
+            if (!ledgerService.isEnabled()) {
+                jdbcTemplate.batchUpdate(CREDIT_BALANCE_SQL, credits);
+            }
+        }
+        jdbcTemplate.update(INSERT_CHECKPOINT_SQL, context.runKey(), rangeStart, rangeEnd,
+                accruals.size(), rangeInterest, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    // Range rows are read into parallel primitive columns: no boxing and no per-row objects.
+
+    private static final class AccountRows implements RowCallbackHandler {
+        private long[] ids = new long[64];
+        private long[] balances = new long[64];
+        private long[] rates = new long[64]; // basis points
+        private int size;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                balances = Arrays.copyOf(balances, size * 2);
+                rates = Arrays.copyOf(rates, size * 2);
+            }
+            ids[size] = rs.getLong(1);
+            balances[size] = rs.getLong(2);
+            rates[size] = rs.getLong(3); // NULL rate reads as 0
+            size++;
+        }
+    }
+
+    private static final class MovementRows implements RowCallbackHandler {
+        private long[] accountIds = new long[256];
+        private long[] signedAmounts = new long[256];
+        private long[] days = new long[256];
+        private int size;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            if (size == accountIds.length) {
+                accountIds = Arrays.copyOf(accountIds, size * 2);
+                signedAmounts = Arrays.copyOf(signedAmounts, size * 2);
+                days = Arrays.copyOf(days, size * 2);
+            }
+            accountIds[size] = rs.getLong(1);
+            signedAmounts[size] = rs.getLong(2);
+            days[size] = rs.getLong(3);
+            size++;
+        }
+    }
+
+    // ========== FORK/JOIN ==========
+
+    private class RangeTask extends RecursiveTask<RangeResult> {
+
+        private final RunContext context;
+        private final long start;
+        private final long end;
+
+        RangeTask(RunContext context, long start, long end) {
+            this.context = context;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected RangeResult compute() {
+            long ranges = (end - start) / rangeSize;
+            if (ranges <= 1) {
+                return processRange(context, start, end - 1);
+            }
+            long mid = start + (ranges / 2) * rangeSize;
+            RangeTask left = new RangeTask(context, start, mid);
+            RangeTask right = new RangeTask(context, mid, end);
+            left.fork();
+            return right.compute().plus(left.join());
+        }
+    }
+
+    private record RunContext(String runKey, LocalDate from, LocalDate to, boolean dryRun,
+                              Map<Long, InterestRunCheckpoint> checkpoints) {
+    }
+
+    private record Accrual(long accountId, long interest) {
+    }
+
+    private record RangeResult(int ranges, int accounts, long interest, int resumedRanges) {
+        RangeResult plus(RangeResult other) {
+            return new RangeResult(ranges + other.ranges, accounts + other.accounts,
+                    interest + other.interest, resumedRanges + other.resumedRanges);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package org.wldu.webservices.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.wldu.webservices.money.Money;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads balances from the append-only ledger (see V3__ledger_sequence_and_snapshots.sql
+ * and V7__ledger_mode.sql).
+ *
+ * While ledger mode is on, every posting carries a per-account sequence number and every
+ * 100th posting writes a balance snapshot, so a balance is one snapshot lookup plus a sum
+ * over at most a hundred tail postings, for the current balance and for any point in the
+ * past alike. Postings then only append; the current_balance column on the account row
+ * is a projection that {@link #refreshProjections} rewrites from the ledger shortly after.
+ *
+ * The mode lives in the database (ledger_state) so the append trigger can skip all of
+ * this while it is off. It is switched at startup to match savings.ledger.enabled, which
+ * must therefore have the same value on every node.
+ */
+@Service
+public class LedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerService.class);
+
+    private static final String LATEST_SNAPSHOT_SQL =
+            "SELECT sequence_number, balance FROM balance_snapshots " +
+            "WHERE account_id = ? ORDER BY sequence_number DESC LIMIT 1";
+
+    private static final String SNAPSHOT_AS_OF_SQL =
+            "SELECT sequence_number, balance FROM balance_snapshots " +
+            "WHERE account_id = ? AND taken_at <= ? ORDER BY sequence_number DESC LIMIT 1";
+
+    private static final String SNAPSHOT_BEFORE_SQL =
+            "SELECT sequence_number, balance FROM balance_snapshots " +
+            "WHERE account_id = ? AND taken_at < ? ORDER BY sequence_number DESC LIMIT 1";
+
+    private static final String NEXT_SNAPSHOT_SQL =
+            "SELECT sequence_number FROM balance_snapshots " +
+            "WHERE account_id = ? AND sequence_number > ? ORDER BY sequence_number LIMIT 1";
+
+    private static final String TAIL_SQL =
+            "SELECT COALESCE(SUM(ledger_signed_amount(transaction_type, amount)), 0), MAX(sequence_number), COUNT(*) " +
+            "FROM transactions WHERE account_id = ? AND sequence_number > ?";
+
+    // Historical tails stop at the next snapshot, so they never read more than one
+    // snapshot interval. Postings appended after it but dated earlier (interest credited
+    // for a closed period) count from the position where they were appended.
+    private static final String TAIL_AS_OF_SQL = TAIL_SQL + " AND sequence_number <= ? AND transaction_date <= ?";
+
+    private static final String TAIL_BEFORE_SQL = TAIL_SQL + " AND sequence_number <= ? AND transaction_date < ?";
+
+    private static final String BALANCES_SQL =
+            "SELECT a.id, COALESCE(s.balance, 0) + COALESCE((" +
+            "    SELECT SUM(ledger_signed_amount(t.transaction_type, t.amount)) FROM transactions t " +
+            "     WHERE t.account_id = a.id AND t.sequence_number > COALESCE(s.sequence_number, 0)), 0) " +
+            "FROM unnest(?) AS a(id) " +
+            "LEFT JOIN LATERAL (SELECT bs.sequence_number, bs.balance FROM balance_snapshots bs " +
+            "    WHERE bs.account_id = a.id ORDER BY bs.sequence_number DESC LIMIT 1) s ON true";
+
+    private static final String LOCK_ACCOUNTS_SQL =
+            "SELECT ledger_lock_account(id) FROM (SELECT unnest(?) AS id ORDER BY 1) ids";
+
+    private static final String STATE_SQL = "SELECT enabled, changed_at FROM ledger_state WHERE id = 1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ClusterJobCoordinator jobCoordinator;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Value("${savings.ledger.enabled:false}")
+    private boolean enabled;
+
+    @Value("${savings.ledger.projection-batch:500}")
+    private int projectionBatch;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ========== MODE ==========
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void applyMode() {
+        jobCoordinator.runAsLeader("ledger-mode", () -> {
+            Boolean switched = new TransactionTemplate(transactionManager).execute(status ->
+                    jdbcTemplate.queryForObject("SELECT ledger_set_enabled(?)", Boolean.class, enabled));
+            if (Boolean.TRUE.equals(switched)) {
+                entityCacheService.evictAllAccounts();
+                logger.info("Ledger mode switched {}", enabled ? "on" : "off");
+            }
+        });
+    }
+
+    /** Rewrites stale current_balance projections from the ledger, a batch at a time. */
+    @Scheduled(fixedDelayString = "${savings.ledger.projection-refresh-millis:1000}")
+    public void refreshProjections() {
+        if (!enabled) {
+            return;
+        }
+        while (true) {
+            List<Long> refreshed = new TransactionTemplate(transactionManager).execute(status ->
+                    jdbcTemplate.queryForList("SELECT unnest(ledger_refresh_projections(?))", Long.class, projectionBatch));
+            if (refreshed == null || refreshed.isEmpty()) {
+                return;
+            }
+            entityCacheService.evictAccounts(refreshed);
+            if (refreshed.size() < projectionBatch) {
+                return;
+            }
+        }
+    }
+
+    // ========== LOCKING ==========
+
+    /** Serializes postings on the account until the surrounding transaction ends. */
+    public void lock(Long accountId) {
+        jdbcTemplate.queryForList("SELECT ledger_lock_account(?)", accountId);
+    }
+
+    /** Locks several accounts in id order, so concurrent batches cannot deadlock. */
+    public void lock(Collection<Long> accountIds) {
+        Object[] ids = accountIds.toArray();
+        jdbcTemplate.query(LOCK_ACCOUNTS_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                rs -> { });
+    }
+
+    // ========== BALANCES ==========
+
+    @Transactional(readOnly = true)
+    public LedgerBalance balance(Long accountId) {
+        requireEnabled();
+        long[] snapshot = snapshot(jdbcTemplate.queryForList(LATEST_SNAPSHOT_SQL, accountId));
+        return jdbcTemplate.queryForObject(TAIL_SQL,
+                (rs, i) -> new LedgerBalance(accountId, Money.add(snapshot[1], rs.getLong(1)),
+                        rs.getObject(2) != null ? rs.getLong(2) : snapshot[0], rs.getInt(3), null),
+                accountId, snapshot[0]);
+    }
+
+    /** Current ledger balance of each account; accounts without postings have 0. */
+    public Map<Long, Long> balances(Collection<Long> accountIds) {
+        requireEnabled();
+        Object[] ids = accountIds.toArray();
+        Map<Long, Long> balances = new HashMap<>();
+        jdbcTemplate.query(BALANCES_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                rs -> {
+                    balances.put(rs.getLong(1), rs.getLong(2));
+                });
+        return balances;
+    }
+
+    /** Balance including every posting dated at or before {@code at}. */
+    @Transactional(readOnly = true)
+    public LedgerBalance balanceAsOf(Long accountId, LocalDateTime at) {
+        requireRecorded(at);
+        Timestamp bound = Timestamp.valueOf(at);
+        long[] snapshot = snapshot(jdbcTemplate.queryForList(SNAPSHOT_AS_OF_SQL, accountId, bound));
+        long upTo = nextSnapshot(accountId, snapshot[0]);
+        return jdbcTemplate.queryForObject(TAIL_AS_OF_SQL,
+                (rs, i) -> new LedgerBalance(accountId, Money.add(snapshot[1], rs.getLong(1)),
+                        rs.getObject(2) != null ? rs.getLong(2) : snapshot[0], rs.getInt(3), at),
+                accountId, snapshot[0], upTo, bound);
+    }
+
+    /** Balance of every posting dated before {@code at}: the opening balance of a period starting then. */
+    @Transactional(readOnly = true)
+    public long balanceBefore(Long accountId, LocalDateTime at) {
+        requireRecorded(at);
+        Timestamp bound = Timestamp.valueOf(at);
+        long[] snapshot = snapshot(jdbcTemplate.queryForList(SNAPSHOT_BEFORE_SQL, accountId, bound));
+        long upTo = nextSnapshot(accountId, snapshot[0]);
+        Long tail = jdbcTemplate.queryForObject(TAIL_BEFORE_SQL,
+                (rs, i) -> rs.getLong(1), accountId, snapshot[0], upTo, bound);
+        return Money.add(snapshot[1], tail != null ? tail : 0L);
+    }
+
+    /** Compares the ledger balance with the current_balance projection on the account row. */
+    @Transactional(readOnly = true)
+    public Map<String, Object> verify(Long accountId) {
+        List<Long> projected = jdbcTemplate.queryForList(
+                "SELECT current_balance FROM saving_accounts WHERE id = ?", Long.class, accountId);
+        if (projected.isEmpty()) {
+            throw new IllegalArgumentException("Account not found: " + accountId);
+        }
+        LedgerBalance ledger = balance(accountId);
+        boolean pending = !jdbcTemplate.queryForList(
+                "SELECT 1 FROM ledger_projection_queue WHERE account_id = ?", Integer.class, accountId).isEmpty();
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("accountId", accountId);
+        result.put("ledgerBalance", Money.toDecimal(ledger.balance()));
+        result.put("projectedBalance", Money.toDecimal(projected.get(0)));
+        result.put("projectionPending", pending);
+        result.put("sequenceNumber", ledger.sequenceNumber());
+        result.put("tailEntries", ledger.tailEntries());
+        result.put("consistent", ledger.balance() == projected.get(0));
+        return result;
+    }
+
+    private void requireEnabled() {
+        if (!enabled) {
+            throw new IllegalStateException("Ledger mode is disabled");
+        }
+    }
+
+    /** Whether balances as of {@code at} can be answered from the ledger. */
+    public boolean isRecorded(LocalDateTime at) {
+        return enabled && !at.isBefore(recordedSince());
+    }
+
+    // Postings made while the ledger was off carry no sequence number, so history is only
+    // answered from the snapshots written when it was last switched on.
+    private void requireRecorded(LocalDateTime at) {
+        requireEnabled();
+        LocalDateTime since = recordedSince();
+        if (at.isBefore(since)) {
+            throw new IllegalArgumentException("Ledger balances are only available from " + since);
+        }
+    }
+
+    private LocalDateTime recordedSince() {
+        return jdbcTemplate.queryForObject(STATE_SQL, (rs, i) -> rs.getTimestamp(2).toLocalDateTime());
+    }
+
+    // Sequence number of the first snapshot after {@code sequenceNumber}, or unbounded.
+    private long nextSnapshot(Long accountId, long sequenceNumber) {
+        List<Long> next = jdbcTemplate.queryForList(NEXT_SNAPSHOT_SQL, Long.class, accountId, sequenceNumber);
+        return next.isEmpty() ? Long.MAX_VALUE : next.get(0);
+    }
+
+    // {sequence_number, balance} of the snapshot, or the empty ledger.
+    private static long[] snapshot(List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return new long[]{0L, 0L};
+        }
+        Map<String, Object> row = rows.get(0);
+        return new long[]{((Number) row.get("sequence_number")).longValue(), ((Number) row.get("balance")).longValue()};
+    }
+
+    public record LedgerBalance(Long accountId, long balance, long sequenceNumber, int tailEntries,
+                                LocalDateTime asOf) {
+    }
+}
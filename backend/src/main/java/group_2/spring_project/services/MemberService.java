@@ -1,15 +1,16 @@
 package org.wldu.webservices.services;
 
-
-
-
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.wldu.webservices.dto.MemberListItem;
 import org.wldu.webservices.entities.Member;
 import org.wldu.webservices.entities.Share;
+import org.wldu.webservices.money.Money;
 import org.wldu.webservices.repositories.MemberRepository;
 
 import java.time.LocalDate;
@@ -18,6 +19,8 @@ import java.util.List;
 @Service
 public class MemberService {
 
+    private static final Logger logger = LoggerFactory.getLogger(MemberService.class);
+
     @Autowired
     private MemberRepository memberRepository;
 
@@ -26,18 +29,18 @@ public class MemberService {
 
     @Transactional
     public Member registerMember(Member member) {
-        System.out.println("DEBUG: Registering member: " + member.getEmployeeId());
+        logger.debug("Registering member {}", member.getEmployeeId());
         
         if (memberRepository.existsByEmployeeId(member.getEmployeeId())) {
             throw new IllegalArgumentException("Employee ID already exists: " + member.getEmployeeId());
         }
 
-        member.setRegistrationFee(500.0);
+        member.setRegistrationFee(Member.REGISTRATION_FEE);
 
         createInitialShares(member);
 
         Member savedMember = memberRepository.save(member);
-        System.out.println("DEBUG: Saved member with " + savedMember.getShares().size() + " shares");
+        logger.debug("Saved member with {} shares", savedMember.getShares().size());
         
         return savedMember;
     }
@@ -55,14 +58,15 @@ public class MemberService {
         return memberRepository.findByIsActiveWithShares(true);
     }
 
+    // Paged list views return projections; single-member reads keep the entity with its shares.
     @Transactional(readOnly = true)
-    public Page<Member> getAllActiveMembers(Pageable pageable) {
-        return memberRepository.findByIsActiveWithShares(true, pageable);
+    public Page<MemberListItem> getAllActiveMembers(Pageable pageable) {
+        return memberRepository.findListItemsByIsActive(true, pageable);
     }
 
     @Transactional(readOnly = true)
-    public Page<Member> getAllMembers(Pageable pageable) {
-        return memberRepository.findAllWithShares(pageable);
+    public Page<MemberListItem> getAllMembers(Pageable pageable) {
+        return memberRepository.findListItems(pageable);
     }
 
     @Transactional(readOnly = true)
@@ -85,11 +89,11 @@ public class MemberService {
     }
 
     @Transactional(readOnly = true)
-    public Page<Member> searchMembers(String keyword, Pageable pageable) {
+    public Page<MemberListItem> searchMembers(String keyword, Pageable pageable) {
         if (keyword == null || keyword.trim().isEmpty()) {
             return getAllMembers(pageable);
         }
-        return memberRepository.searchWithShares(keyword.trim(), pageable);
+        return memberRepository.searchListItems(keyword.trim(), pageable);
     }
 
     @Transactional(readOnly = true)
@@ -98,8 +102,8 @@ public class MemberService {
     }
 
     @Transactional(readOnly = true)
-    public Page<Member> getMembersByDomain(Member.WorkDomain domain, Pageable pageable) {
-        return memberRepository.findByWorkDomainWithShares(domain, pageable);
+    public Page<MemberListItem> getMembersByDomain(Member.WorkDomain domain, Pageable pageable) {
+        return memberRepository.findListItemsByWorkDomain(domain, pageable);
     }
 
     // ========== UPDATE OPERATIONS ==========
@@ -162,14 +166,14 @@ public class MemberService {
 
     @Transactional
     public Member purchaseAdditionalShares(Long memberId, int numberOfShares) {
-        System.out.println("DEBUG: Starting share purchase for member " + memberId);
+        logger.debug("Starting share purchase for member {}", memberId);
 
         try {
             // Get member WITH shares (use findById, not findByIdWithRelations)
             Member member = memberRepository.findById(memberId)
                     .orElseThrow(() -> new IllegalArgumentException("Member not found with id: " + memberId));
 
-            System.out.println("DEBUG: Member found: " + member.getFirstName());
+            logger.debug("Member found: {}", member.getFirstName());
 
             // Validate purchase
             validateSharePurchase(member, numberOfShares);
@@ -184,28 +188,29 @@ public class MemberService {
                 );
                 share.setMember(member);  // Set member reference
                 member.getShares().add(share);  // Add to member's list
-                System.out.println("DEBUG: Created share: " + share.getCertificateNumber());
+                logger.debug("Created share {}", share.getCertificateNumber());
             }
 
             // Save member (shares should cascade)
             Member saved = memberRepository.save(member);
-            System.out.println("DEBUG: Saved member with " + saved.getShares().size() + " shares");
+            logger.debug("Saved member with {} shares", saved.getShares().size());
 
             return saved;
 
         } catch (Exception e) {
-            System.err.println("ERROR in purchaseAdditionalShares: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Share purchase for member {} failed: {}", memberId, e.getMessage(), e);
             throw e;
         }
     }
 
     @Transactional(readOnly = true)
-    public double getTotalShareValue(Long memberId) {
+    public long getTotalShareValue(Long memberId) {
         Member member = getMemberWithRelations(memberId);
-        return member.getShares().stream()
-                .mapToDouble(Share::getShareValue)
-                .sum();
+        long total = 0;
+        for (Share share : member.getShares()) {
+            total = Money.add(total, share.getShareValue());
+        }
+        return total;
     }
 
     // ========== STATISTICS ==========
@@ -218,7 +223,7 @@ public class MemberService {
     // ========== HELPER METHODS ==========
 
     private void createInitialShares(Member member) {
-        System.out.println("DEBUG: Creating initial shares for member: " + member.getEmployeeId());
+        logger.debug("Creating initial shares for member {}", member.getEmployeeId());
         for (int i = 1; i <= 3; i++) {
             Share share = new Share();
             share.setCertificateNumber(
@@ -227,9 +232,9 @@ public class MemberService {
             );
             share.setMember(member);
             member.getShares().add(share);
-            System.out.println("DEBUG: Created share: " + share.getCertificateNumber());
+            logger.debug("Created share {}", share.getCertificateNumber());
         }
-        System.out.println("DEBUG: Total shares in member: " + member.getShares().size());
+        logger.debug("Total shares in member: {}", member.getShares().size());
     }
 
     private void validateSharePurchase(Member member, int numberOfShares) {
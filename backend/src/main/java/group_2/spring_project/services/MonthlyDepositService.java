@@ -0,0 +1,241 @@
+package org.wldu.webservices.services;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.wldu.webservices.config.BatchExecutors;
+import org.wldu.webservices.repositories.SavingAccountRepository;
+
+import java.sql.Array;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Posts the monthly contribution of every active formal account that has not been
+ * credited in the current month.
+ *
+ * Due accounts are paged by id over idx_account_monthly_due and each page is
+ * credited by a single set-based statement on a worker thread. The statement
+ * re-checks last_monthly_deposit_date and derives the reference number from the
+ * month and account id, so re-running the job (or racing a teller posting) never
+ * credits an account twice.
+ *
+ * The scheduled run is cluster-wide: the leader enqueues account-id ranges into the job
+ * queue and every node credits the ranges it claims through {@link #creditQueuedRange}.
+ */
+@Service
+public class MonthlyDepositService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonthlyDepositService.class);
+
+    private static final DateTimeFormatter MONTH_KEY = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String JOB_TYPE = "monthly-deposit";
+
+    private static final String CREDIT_CHUNK_SQL =
+            "WITH credited AS ( " +
+            "    UPDATE saving_accounts " +
+            "       SET current_balance = current_balance + monthly_amount, " +
+            "           last_monthly_deposit_date = ?, " +
+            "           last_transaction_at = ?, " +
+            "           dormant_since = NULL " +
+            "     WHERE id = ANY (?) " +
+            "       AND account_type = 'FORMAL' " +
+            "       AND is_active = true " +
+            "       AND (last_monthly_deposit_date IS NULL OR last_monthly_deposit_date < ?) " +
+            "    RETURNING id, monthly_amount) " +
+            "INSERT INTO transactions (amount, transaction_type, description, transaction_date, reference_number, account_id) " +
+            "SELECT monthly_amount, 'DEPOSIT', ?, ?, ? || id, id FROM credited";
+
+    // Ledger mode: the postings only append; current_balance is left to LedgerService.refreshProjections.
+    private static final String CREDIT_CHUNK_LEDGER_SQL =
+            "WITH credited AS ( " +
+            "    UPDATE saving_accounts " +
+            "       SET last_monthly_deposit_date = ?, " +
+            "           last_transaction_at = ?, " +
+            "           dormant_since = NULL " +
+            "     WHERE id = ANY (?) " +
+            "       AND account_type = 'FORMAL' " +
+            "       AND is_active = true " +
+            "       AND (last_monthly_deposit_date IS NULL OR last_monthly_deposit_date < ?) " +
+            "    RETURNING id, monthly_amount) " +
+            "INSERT INTO transactions (amount, transaction_type, description, transaction_date, reference_number, account_id) " +
+            "SELECT monthly_amount, 'DEPOSIT', ?, ?, ? || id, id FROM credited";
+
+    @Autowired
+    private SavingAccountRepository savingAccountRepository;
+
+    @Autowired
+    private BatchExecutors batchExecutors;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private ClusterJobCoordinator jobCoordinator;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Value("${savings.monthly-deposit.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${savings.monthly-deposit.workers:4}")
+    private int workers;
+
+    @Value("${savings.monthly-deposit.range-size:5000}")
+    private long rangeSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @PostConstruct
+    public void registerJob() {
+        jobCoordinator.register(JOB_TYPE, this::creditQueuedRange);
+    }
+
+    @Scheduled(cron = "${savings.monthly-deposit.cron:0 0 1 1 * *}")
+    public void scheduledRun() {
+        LocalDate runDate = LocalDate.now();
+        jobCoordinator.runAsLeader(JOB_TYPE, () -> {
+            Map<String, Object> bounds = jdbcTemplate.queryForMap(
+                    "SELECT MIN(id) AS lo, MAX(id) AS hi FROM saving_accounts WHERE account_type = 'FORMAL'");
+            if (bounds.get("lo") != null) {
+                jobCoordinator.enqueueRanges(JOB_TYPE, "MD" + runDate.format(MONTH_KEY), runDate.toString(),
+                        ((Number) bounds.get("lo")).longValue(), ((Number) bounds.get("hi")).longValue(), rangeSize);
+            }
+        });
+    }
+
+    public Map<String, Object> runMonthlyDeposits(LocalDate runDate, String description) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Monthly deposit run already in progress");
+        }
+        try {
+            return doRun(runDate, description != null ? description : "Monthly deposit");
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Map<String, Object> doRun(LocalDate runDate, String description) {
+        long started = System.currentTimeMillis();
+        LocalDate monthStart = runDate.withDayOfMonth(1);
+        String referencePrefix = "MD" + runDate.format(MONTH_KEY) + "-";
+        LocalDateTime postedAt = LocalDateTime.now();
+
+        logger.info("Starting monthly deposit run for {} (chunkSize={}, workers={})",
+                monthStart, chunkSize, workers);
+
+        ExecutorService executor = batchExecutors.newFixedPool("monthly-deposit", workers);
+        List<Future<Integer>> chunks = new ArrayList<>();
+        int dueAccounts = 0;
+        try {
+            Long afterId = 0L;
+            while (true) {
+                List<Long> ids = savingAccountRepository.findFormalAccountIdsDueForMonthlyDeposit(
+                        monthStart, afterId, Limit.of(chunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                dueAccounts += ids.size();
+                afterId = ids.get(ids.size() - 1);
+                chunks.add(executor.submit(() ->
+                        creditChunk(ids, runDate, monthStart, referencePrefix, description, postedAt)));
+            }
+
+            int credited = 0;
+            int failedChunks = 0;
+            for (Future<Integer> chunk : chunks) {
+                try {
+                    credited += chunk.get();
+                } catch (ExecutionException e) {
+                    failedChunks++;
+                    logger.error("Monthly deposit chunk failed: {}", e.getCause().getMessage(), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Monthly deposit run interrupted", e);
+                }
+            }
+
+            long duration = System.currentTimeMillis() - started;
+            logger.info("Monthly deposit run for {} completed: {} due, {} credited, {} failed chunks in {} ms",
+                    monthStart, dueAccounts, credited, failedChunks, duration);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("month", monthStart.toString());
+            result.put("dueAccounts", dueAccounts);
+            result.put("creditedAccounts", credited);
+            result.put("skippedAccounts", dueAccounts - credited);
+            result.put("chunks", chunks.size());
+            result.put("failedChunks", failedChunks);
+            result.put("durationMs", duration);
+            return result;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /** Job queue handler: credits the due accounts with ids in [rangeStart, rangeEnd]; params is the run date. */
+    private int creditQueuedRange(String jobKey, String params, long rangeStart, long rangeEnd) {
+        LocalDate runDate = LocalDate.parse(params);
+        LocalDate monthStart = runDate.withDayOfMonth(1);
+        String referencePrefix = "MD" + runDate.format(MONTH_KEY) + "-";
+        LocalDateTime postedAt = LocalDateTime.now();
+
+        int credited = 0;
+        Long afterId = rangeStart - 1;
+        while (true) {
+            List<Long> ids = savingAccountRepository.findFormalAccountIdsDueForMonthlyDeposit(
+                    monthStart, afterId, Limit.of(chunkSize)).stream()
+                    .filter(id -> id <= rangeEnd)
+                    .toList();
+            if (ids.isEmpty()) {
+                return credited;
+            }
+            credited += creditChunk(ids, runDate, monthStart, referencePrefix, "Monthly deposit", postedAt);
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    private int creditChunk(List<Long> ids, LocalDate runDate, LocalDate monthStart,
+                            String referencePrefix, String description, LocalDateTime postedAt) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        String sql = ledgerService.isEnabled() ? CREDIT_CHUNK_LEDGER_SQL : CREDIT_CHUNK_SQL;
+        Integer credited = tx.execute(status -> jdbcTemplate.update(sql, ps -> {
+            Array idArray = ps.getConnection().createArrayOf("bigint", ids.toArray());
+            ps.setObject(1, runDate);
+            ps.setTimestamp(2, Timestamp.valueOf(postedAt));
+            ps.setArray(3, idArray);
+            ps.setObject(4, monthStart);
+            ps.setString(5, description);
+            ps.setTimestamp(6, Timestamp.valueOf(postedAt));
+            ps.setString(7, referencePrefix);
+        }));
+        entityCacheService.evictAccounts(ids);
+        return credited != null ? credited : 0;
+    }
+}
@@ -0,0 +1,401 @@
+package org.wldu.webservices.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.wldu.webservices.dto.PostingRequest;
+import org.wldu.webservices.dto.PostingResult;
+import org.wldu.webservices.entities.Transaction;
+import org.wldu.webservices.money.Money;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Payroll deposit batches over SOAP.
+ *
+ * The envelope is read with a StAX cursor and the response is written with a StAX writer
+ * straight to the HTTP streams, so neither side is ever held in memory as a tree. Deposits
+ * are collected into chunks, their account numbers resolved with one query per chunk, and
+ * each chunk is applied by PostingBatchApplier in its own database transaction; the result
+ * of every item is written as soon as its chunk commits. A message that breaks off halfway
+ * keeps the chunks already committed, and the response lists exactly which items those were.
+ *
+ * Every item is posted under a reference derived from (batchId, itemId), items without an
+ * itemId being numbered by position. An item whose reference is already in
+ * transaction_references was posted by an earlier delivery of the batch; it is not posted
+ * again and its result carries the earlier transaction with duplicate="true". A resent
+ * batch therefore only posts the items that did not make it the first time.
+ */
+@Service
+public class PayrollDepositService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayrollDepositService.class);
+
+    public static final String NAMESPACE = "http://wldu.org/webservices/payroll";
+    public static final String SOAP_11 = "http://schemas.xmlsoap.org/soap/envelope/";
+    public static final String SOAP_12 = "http://www.w3.org/2003/05/soap-envelope";
+
+    private static final String RESOLVE_ACCOUNTS_SQL =
+            "SELECT account_number, id FROM saving_accounts WHERE account_number = ANY (?)";
+
+    // The transaction itself may already be archived; the reference row is kept.
+    private static final String POSTED_REFERENCES_SQL =
+            "SELECT r.reference_number, r.transaction_id, t.amount FROM transaction_references r " +
+            "LEFT JOIN transactions t ON t.id = r.transaction_id AND t.transaction_date = r.transaction_date " +
+            "WHERE r.reference_number = ANY (?)";
+
+    @Autowired
+    private PostingBatchApplier applier;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${savings.payroll.chunk-size:500}")
+    private int chunkSize;
+
+    private final XMLInputFactory inputFactory = secureInputFactory();
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
+
+    // ========== REQUEST ==========
+
+    /**
+     * Reads up to the PayrollDepositRequest element so a malformed envelope fails before
+     * anything has been written or posted.
+     */
+    public PayrollRequest openRequest(InputStream in) throws XMLStreamException {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+        reader.nextTag();
+        String soapNamespace = reader.getNamespaceURI();
+        if (!"Envelope".equals(reader.getLocalName()) || !(SOAP_11.equals(soapNamespace) || SOAP_12.equals(soapNamespace))) {
+            throw new IllegalArgumentException("Expected a SOAP 1.1 or 1.2 Envelope");
+        }
+        reader.nextTag();
+        if ("Header".equals(reader.getLocalName())) {
+            skipElement(reader);
+            reader.nextTag();
+        }
+        if (!"Body".equals(reader.getLocalName())) {
+            throw new IllegalArgumentException("SOAP Body is missing");
+        }
+        reader.nextTag();
+        if (!"PayrollDepositRequest".equals(reader.getLocalName()) || !NAMESPACE.equals(reader.getNamespaceURI())) {
+            throw new IllegalArgumentException("Unsupported operation: {" + reader.getNamespaceURI() + "}" + reader.getLocalName());
+        }
+        String batchId = reader.getAttributeValue(null, "batchId");
+        if (batchId == null || batchId.isBlank()) {
+            throw new IllegalArgumentException("batchId is required");
+        }
+        return new PayrollRequest(reader, soapNamespace, batchId.trim());
+    }
+
+    // ========== PROCESSING ==========
+
+    public void writeResponse(PayrollRequest request, OutputStream out) throws XMLStreamException {
+        XMLStreamWriter xml = outputFactory.createXMLStreamWriter(out, "UTF-8");
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.writeStartElement("soap", "Envelope", request.soapNamespace());
+        xml.writeNamespace("soap", request.soapNamespace());
+        xml.writeNamespace("p", NAMESPACE);
+        xml.writeStartElement("soap", "Body", request.soapNamespace());
+        xml.writeStartElement("p", "PayrollDepositResponse", NAMESPACE);
+        xml.writeAttribute("batchId", request.batchId());
+
+        Totals totals = new Totals();
+        List<Item> chunk = new ArrayList<>(chunkSize);
+        XMLStreamReader reader = request.reader();
+        try {
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                chunk.add(readDeposit(reader, request.batchId(), totals.received++));
+                if (chunk.size() >= chunkSize) {
+                    applyChunk(chunk, xml, totals);
+                }
+            }
+            applyChunk(chunk, xml, totals);
+        } catch (XMLStreamException | RuntimeException e) {
+            // Earlier chunks are committed; the pending one was never posted.
+            logger.warn("Payroll batch {} stopped after {} items: {}", request.batchId(), totals.received, e.getMessage());
+            for (Item item : chunk) {
+                writeRejected(xml, item.itemId(), "Not applied: batch stopped before this item was posted");
+                totals.rejected++;
+            }
+            xml.writeStartElement("p", "error", NAMESPACE);
+            xml.writeCharacters(String.valueOf(e.getMessage()));
+            xml.writeEndElement();
+        }
+
+        xml.writeEmptyElement("p", "summary", NAMESPACE);
+        xml.writeAttribute("received", String.valueOf(totals.received));
+        xml.writeAttribute("applied", String.valueOf(totals.applied));
+        xml.writeAttribute("rejected", String.valueOf(totals.rejected));
+        xml.writeAttribute("duplicates", String.valueOf(totals.duplicates));
+        xml.writeAttribute("totalAmount", Money.format(totals.amount));
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndDocument();
+        xml.close();
+        logger.info("Payroll batch {}: {} received, {} applied, {} rejected, {} already posted",
+                request.batchId(), totals.received, totals.applied, totals.rejected, totals.duplicates);
+    }
+
+    /** Client fault for a request rejected before any item was read. */
+    public void writeFault(String soapNamespace, String message, OutputStream out) throws XMLStreamException {
+        boolean soap12 = SOAP_12.equals(soapNamespace);
+        XMLStreamWriter xml = outputFactory.createXMLStreamWriter(out, "UTF-8");
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.writeStartElement("soap", "Envelope", soapNamespace);
+        xml.writeNamespace("soap", soapNamespace);
+        xml.writeStartElement("soap", "Body", soapNamespace);
+        xml.writeStartElement("soap", "Fault", soapNamespace);
+        if (soap12) {
+            xml.writeStartElement("soap", "Code", soapNamespace);
+            xml.writeStartElement("soap", "Value", soapNamespace);
+            xml.writeCharacters("soap:Sender");
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeStartElement("soap", "Reason", soapNamespace);
+            xml.writeStartElement("soap", "Text", soapNamespace);
+            xml.writeAttribute("xml", "http://www.w3.org/XML/1998/namespace", "lang", "en");
+            xml.writeCharacters(message);
+            xml.writeEndElement();
+            xml.writeEndElement();
+        } else {
+            xml.writeStartElement("faultcode");
+            xml.writeCharacters("soap:Client");
+            xml.writeEndElement();
+            xml.writeStartElement("faultstring");
+            xml.writeCharacters(message);
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndDocument();
+        xml.close();
+    }
+
+    /** Reads one deposit element; field errors are kept on the item and rejected later. */
+    private Item readDeposit(XMLStreamReader reader, String batchId, int position) throws XMLStreamException {
+        if (!"deposit".equals(reader.getLocalName())) {
+            throw new IllegalArgumentException("Unexpected element " + reader.getLocalName() + " at item " + (position + 1));
+        }
+        Map<String, String> fields = new HashMap<>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            fields.put(reader.getLocalName(), reader.getElementText().trim());
+        }
+        String itemId = fields.getOrDefault("itemId", String.valueOf(position + 1));
+        String accountNumber = fields.get("accountNumber");
+        if (accountNumber == null || accountNumber.isEmpty()) {
+            return Item.invalid(itemId, "accountNumber is required");
+        }
+        long amount;
+        try {
+            amount = Money.fromDecimal(new BigDecimal(fields.getOrDefault("amount", "")));
+        } catch (NumberFormatException e) {
+            return Item.invalid(itemId, "Invalid amount: " + fields.get("amount"));
+        } catch (IllegalArgumentException e) {
+            return Item.invalid(itemId, e.getMessage());
+        }
+        String description = fields.getOrDefault("description", "Payroll deposit " + batchId + "/" + itemId);
+        return new Item(itemId, accountNumber, amount, description, referenceNumber(batchId, itemId), null);
+    }
+
+    private void applyChunk(List<Item> chunk, XMLStreamWriter xml, Totals totals) throws XMLStreamException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Map<String, Long> accountIds = resolveAccounts(chunk);
+        Map<String, Posted> posted = findPosted(chunk.stream()
+                .filter(item -> item.error() == null)
+                .map(Item::referenceNumber)
+                .toList());
+        List<PostingRequest> requests = new ArrayList<>(chunk.size());
+        for (Item item : chunk) {
+            Long accountId = accountIds.get(item.accountNumber());
+            if (item.error() == null && accountId != null && !posted.containsKey(item.referenceNumber())) {
+                requests.add(new PostingRequest(accountId, Transaction.TransactionType.DEPOSIT, item.amount(),
+                        item.description(), item.referenceNumber()));
+            }
+        }
+        List<PostingBatchApplier.Outcome> outcomes = applier.apply(requests);
+        // A posting that failed may have lost its reference to a concurrent delivery of the
+        // same batch, or to an earlier item of this one with the same itemId.
+        List<String> failed = new ArrayList<>();
+        for (int i = 0; i < outcomes.size(); i++) {
+            if (outcomes.get(i).error() != null) {
+                failed.add(requests.get(i).referenceNumber());
+            }
+        }
+        Map<String, Posted> postedMeanwhile = findPosted(failed);
+        List<Item> applied = List.copyOf(chunk);
+        chunk.clear();
+
+        int next = 0;
+        for (Item item : applied) {
+            if (item.error() != null) {
+                writeRejected(xml, item.itemId(), item.error());
+                totals.rejected++;
+                continue;
+            }
+            Posted earlier = posted.get(item.referenceNumber());
+            if (earlier != null) {
+                writeDuplicate(xml, item.itemId(), earlier);
+                totals.duplicates++;
+                continue;
+            }
+            if (!accountIds.containsKey(item.accountNumber())) {
+                writeRejected(xml, item.itemId(), "Account not found: " + item.accountNumber());
+                totals.rejected++;
+                continue;
+            }
+            PostingBatchApplier.Outcome outcome = outcomes.get(next++);
+            if (outcome.error() != null) {
+                earlier = postedMeanwhile.get(item.referenceNumber());
+                if (earlier != null) {
+                    writeDuplicate(xml, item.itemId(), earlier);
+                    totals.duplicates++;
+                } else {
+                    writeRejected(xml, item.itemId(), outcome.error().getMessage());
+                    totals.rejected++;
+                }
+                continue;
+            }
+            PostingResult result = outcome.result();
+            xml.writeEmptyElement("p", "result", NAMESPACE);
+            xml.writeAttribute("itemId", item.itemId());
+            xml.writeAttribute("status", "APPLIED");
+            xml.writeAttribute("transactionId", String.valueOf(result.transactionId()));
+            xml.writeAttribute("referenceNumber", result.referenceNumber());
+            xml.writeAttribute("balanceAfter", Money.format(result.balanceAfter()));
+            totals.applied++;
+            totals.amount = Money.add(totals.amount, result.amount());
+        }
+        xml.flush();
+    }
+
+    private Map<String, Long> resolveAccounts(List<Item> chunk) {
+        Object[] numbers = chunk.stream()
+                .filter(item -> item.error() == null)
+                .map(Item::accountNumber)
+                .distinct()
+                .toArray();
+        Map<String, Long> ids = new HashMap<>();
+        if (numbers.length == 0) {
+            return ids;
+        }
+        jdbcTemplate.query(RESOLVE_ACCOUNTS_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", numbers)),
+                rs -> {
+                    ids.put(rs.getString(1), rs.getLong(2));
+                });
+        return ids;
+    }
+
+    private Map<String, Posted> findPosted(List<String> references) {
+        Map<String, Posted> posted = new HashMap<>();
+        if (references.isEmpty()) {
+            return posted;
+        }
+        Object[] numbers = references.stream().distinct().toArray();
+        jdbcTemplate.query(POSTED_REFERENCES_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", numbers)),
+                rs -> {
+                    posted.put(rs.getString(1), new Posted(rs.getString(1), rs.getLong(2),
+                            rs.getObject(3) != null ? rs.getLong(3) : null));
+                });
+        return posted;
+    }
+
+    /** Reference under which the item is posted: the same for every delivery of the batch. */
+    static String referenceNumber(String batchId, String itemId) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] digest = sha256.digest((batchId + "\n" + itemId).getBytes(StandardCharsets.UTF_8));
+            return "PAY" + HexFormat.of().withUpperCase().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // ========== HELPERS ==========
+
+    private static void writeDuplicate(XMLStreamWriter xml, String itemId, Posted earlier) throws XMLStreamException {
+        xml.writeEmptyElement("p", "result", NAMESPACE);
+        xml.writeAttribute("itemId", itemId);
+        xml.writeAttribute("status", "APPLIED");
+        xml.writeAttribute("duplicate", "true");
+        xml.writeAttribute("transactionId", String.valueOf(earlier.transactionId()));
+        xml.writeAttribute("referenceNumber", earlier.referenceNumber());
+        if (earlier.amount() != null) {
+            xml.writeAttribute("amount", Money.format(earlier.amount()));
+        }
+    }
+
+    private static void writeRejected(XMLStreamWriter xml, String itemId, String message) throws XMLStreamException {
+        xml.writeEmptyElement("p", "result", NAMESPACE);
+        xml.writeAttribute("itemId", itemId);
+        xml.writeAttribute("status", "REJECTED");
+        xml.writeAttribute("message", message != null ? message : "Posting failed");
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static XMLInputFactory secureInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    public record PayrollRequest(XMLStreamReader reader, String soapNamespace, String batchId) {
+    }
+
+    private record Item(String itemId, String accountNumber, long amount, String description,
+                        String referenceNumber, String error) {
+        static Item invalid(String itemId, String error) {
+            return new Item(itemId, null, 0, null, null, error);
+        }
+    }
+
+    // A posting made by an earlier delivery; amount is null once its month is archived.
+    private record Posted(String referenceNumber, long transactionId, Long amount) {
+    }
+
+    private static final class Totals {
+        private int received;
+        private int applied;
+        private int rejected;
+        private int duplicates;
+        private long amount;
+    }
+}
@@ -0,0 +1,505 @@
+package org.wldu.webservices.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.wldu.webservices.dto.PostingRequest;
+import org.wldu.webservices.money.Money;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ingests the monthly payroll deduction file.
+ *
+ * Layout, one record per line (LF or CRLF, ASCII); anything after column 38 is ignored:
+ * <pre>
+ *   1-20  employee id, left-justified, space padded
+ *  21-32  deduction in minor units, zero padded
+ *  33-38  payroll period, YYYYMM
+ * </pre>
+ * The file is memory-mapped in windows and parsed in place. Employee ids are looked up
+ * by comparing the mapped bytes against a table of space-padded ids sorted by byte
+ * value, built once per run from the active members and their primary account (the
+ * oldest active non-formal account, else the formal one, whose monthly amount the
+ * monthly deposit run already credits). Lines are checked against the requested period.
+ * Matched deductions are posted through PostingBatchApplier in chunks as payroll
+ * deductions of that period (PostingRules.checkDeduction), each under the reference
+ * PD&lt;yyyyMM&gt;-&lt;employee id&gt;. A line whose reference was posted by an earlier run
+ * is skipped, so a file can be ingested again after a failure; a second line for the same
+ * employee in one run is rejected. Every line that does not post goes to a new reject
+ * file with its line number and reason, and the processed file is moved out of the
+ * inbox; neither replaces a file from an earlier run.
+ */
+@Service
+public class PayrollFileIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayrollFileIngestService.class);
+
+    static final int ID_WIDTH = 20;
+    private static final int AMOUNT_OFFSET = 20;
+    private static final int AMOUNT_WIDTH = 12;
+    private static final int PERIOD_OFFSET = 32;
+    private static final int RECORD_WIDTH = 38;
+
+    private static final long WINDOW_BYTES = 256L << 20;
+    private static final int FETCH_SIZE = 5000;
+
+    private static final String PRIMARY_ACCOUNTS_SQL =
+            "SELECT DISTINCT ON (m.id) m.employee_id, sa.id " +
+            "FROM members m JOIN saving_accounts sa ON sa.member_id = m.id AND sa.is_active " +
+            "WHERE m.is_active " +
+            "ORDER BY m.id, sa.account_type = 'FORMAL', sa.id";
+
+    private static final String POSTED_REFERENCES_SQL =
+            "SELECT reference_number FROM transaction_references WHERE reference_number = ANY (?)";
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PostingBatchApplier applier;
+
+    @Value("${savings.payroll.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${savings.payroll.inbox-directory:payroll/inbox}")
+    private String inboxDirectory;
+
+    @Value("${savings.payroll.processed-directory:payroll/processed}")
+    private String processedDirectory;
+
+    @Value("${savings.payroll.reject-directory:payroll/rejects}")
+    private String rejectDirectory;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public PayrollFileIngestService(DataSource dataSource) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    // ========== INGESTION ==========
+
+    public Map<String, Object> ingest(String fileName, YearMonth period) throws IOException {
+        if (period == null) {
+            throw new IllegalArgumentException("Payroll period is required");
+        }
+        Path file = resolveInboxFile(fileName);
+        if (!inFlight.add(file.getFileName().toString())) {
+            throw new IllegalStateException("Payroll file " + fileName + " is already being ingested");
+        }
+        try {
+            return ingestFile(file, period);
+        } finally {
+            inFlight.remove(file.getFileName().toString());
+        }
+    }
+
+    private Map<String, Object> ingestFile(Path file, YearMonth period) throws IOException {
+        long started = System.nanoTime();
+        EmployeeAccountTable table = loadAccountTable();
+        long tableMillis = (System.nanoTime() - started) / 1_000_000;
+
+        Path rejectFile = unusedPath(Paths.get(rejectDirectory), file.getFileName() + ".rej");
+        long size;
+        Run run;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             BufferedWriter rejects = Files.newBufferedWriter(rejectFile, StandardCharsets.US_ASCII,
+                     StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            size = channel.size();
+            run = new Run(table, period, rejects);
+            long base = 0;
+            while (base < size) {
+                long length = Math.min(WINDOW_BYTES, size - base);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, base, length);
+                int consumed = run.parse(window, base + length == size);
+                if (consumed == 0) {
+                    throw new IllegalArgumentException("Line " + (run.lines + 1) + " is longer than " + WINDOW_BYTES + " bytes");
+                }
+                base += consumed;
+            }
+        }
+        if (run.rejected == 0) {
+            Files.delete(rejectFile);
+        }
+
+        Path processed = unusedPath(Paths.get(processedDirectory), file.getFileName().toString());
+        Files.move(file, processed);
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        logger.info("Ingested payroll file {} for {}: {} lines, {} applied, {} already posted, {} rejected in {} ms",
+                file.getFileName(), period, run.lines, run.applied, run.alreadyPosted, run.rejected, elapsedMillis);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("fileName", file.getFileName().toString());
+        result.put("period", period.toString());
+        result.put("lines", run.lines);
+        result.put("applied", run.applied);
+        result.put("alreadyPosted", run.alreadyPosted);
+        result.put("rejected", run.rejected);
+        result.put("totalAmount", Money.toDecimal(run.amount));
+        result.put("rejectFile", run.rejected > 0 ? rejectFile.toString() : null);
+        result.put("processedFile", processed.toString());
+        result.put("lookupEntries", table.size());
+        result.put("lookupMillis", tableMillis);
+        result.put("bytes", size);
+        result.put("elapsedMillis", elapsedMillis);
+        result.put("megabytesPerSecond", size / 1024.0 / 1024.0 / (elapsedMillis / 1000.0));
+        return result;
+    }
+
+    // The name itself, or name.1, name.2, ... if it is taken; files of earlier runs are kept.
+    private static Path unusedPath(Path directory, String name) throws IOException {
+        Files.createDirectories(directory);
+        Path path = directory.resolve(name);
+        for (int i = 1; Files.exists(path); i++) {
+            path = directory.resolve(name + "." + i);
+        }
+        return path;
+    }
+
+    private Path resolveInboxFile(String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("File name is required");
+        }
+        Path inbox = Paths.get(inboxDirectory).toAbsolutePath().normalize();
+        Path file = inbox.resolve(fileName).normalize();
+        if (!inbox.equals(file.getParent())) {
+            throw new IllegalArgumentException("File name must not contain a path: " + fileName);
+        }
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Payroll file not found in inbox: " + fileName);
+        }
+        return file;
+    }
+
+    // ========== LOOKUP TABLE ==========
+
+    private EmployeeAccountTable loadAccountTable() {
+        List<byte[]> ids = new ArrayList<>();
+        List<Long> accountIds = new ArrayList<>();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        tx.executeWithoutResult(status -> streamingJdbcTemplate.query(PRIMARY_ACCOUNTS_SQL, (RowCallbackHandler) rs -> {
+            byte[] id = rs.getString(1).getBytes(StandardCharsets.US_ASCII);
+            if (id.length <= ID_WIDTH) {
+                ids.add(id);
+                accountIds.add(rs.getLong(2));
+            }
+        }));
+        return EmployeeAccountTable.build(ids, accountIds);
+    }
+
+    /**
+     * Employee id to primary account id, as one byte array of space-padded fixed-width
+     * keys sorted by unsigned byte value and a parallel array of account ids.
+     */
+    static final class EmployeeAccountTable {
+
+        private final byte[] keys;
+        private final long[] accountIds;
+
+        private EmployeeAccountTable(byte[] keys, long[] accountIds) {
+            this.keys = keys;
+            this.accountIds = accountIds;
+        }
+
+        static EmployeeAccountTable build(List<byte[]> ids, List<Long> accountIds) {
+            int count = ids.size();
+            byte[] unsorted = new byte[count * ID_WIDTH];
+            Arrays.fill(unsorted, (byte) ' ');
+            for (int i = 0; i < count; i++) {
+                byte[] id = ids.get(i);
+                System.arraycopy(id, 0, unsorted, i * ID_WIDTH, id.length);
+            }
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(
+                    unsorted, a * ID_WIDTH, (a + 1) * ID_WIDTH, unsorted, b * ID_WIDTH, (b + 1) * ID_WIDTH));
+
+            byte[] keys = new byte[unsorted.length];
+            long[] sortedAccountIds = new long[count];
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(unsorted, order[i] * ID_WIDTH, keys, i * ID_WIDTH, ID_WIDTH);
+                sortedAccountIds[i] = accountIds.get(order[i]);
+            }
+            return new EmployeeAccountTable(keys, sortedAccountIds);
+        }
+
+        int size() {
+            return accountIds.length;
+        }
+
+        /** Account id for the ID_WIDTH bytes at {@code offset}, or -1. */
+        long find(ByteBuffer buffer, int offset) {
+            int lo = 0;
+            int hi = accountIds.length - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int cmp = compare(mid, buffer, offset);
+                if (cmp < 0) {
+                    lo = mid + 1;
+                } else if (cmp > 0) {
+                    hi = mid - 1;
+                } else {
+                    return accountIds[mid];
+                }
+            }
+            return -1;
+        }
+
+        private int compare(int index, ByteBuffer buffer, int offset) {
+            int base = index * ID_WIDTH;
+            for (int i = 0; i < ID_WIDTH; i++) {
+                int cmp = Byte.toUnsignedInt(keys[base + i]) - Byte.toUnsignedInt(buffer.get(offset + i));
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return 0;
+        }
+    }
+
+    // ========== PARSING ==========
+
+    /** State of one file run. Pending postings refer to lines of the current window only. */
+    private final class Run {
+
+        private final EmployeeAccountTable table;
+        private final YearMonth period;
+        private final byte[] periodBytes;
+        private final String description;
+        private final String referencePrefix;
+        private final BufferedWriter rejects;
+
+        private final List<PostingRequest> pending = new ArrayList<>(chunkSize);
+        private final int[] pendingStarts = new int[chunkSize];
+        private final int[] pendingEnds = new int[chunkSize];
+        private final long[] pendingLines = new long[chunkSize];
+        private final Set<String> postedReferences = new HashSet<>();
+
+        private ByteBuffer window;
+        private long lines;
+        private int applied;
+        private int alreadyPosted;
+        private int rejected;
+        private long amount;
+
+        Run(EmployeeAccountTable table, YearMonth period, BufferedWriter rejects) {
+            this.table = table;
+            this.period = period;
+            this.periodBytes = String.format("%04d%02d", period.getYear(), period.getMonthValue())
+                    .getBytes(StandardCharsets.US_ASCII);
+            this.description = "Payroll deduction " + period;
+            this.referencePrefix = "PD" + new String(periodBytes, StandardCharsets.US_ASCII) + "-";
+            this.rejects = rejects;
+        }
+
+        /**
+         * Parses every complete line of the window and posts them. Returns the bytes
+         * consumed; an unterminated last line is left for the next window unless this
+         * is the end of the file.
+         */
+        int parse(ByteBuffer buffer, boolean endOfFile) {
+            window = buffer;
+            int limit = buffer.limit();
+            int start = 0;
+            while (start < limit) {
+                int newline = indexOfNewline(buffer, start, limit);
+                if (newline < 0 && !endOfFile) {
+                    break;
+                }
+                int next = newline < 0 ? limit : newline + 1;
+                int end = newline < 0 ? limit : newline;
+                if (end > start && buffer.get(end - 1) == '\r') {
+                    end--;
+                }
+                lines++;
+                if (end > start) {
+                    record(start, end);
+                }
+                start = next;
+            }
+            flush();
+            return start;
+        }
+
+        private void record(int start, int end) {
+            if (end - start < RECORD_WIDTH) {
+                reject(start, end, lines, "Record is shorter than " + RECORD_WIDTH + " columns");
+                return;
+            }
+            if (!matches(start + PERIOD_OFFSET, periodBytes)) {
+                reject(start, end, lines, "Record is not for period " + period);
+                return;
+            }
+            long deduction = parseAmount(start + AMOUNT_OFFSET);
+            if (deduction < 0) {
+                reject(start, end, lines, "Amount is not numeric");
+                return;
+            }
+            long accountId = table.find(window, start);
+            if (accountId < 0) {
+                reject(start, end, lines, "No active member with an active account for this employee id");
+                return;
+            }
+            int slot = pending.size();
+            pending.add(PostingRequest.deduction(accountId, deduction, description,
+                    referencePrefix + employeeId(start), period));
+            pendingStarts[slot] = start;
+            pendingEnds[slot] = end;
+            pendingLines[slot] = lines;
+            if (pending.size() == chunkSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            Set<String> posted = findPosted(pending);
+            List<PostingRequest> requests = new ArrayList<>(pending.size());
+            for (int i = 0; i < pending.size(); i++) {
+                String reference = pending.get(i).referenceNumber();
+                if (!posted.contains(reference)) {
+                    requests.add(pending.get(i));
+                } else if (postedReferences.contains(reference)) {
+                    reject(pendingStarts[i], pendingEnds[i], pendingLines[i], duplicateLine(reference));
+                } else {
+                    alreadyPosted++;
+                }
+            }
+            List<PostingBatchApplier.Outcome> outcomes = applier.apply(requests);
+            // A failed posting may have lost its reference to an earlier line of this chunk.
+            List<PostingRequest> failed = new ArrayList<>();
+            for (int i = 0; i < outcomes.size(); i++) {
+                if (outcomes.get(i).error() != null) {
+                    failed.add(requests.get(i));
+                }
+            }
+            Set<String> postedMeanwhile = findPosted(failed);
+            for (int i = 0, next = 0; i < pending.size(); i++) {
+                if (posted.contains(pending.get(i).referenceNumber())) {
+                    continue;
+                }
+                PostingBatchApplier.Outcome outcome = outcomes.get(next++);
+                String reference = pending.get(i).referenceNumber();
+                if (outcome.error() == null) {
+                    postedReferences.add(reference);
+                    applied++;
+                    amount = Money.add(amount, outcome.result().amount());
+                } else if (postedMeanwhile.contains(reference)) {
+                    reject(pendingStarts[i], pendingEnds[i], pendingLines[i], duplicateLine(reference));
+                } else {
+                    reject(pendingStarts[i], pendingEnds[i], pendingLines[i], outcome.error().getMessage());
+                }
+            }
+            pending.clear();
+        }
+
+        private Set<String> findPosted(List<PostingRequest> requests) {
+            Set<String> posted = new HashSet<>();
+            if (requests.isEmpty()) {
+                return posted;
+            }
+            Object[] references = requests.stream().map(PostingRequest::referenceNumber).distinct().toArray();
+            streamingJdbcTemplate.query(POSTED_REFERENCES_SQL,
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", references)),
+                    (RowCallbackHandler) rs -> posted.add(rs.getString(1)));
+            return posted;
+        }
+
+        private String duplicateLine(String reference) {
+            return "Deduction for this employee and period already posted in this file (" + reference + ")";
+        }
+
+        // Only matched lines get here; each becomes a posting with a reference anyway.
+        private String employeeId(int start) {
+            int end = start + ID_WIDTH;
+            while (end > start && window.get(end - 1) == ' ') {
+                end--;
+            }
+            byte[] id = new byte[end - start];
+            window.get(start, id);
+            return new String(id, StandardCharsets.US_ASCII);
+        }
+
+        private boolean matches(int offset, byte[] expected) {
+            for (int i = 0; i < expected.length; i++) {
+                if (window.get(offset + i) != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long parseAmount(int offset) {
+            long value = 0;
+            for (int i = offset; i < offset + AMOUNT_WIDTH; i++) {
+                int digit = window.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return -1;
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        // Rejects are rare, so this path may allocate.
+        private void reject(int start, int end, long lineNumber, String reason) {
+            rejected++;
+            try {
+                rejects.write(Long.toString(lineNumber));
+                rejects.write('\t');
+                rejects.write(reason != null ? reason : "Posting failed");
+                rejects.write('\t');
+                for (int i = start; i < end; i++) {
+                    rejects.write(window.get(i) & 0xff);
+                }
+                rejects.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static int indexOfNewline(ByteBuffer buffer, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,263 @@
+package org.wldu.webservices.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.wldu.webservices.dto.PostingRequest;
+import org.wldu.webservices.dto.PostingResult;
+import org.wldu.webservices.entities.Transaction;
+import org.wldu.webservices.money.Money;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Applies a batch of deposits and withdrawals in one database transaction.
+ *
+ * The touched accounts are locked with a single SELECT ... FOR UPDATE (in id order, so
+ * concurrent batches cannot deadlock), every posting is validated in submission order
+ * against the running in-memory balance with PostingRules (as SavingAccountService is;
+ * payroll deductions follow the deduction rules for their period), and the accepted
+ * postings are written with two JDBC batches. Rejected postings do not affect the
+ * others; if the batch as a whole fails in the database, each posting is retried on its
+ * own so one bad row cannot fail its neighbours.
+ */
+@Component
+public class PostingBatchApplier {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostingBatchApplier.class);
+
+    private static final String LOCK_ACCOUNTS_SQL =
+            "SELECT id, account_type, is_active, current_balance, monthly_amount, last_monthly_deposit_date " +
+            "FROM saving_accounts WHERE id = ANY (?) ORDER BY id FOR UPDATE";
+
+    private static final String TODAY_WITHDRAWALS_SQL =
+            "SELECT account_id, CAST(SUM(amount) AS bigint) FROM transactions " +
+            "WHERE account_id = ANY (?) AND transaction_type = 'WITHDRAWAL' " +
+            "AND transaction_date >= ? AND transaction_date < ? GROUP BY account_id";
+
+    private static final String NEXT_IDS_SQL =
+            "SELECT nextval('transaction_ids') FROM generate_series(1, ?)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO transactions (id, amount, transaction_type, description, transaction_date, reference_number, account_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_ACCOUNT_SQL =
+            "UPDATE saving_accounts SET current_balance = ?, last_transaction_at = ?, dormant_since = NULL, " +
+            "last_monthly_deposit_date = COALESCE(?, last_monthly_deposit_date) WHERE id = ?";
+
+    // Ledger mode: the balance is left to LedgerService.refreshProjections.
+    private static final String UPDATE_ACTIVITY_SQL =
+            "UPDATE saving_accounts SET last_transaction_at = ?, dormant_since = NULL, " +
+            "last_monthly_deposit_date = COALESCE(?, last_monthly_deposit_date) WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    /** Returns one outcome per request, in request order. */
+    public List<Outcome> apply(List<PostingRequest> batch) {
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        try {
+            List<Outcome> outcomes = new TransactionTemplate(transactionManager).execute(status -> applyInTransaction(batch));
+            entityCacheService.evictAccounts(batch.stream().map(PostingRequest::accountId).distinct().toList());
+            return outcomes;
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                return List.of(Outcome.failed(e));
+            }
+            logger.warn("Posting batch of {} failed ({}); retrying postings individually", batch.size(), e.getMessage());
+            List<Outcome> outcomes = new ArrayList<>(batch.size());
+            for (PostingRequest request : batch) {
+                outcomes.addAll(apply(List.of(request)));
+            }
+            return outcomes;
+        }
+    }
+
+    private List<Outcome> applyInTransaction(List<PostingRequest> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        Map<Long, AccountState> accounts = lockAccounts(batch);
+        if (batch.stream().anyMatch(r -> r.transactionType() == Transaction.TransactionType.WITHDRAWAL)) {
+            loadTodayWithdrawals(accounts, today);
+        }
+
+        List<Outcome> outcomes = new ArrayList<>(batch.size());
+        List<Object[]> inserts = new ArrayList<>();
+        for (PostingRequest request : batch) {
+            AccountState account = accounts.get(request.accountId());
+            try {
+                validateAndApply(request, account, today);
+            } catch (IllegalArgumentException e) {
+                outcomes.add(Outcome.failed(e));
+                continue;
+            }
+            String reference = request.referenceNumber() != null ? request.referenceNumber() : idGenerator.nextReferenceNumber();
+            inserts.add(new Object[]{null, request.amount(), request.transactionType().name(),
+                    request.description(), Timestamp.valueOf(now), reference, request.accountId()});
+            outcomes.add(Outcome.applied(new PostingResult(null, reference, request.accountId(),
+                    request.transactionType(), request.amount(), account.balance, now)));
+        }
+        if (inserts.isEmpty()) {
+            return outcomes;
+        }
+
+        List<Long> ids = jdbcTemplate.queryForList(NEXT_IDS_SQL, Long.class, inserts.size());
+        for (int i = 0, applied = 0; i < outcomes.size(); i++) {
+            Outcome outcome = outcomes.get(i);
+            if (outcome.result() == null) {
+                continue;
+            }
+            Long id = ids.get(applied);
+            inserts.get(applied++)[0] = id;
+            PostingResult r = outcome.result();
+            outcomes.set(i, Outcome.applied(new PostingResult(id, r.referenceNumber(), r.accountId(),
+                    r.transactionType(), r.amount(), r.balanceAfter(), r.postedAt())));
+        }
+
+        boolean ledger = ledgerService.isEnabled();
+        List<Object[]> updates = new ArrayList<>();
+        for (AccountState account : accounts.values()) {
+            if (account.touched) {
+                Date monthlyDepositDate = account.monthlyDepositDate != null ? Date.valueOf(account.monthlyDepositDate) : null;
+                updates.add(ledger
+                        ? new Object[]{Timestamp.valueOf(now), monthlyDepositDate, account.id}
+                        : new Object[]{account.balance, Timestamp.valueOf(now), monthlyDepositDate, account.id});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        jdbcTemplate.batchUpdate(ledger ? UPDATE_ACTIVITY_SQL : UPDATE_ACCOUNT_SQL, updates);
+        return outcomes;
+    }
+
+    private void validateAndApply(PostingRequest request, AccountState account, LocalDate today) {
+        long amount = request.amount();
+        switch (request.transactionType()) {
+            case DEPOSIT -> {
+                YearMonth payrollPeriod = request.payrollPeriod();
+                if (payrollPeriod == null) {
+                    PostingRules.checkDepositAmount(amount);
+                }
+                requireAccount(request, account);
+                LocalDate last = account.monthlyDepositDate != null ? account.monthlyDepositDate : account.lastMonthlyDeposit;
+                if (payrollPeriod != null) {
+                    PostingRules.checkDeduction(account.active, account.formal, last, amount, payrollPeriod);
+                } else {
+                    PostingRules.checkDeposit(account.active, account.formal, account.monthlyAmount, last, amount, today);
+                }
+                if (account.formal) {
+                    account.monthlyDepositDate = payrollPeriod != null ? payrollPeriod.atDay(1) : today;
+                }
+                account.balance = Money.add(account.balance, amount);
+            }
+            case WITHDRAWAL -> {
+                PostingRules.checkWithdrawalAmount(amount);
+                requireAccount(request, account);
+                PostingRules.checkWithdrawal(account.active, account.formal, account.balance, account.withdrawnToday, amount);
+                account.withdrawnToday += amount;
+                account.balance = Money.subtract(account.balance, amount);
+            }
+            default -> throw new IllegalArgumentException("Unsupported posting type: " + request.transactionType());
+        }
+        account.touched = true;
+    }
+
+    private static void requireAccount(PostingRequest request, AccountState account) {
+        if (account == null) {
+            throw new IllegalArgumentException("Account not found: " + request.accountId());
+        }
+    }
+
+    private Map<Long, AccountState> lockAccounts(List<PostingRequest> batch) {
+        Object[] ids = batch.stream().map(PostingRequest::accountId)
+                .collect(Collectors.toCollection(TreeSet::new)).toArray();
+        Map<Long, AccountState> accounts = new LinkedHashMap<>();
+        jdbcTemplate.query(LOCK_ACCOUNTS_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                rs -> {
+                    AccountState state = new AccountState(rs.getLong(1));
+                    state.formal = "FORMAL".equals(rs.getString(2));
+                    state.active = rs.getBoolean(3);
+                    state.balance = rs.getLong(4);
+                    state.monthlyAmount = rs.getLong(5);
+                    Date last = rs.getDate(6);
+                    state.lastMonthlyDeposit = last != null ? last.toLocalDate() : null;
+                    accounts.put(state.id, state);
+                });
+        // In ledger mode current_balance may lag; the ledger row lock comes after the
+        // account row lock, the same order the append trigger takes them in.
+        if (ledgerService.isEnabled() && !accounts.isEmpty()) {
+            ledgerService.lock(accounts.keySet());
+            ledgerService.balances(accounts.keySet()).forEach((id, balance) -> accounts.get(id).balance = balance);
+        }
+        return accounts;
+    }
+
+    private void loadTodayWithdrawals(Map<Long, AccountState> accounts, LocalDate today) {
+        if (accounts.isEmpty()) {
+            return;
+        }
+        Object[] ids = accounts.keySet().toArray();
+        jdbcTemplate.query(TODAY_WITHDRAWALS_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids));
+            ps.setTimestamp(2, Timestamp.valueOf(today.atStartOfDay()));
+            ps.setTimestamp(3, Timestamp.valueOf(today.plusDays(1).atStartOfDay()));
+        }, rs -> {
+            accounts.get(rs.getLong(1)).withdrawnToday = rs.getLong(2);
+        });
+    }
+
+    private static final class AccountState {
+        private final long id;
+        private boolean formal;
+        private boolean active;
+        private long balance;
+        private long monthlyAmount;
+        private LocalDate lastMonthlyDeposit;
+        private LocalDate monthlyDepositDate;
+        private long withdrawnToday;
+        private boolean touched;
+
+        AccountState(long id) {
+            this.id = id;
+        }
+    }
+
+    public record Outcome(PostingResult result, RuntimeException error) {
+        static Outcome applied(PostingResult result) {
+            return new Outcome(result, null);
+        }
+
+        static Outcome failed(RuntimeException error) {
+            return new Outcome(null, error);
+        }
+    }
+}
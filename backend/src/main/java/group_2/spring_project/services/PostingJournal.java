@@ -0,0 +1,270 @@
+package org.wldu.webservices.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.wldu.webservices.config.Workload;
+import org.wldu.webservices.dto.PostingRequest;
+import org.wldu.webservices.dto.PostingResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Group-commit pipeline for teller deposits and withdrawals.
+ *
+ * Callers enqueue a posting and get a future. A single writer thread collects postings
+ * until the batch is full or the collection window (a few milliseconds) has passed since
+ * the first one arrived, hands them to PostingBatchApplier as one database transaction,
+ * and then completes every caller's future with its own result or rejection. Under load
+ * this turns N commits into one; when idle a lone posting waits at most one window.
+ *
+ * Each posting gets its reference number on submission, so a caller that stops waiting
+ * can still tell whether it was applied. A ticket can be withdrawn until the writer picks
+ * it up; postings still queued when the journal stops are failed, never left pending.
+ */
+@Service
+public class PostingJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostingJournal.class);
+
+    private static final long MAX_TRACKED_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    @Autowired
+    private PostingBatchApplier applier;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    @Value("${savings.posting-journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${savings.posting-journal.max-batch:256}")
+    private int maxBatch;
+
+    @Value("${savings.posting-journal.window-micros:2000}")
+    private long windowMicros;
+
+    @Value("${savings.posting-journal.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<Ticket> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private final Recorder latencyRecorder = new Recorder(MAX_TRACKED_MICROS, 3);
+    private final Recorder batchSizeRecorder = new Recorder(3);
+    private final Histogram latency = new Histogram(MAX_TRACKED_MICROS, 3);
+    private final Histogram batchSizes = new Histogram(3);
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (maxBatch < 1 || windowMicros < 0) {
+            throw new IllegalArgumentException("savings.posting-journal.max-batch must be >= 1 and window-micros >= 0");
+        }
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::writerLoop, "posting-journal");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Posting journal started (maxBatch={}, windowMicros={})", maxBatch, windowMicros);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        failQueued();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Ticket submit(PostingRequest request) {
+        if (!running) {
+            throw new IllegalStateException("Posting journal is not running");
+        }
+        if (request.referenceNumber() == null) {
+            request = request.withReferenceNumber(idGenerator.nextReferenceNumber());
+        }
+        Ticket ticket = new Ticket(request, System.nanoTime());
+        if (!queue.offer(ticket)) {
+            throw new IllegalStateException("Posting journal queue is full");
+        }
+        // stop() may have drained the queue between the check above and the offer.
+        if (!running && queue.remove(ticket)) {
+            throw new IllegalStateException("Posting journal is not running");
+        }
+        return ticket;
+    }
+
+    // ========== WRITER ==========
+
+    private void writerLoop() {
+        // Postings are teller traffic; keep them off the batch pool.
+        Workload.set(Workload.INTERACTIVE);
+        List<Ticket> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                // stop() interrupts an idle writer; anything already collected is still flushed
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<Ticket> batch) throws InterruptedException {
+        Ticket first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = first.enqueuedAt() + TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        while (batch.size() < maxBatch) {
+            long remaining = deadline - System.nanoTime();
+            Ticket next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<Ticket> batch) {
+        batch.removeIf(ticket -> !ticket.claim());
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<PostingRequest> requests = batch.stream().map(Ticket::request).toList();
+        List<PostingBatchApplier.Outcome> outcomes;
+        try {
+            outcomes = applier.apply(requests);
+        } catch (RuntimeException e) {
+            logger.error("Posting batch of {} failed: {}", batch.size(), e.getMessage(), e);
+            batch.forEach(p -> p.future().completeExceptionally(e));
+            return;
+        }
+
+        long now = System.nanoTime();
+        batchSizeRecorder.recordValue(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Ticket ticket = batch.get(i);
+            PostingBatchApplier.Outcome outcome = outcomes.get(i);
+            latencyRecorder.recordValue(Math.min(MAX_TRACKED_MICROS,
+                    TimeUnit.NANOSECONDS.toMicros(now - ticket.enqueuedAt())));
+            if (outcome.error() != null) {
+                ticket.future().completeExceptionally(outcome.error());
+            } else {
+                ticket.future().complete(outcome.result());
+            }
+        }
+    }
+
+    // Whatever the writer did not take before stopping will never be posted.
+    private void failQueued() {
+        IllegalStateException stopped = new IllegalStateException("Posting journal stopped before the posting was applied");
+        Ticket ticket;
+        while ((ticket = queue.poll()) != null) {
+            if (ticket.claim()) {
+                ticket.future().completeExceptionally(stopped);
+            }
+        }
+    }
+
+    // ========== STATISTICS ==========
+
+    /** Cumulative submit-to-completion latency (microseconds) and batch size percentiles. */
+    public synchronized Map<String, Object> getStats() {
+        latency.add(latencyRecorder.getIntervalHistogram());
+        batchSizes.add(batchSizeRecorder.getIntervalHistogram());
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("maxBatch", maxBatch);
+        stats.put("windowMicros", windowMicros);
+        stats.put("queued", queue != null ? queue.size() : 0);
+        stats.put("batches", batchSizes.getTotalCount());
+        stats.put("postings", latency.getTotalCount());
+        stats.put("latencyMicros", percentiles(latency));
+        stats.put("batchSize", percentiles(batchSizes));
+        return stats;
+    }
+
+    private static Map<String, Object> percentiles(Histogram histogram) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("mean", histogram.getTotalCount() > 0 ? histogram.getMean() : 0);
+        result.put("p50", histogram.getValueAtPercentile(50));
+        result.put("p90", histogram.getValueAtPercentile(90));
+        result.put("p99", histogram.getValueAtPercentile(99));
+        result.put("p999", histogram.getValueAtPercentile(99.9));
+        result.put("max", histogram.getMaxValue());
+        return result;
+    }
+
+    /** A submitted posting: its reference number and the future completed with its outcome. */
+    public static final class Ticket {
+        private final PostingRequest request;
+        private final long enqueuedAt;
+        private final CompletableFuture<PostingResult> future = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private Ticket(PostingRequest request, long enqueuedAt) {
+            this.request = request;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        public String referenceNumber() {
+            return request.referenceNumber();
+        }
+
+        public CompletableFuture<PostingResult> future() {
+            return future;
+        }
+
+        /** Withdraws the posting if the writer has not picked it up yet; true if it will not be applied. */
+        public boolean cancel() {
+            if (!claim()) {
+                return false;
+            }
+            future.cancel(false);
+            return true;
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        private PostingRequest request() {
+            return request;
+        }
+
+        private long enqueuedAt() {
+            return enqueuedAt;
+        }
+    }
+}
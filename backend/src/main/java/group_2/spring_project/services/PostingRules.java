@@ -0,0 +1,92 @@
+package org.wldu.webservices.services;
+
+import org.wldu.webservices.money.Money;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Deposit and withdrawal rules shared by every posting path (SavingAccountService and
+ * PostingBatchApplier), so a teller posting is accepted or rejected the same way whether
+ * or not it goes through the posting journal. Amounts are minor units; each check throws
+ * IllegalArgumentException with the message returned to the caller.
+ */
+public final class PostingRules {
+
+    public static final long MIN_DEPOSIT = Money.etb(10);
+    public static final long MAX_DEPOSIT = Money.etb(50000);
+    public static final long MIN_WITHDRAWAL = Money.etb(50);
+    public static final long DAILY_WITHDRAWAL_LIMIT = Money.etb(10000);
+
+    private PostingRules() {
+    }
+
+    public static void checkDepositAmount(long amount) {
+        if (amount < MIN_DEPOSIT) {
+            throw new IllegalArgumentException("Minimum deposit is 10 ETB");
+        }
+        if (amount > MAX_DEPOSIT) {
+            throw new IllegalArgumentException("Maximum deposit is 50,000 ETB");
+        }
+    }
+
+    public static void checkWithdrawalAmount(long amount) {
+        if (amount < MIN_WITHDRAWAL) {
+            throw new IllegalArgumentException("Minimum withdrawal is 50 ETB");
+        }
+    }
+
+    /** Formal accounts take exactly their monthly amount, once per calendar month. */
+    public static void checkDeposit(boolean active, boolean formal, long monthlyAmount,
+                                    LocalDate lastMonthlyDeposit, long amount, LocalDate today) {
+        if (!active) {
+            throw new IllegalArgumentException("Cannot deposit to inactive account");
+        }
+        if (formal) {
+            if (lastMonthlyDeposit != null && YearMonth.from(lastMonthlyDeposit).equals(YearMonth.from(today))) {
+                throw new IllegalArgumentException("Monthly deposit already made this month");
+            }
+            if (amount != monthlyAmount) {
+                throw new IllegalArgumentException("Must deposit exact monthly amount: " + Money.format(monthlyAmount));
+            }
+        }
+    }
+
+    /**
+     * Payroll deductions are already withheld from the salary, so they are recorded as
+     * withheld, without the teller limits or the exact-amount rule. On a formal account
+     * the deduction is the monthly deposit of its payroll period, once per period.
+     */
+    public static void checkDeduction(boolean active, boolean formal, LocalDate lastMonthlyDeposit,
+                                      long amount, YearMonth period) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Deduction must be positive");
+        }
+        if (!active) {
+            throw new IllegalArgumentException("Cannot deposit to inactive account");
+        }
+        if (formal && lastMonthlyDeposit != null && !YearMonth.from(lastMonthlyDeposit).isBefore(period)) {
+            throw new IllegalArgumentException("Monthly deposit for " + period + " already made");
+        }
+    }
+
+    public static void checkWithdrawable(boolean active, boolean formal) {
+        if (formal) {
+            throw new IllegalArgumentException("Cannot withdraw from formal accounts");
+        }
+        if (!active) {
+            throw new IllegalArgumentException("Cannot withdraw from inactive account");
+        }
+    }
+
+    /** {@code withdrawnToday} is the total already withdrawn today, excluding this amount. */
+    public static void checkWithdrawal(boolean active, boolean formal, long balance, long withdrawnToday, long amount) {
+        checkWithdrawable(active, formal);
+        if (amount > balance) {
+            throw new IllegalArgumentException("Insufficient balance: " + Money.format(balance));
+        }
+        if (withdrawnToday + amount > DAILY_WITHDRAWAL_LIMIT) {
+            throw new IllegalArgumentException("Daily withdrawal limit (10,000 ETB) exceeded");
+        }
+    }
+}
@@ -2,25 +2,79 @@ package org.wldu.webservices.services;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.hibernate.ObjectNotFoundException;
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.wldu.webservices.dto.AccountListItem;
+import org.wldu.webservices.dto.PostingRequest;
+import org.wldu.webservices.dto.PostingResult;
 import org.wldu.webservices.entities.*;
+import org.wldu.webservices.money.Money;
 import org.wldu.webservices.repositories.SavingAccountRepository;
 import org.wldu.webservices.repositories.TransactionRepository;
 
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 @Service
 public class SavingAccountService {
 
     private static final Logger logger = LoggerFactory.getLogger(SavingAccountService.class);
 
+    private static final long MIN_MONTHLY_AMOUNT = Money.etb(100);
+
+    // Ledger mode: last activity is refreshed at most this often per account (dormancy is
+    // measured in days), and the formal monthly deposit is claimed once per month.
+    private static final Duration ACTIVITY_GRANULARITY = Duration.ofHours(1);
+
+    private static final String RECORD_ACTIVITY_SQL =
+            "UPDATE saving_accounts SET last_transaction_at = ?, dormant_since = NULL " +
+            "WHERE id = ? AND (last_transaction_at IS NULL OR last_transaction_at < ? OR dormant_since IS NOT NULL)";
+
+    private static final String CLAIM_MONTHLY_DEPOSIT_SQL =
+            "UPDATE saving_accounts SET last_monthly_deposit_date = ? " +
+            "WHERE id = ? AND (last_monthly_deposit_date IS NULL OR last_monthly_deposit_date < ?)";
+
+    private static final int BULK_DEPOSIT_CHUNK = 500;
+
+    // Bulk deposit references are "BD-<run key>-<member id>", within the 50-character column.
+    private static final Pattern BULK_RUN_KEY = Pattern.compile("[A-Za-z0-9_-]{1,24}");
+
+    private static final String POSTED_REFERENCES_SQL =
+            "SELECT reference_number FROM transaction_references WHERE reference_number = ANY (?)";
+
+    // Active members of a domain with their bulk deposit account, if any. A formal account
+    // only takes its exact monthly amount, so any other active account is preferred.
+    private static final String BULK_DEPOSIT_TARGETS_SQL =
+            "SELECT m.id, m.employee_id, m.first_name, m.last_name, a.id, a.account_number " +
+            "FROM members m " +
+            "LEFT JOIN LATERAL (SELECT sa.id, sa.account_number FROM saving_accounts sa " +
+            "    WHERE sa.member_id = m.id AND sa.is_active " +
+            "    ORDER BY sa.account_type = 'FORMAL', sa.id LIMIT 1) a ON true " +
+            "WHERE m.work_domain = ? AND m.is_active " +
+            "ORDER BY m.id";
+
     @Autowired
     private SavingAccountRepository savingAccountRepository;
 
@@ -30,15 +84,33 @@ public class SavingAccountService {
     @Autowired
     private MemberService memberService;
 
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PostingBatchApplier postingBatchApplier;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     // ========== CREATE OPERATIONS ==========
     @Transactional
-    public FormalSavingAccount openFormalAccount(Long memberId, Double monthlyAmount) {
+    public FormalSavingAccount openFormalAccount(Long memberId, long monthlyAmount) {
         logger.info("Opening formal account for memberId: {}, monthlyAmount: {}", memberId, monthlyAmount);
 
         if (memberId == null || memberId <= 0) {
             throw new IllegalArgumentException("Valid member ID required");
         }
-        if (monthlyAmount == null || monthlyAmount < 100) {
+        if (monthlyAmount < MIN_MONTHLY_AMOUNT) {
             throw new IllegalArgumentException("Monthly amount must be at least 100 ETB");
         }
 
@@ -56,7 +128,7 @@ public class SavingAccountService {
         FormalSavingAccount account = new FormalSavingAccount(monthlyAmount);
         account.setMember(member);
         account.setAccountNumber(generateAccountNumber("FORMAL"));
-        account.setCurrentBalance(0.0);
+        account.setCurrentBalance(0);
         account.setIsActive(true);
         // openingDate set by parent constructor
 
@@ -66,7 +138,7 @@ public class SavingAccountService {
     }
 
     @Transactional
-    public InformalSavingAccount openInformalAccount(Long memberId, Double targetAmount) {
+    public InformalSavingAccount openInformalAccount(Long memberId, Long targetAmount) {
         logger.info("Opening informal account for memberId: {}, targetAmount: {}", memberId, targetAmount);
 
         if (memberId == null || memberId <= 0) {
@@ -86,7 +158,7 @@ public class SavingAccountService {
         InformalSavingAccount account = new InformalSavingAccount(targetAmount);
         account.setMember(member);
         account.setAccountNumber(generateAccountNumber("INFORMAL"));
-        account.setCurrentBalance(0.0);
+        account.setCurrentBalance(0);
         account.setIsActive(true);
 
         InformalSavingAccount saved = savingAccountRepository.save(account);
@@ -96,13 +168,13 @@ public class SavingAccountService {
 
     // ========== READ OPERATIONS ==========
     @Transactional(readOnly = true)
-    public Page<SavingAccount> getAllAccounts(Pageable pageable) {
-        return savingAccountRepository.findAll(pageable);
+    public Page<AccountListItem> getAllAccounts(Pageable pageable) {
+        return savingAccountRepository.findListItems(pageable);
     }
 
     @Transactional(readOnly = true)
-    public Page<SavingAccount> searchAccounts(String keyword, Pageable pageable) {
-        return savingAccountRepository.searchAccounts(keyword, pageable);
+    public Page<AccountListItem> searchAccounts(String keyword, Pageable pageable) {
+        return savingAccountRepository.searchListItems(keyword, pageable);
     }
 
     @Transactional(readOnly = true)
@@ -113,7 +185,10 @@ public class SavingAccountService {
 
     @Transactional(readOnly = true)
     public SavingAccount getAccountByNumber(String accountNumber) {
-        return savingAccountRepository.findByAccountNumber(accountNumber)
+        // Natural-id lookup resolves through the account-numbers cache region.
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(SavingAccount.class)
+                .loadOptional(accountNumber)
                 .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountNumber));
     }
 
@@ -128,47 +203,53 @@ public class SavingAccountService {
     }
 
     @Transactional(readOnly = true)
-    public Double getMemberTotalBalance(Long memberId) {
+    public long getMemberTotalBalance(Long memberId) {
         return savingAccountRepository.getTotalBalanceByMemberId(memberId);
     }
 
     // ========== DEPOSIT ==========
     @Transactional
-    public Transaction deposit(Long accountId, Double amount, String description) {
+    public Transaction deposit(Long accountId, long amount, String description) {
         logger.info("Deposit accountId: {}, amount: {}", accountId, amount);
 
-        if (amount == null || amount < 10) {
-            throw new IllegalArgumentException("Minimum deposit is 10 ETB");
-        }
-        if (amount > 50000) {
-            throw new IllegalArgumentException("Maximum deposit is 50,000 ETB");
-        }
+        PostingRules.checkDepositAmount(amount);
+        return postDeposit(loadForPosting(accountId), amount, description);
+    }
 
-        SavingAccount account = getAccount(accountId);
-        if (!account.getIsActive()) {
-            throw new IllegalArgumentException("Cannot deposit to inactive account");
+    @Transactional
+    public Transaction depositMonthly(Long accountId, String description) {
+        logger.info("Monthly deposit accountId: {}", accountId);
+
+        SavingAccount account = loadForPosting(accountId);
+        if (!(account instanceof FormalSavingAccount formal)) {
+            throw new IllegalArgumentException("Only formal accounts can make monthly deposits");
         }
+        PostingRules.checkDepositAmount(formal.getMonthlyAmount());
+        return postDeposit(formal, formal.getMonthlyAmount(), description);
+    }
 
-        // Formal account validation
-        if (account instanceof FormalSavingAccount formal) {
-            LocalDate lastDeposit = formal.getLastMonthlyDepositDate();
-            if (lastDeposit != null &&
-                    lastDeposit.getYear() == LocalDate.now().getYear() &&
-                    lastDeposit.getMonth() == LocalDate.now().getMonth()) {
-                throw new IllegalArgumentException("Monthly deposit already made this month");
-            }
-            if (Math.abs(amount - formal.getMonthlyAmount()) > 0.01) {
-                throw new IllegalArgumentException("Must deposit exact monthly amount: " + formal.getMonthlyAmount());
-            }
-            formal.setLastMonthlyDepositDate(LocalDate.now());
+    private Transaction postDeposit(SavingAccount account, long amount, String description) {
+        LocalDate today = LocalDate.now();
+        FormalSavingAccount formal = account instanceof FormalSavingAccount f ? f : null;
+        PostingRules.checkDeposit(account.getIsActive(), formal != null,
+                formal != null ? formal.getMonthlyAmount() : 0L,
+                formal != null ? formal.getLastMonthlyDepositDate() : null, amount, today);
+        if (ledgerService.isEnabled()) {
+            return appendToLedger(account, Transaction.TransactionType.DEPOSIT, amount, description);
         }
+        if (formal != null) {
+            formal.setLastMonthlyDepositDate(today);
+        }
+
+        long balance = account.getCurrentBalance();
 
         Transaction tx = new Transaction(amount, Transaction.TransactionType.DEPOSIT, description);
         tx.setAccount(account);
         tx.setReferenceNumber(generateReferenceNumber());
         transactionRepository.save(tx);
 
-        account.setCurrentBalance(account.getCurrentBalance() + amount);
+        account.setCurrentBalance(Money.add(balance, amount));
+        account.recordActivity(tx.getTransactionDate());
         savingAccountRepository.save(account);
 
         return tx;
@@ -176,36 +257,26 @@ public class SavingAccountService {
 
     // ========== WITHDRAW ==========
     @Transactional
-    public Transaction withdraw(Long accountId, Double amount, String description) {
+    public Transaction withdraw(Long accountId, long amount, String description) {
         logger.info("Withdraw accountId: {}, amount: {}", accountId, amount);
 
-        if (amount == null || amount < 50) {
-            throw new IllegalArgumentException("Minimum withdrawal is 50 ETB");
-        }
-
-        SavingAccount account = getAccount(accountId);
-        if (account instanceof FormalSavingAccount) {
-            throw new IllegalArgumentException("Cannot withdraw from formal accounts");
-        }
-        if (!account.getIsActive()) {
-            throw new IllegalArgumentException("Cannot withdraw from inactive account");
-        }
-        if (amount > account.getCurrentBalance()) {
-            throw new IllegalArgumentException("Insufficient balance: " + account.getCurrentBalance());
-        }
+        PostingRules.checkWithdrawalAmount(amount);
 
-        Double todayWithdrawals = transactionRepository.getTodayWithdrawalTotal(accountId);
-        double totalToday = (todayWithdrawals != null ? todayWithdrawals : 0) + amount;
-        if (totalToday > 10000) {
-            throw new IllegalArgumentException("Daily withdrawal limit (10,000 ETB) exceeded");
+        SavingAccount account = loadForPosting(accountId);
+        PostingRules.checkWithdrawable(account.getIsActive(), account instanceof FormalSavingAccount);
+        if (ledgerService.isEnabled()) {
+            return appendToLedger(account, Transaction.TransactionType.WITHDRAWAL, amount, description);
         }
+        long balance = account.getCurrentBalance();
+        checkWithdrawal(account, balance, amount);
 
         Transaction tx = new Transaction(amount, Transaction.TransactionType.WITHDRAWAL, description);
         tx.setAccount(account);
         tx.setReferenceNumber(generateReferenceNumber());
         transactionRepository.save(tx);
 
-        account.setCurrentBalance(account.getCurrentBalance() - amount);
+        account.setCurrentBalance(Money.subtract(balance, amount));
+        account.recordActivity(tx.getTransactionDate());
         savingAccountRepository.save(account);
 
         return tx;
@@ -214,9 +285,14 @@ public class SavingAccountService {
     // ========== ACCOUNT LIFECYCLE ==========
     @Transactional
     public SavingAccount closeAccount(Long accountId) {
-        SavingAccount account = getAccount(accountId);
-        if (account.getCurrentBalance() > 0) {
-            throw new IllegalArgumentException("Zero balance required: " + account.getCurrentBalance());
+        SavingAccount account = loadForPosting(accountId);
+        long balance = account.getCurrentBalance();
+        if (ledgerService.isEnabled()) {
+            ledgerService.lock(accountId);
+            balance = ledgerService.balance(accountId).balance();
+        }
+        if (balance > 0) {
+            throw new IllegalArgumentException("Zero balance required: " + Money.format(balance));
         }
         account.setIsActive(false);
         return savingAccountRepository.save(account);
@@ -237,108 +313,217 @@ public class SavingAccountService {
     }
 
     // ========== BULK OPERATIONS ==========
-    @Transactional
-    public Map<String, Object> bulkDepositByDomain(String workDomain, Double amount, String description) {
+
+    /**
+     * Credits every active member of a work domain. Each member's target account (the
+     * first active non-formal account, else the first active one) comes from one query,
+     * and the deposits are posted by PostingBatchApplier in chunks, each in its own
+     * transaction and subject to the same PostingRules as a teller deposit.
+     *
+     * Each deposit's reference is derived from the run key and the member id, and members
+     * whose reference is already posted are skipped, so a retried or partly failed run
+     * credits nobody twice. Without a run key the run is keyed by date and domain.
+     */
+    public Map<String, Object> bulkDepositByDomain(String workDomain, long amount, String description, String runKey) {
         logger.info("Starting bulk deposit for domain: {}, amount: {}", workDomain, amount);
 
         if (workDomain == null || workDomain.trim().isEmpty()) {
             throw new IllegalArgumentException("Work domain is required");
         }
-        if (amount == null || amount <= 0) {
+        if (amount <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
         }
-
+        Member.WorkDomain domain;
         try {
-            // Convert string to enum
-            Member.WorkDomain domain = Member.WorkDomain.valueOf(workDomain.toUpperCase());
-            
-            // Get all active members in the specified domain
-            List<Member> members = memberService.getMembersByDomain(domain);
-            List<Member> activeMembers = members.stream()
-                    .filter(Member::getIsActive)
-                    .collect(java.util.stream.Collectors.toList());
-
-            logger.info("Found {} active members in domain {}", activeMembers.size(), workDomain);
-
-            int successCount = 0;
-            int failureCount = 0;
-            List<String> errors = new java.util.ArrayList<>();
-            List<Map<String, Object>> successfulDeposits = new java.util.ArrayList<>();
-
-            for (Member member : activeMembers) {
-                try {
-                    // Get member's active accounts
-                    List<SavingAccount> accounts = getActiveMemberAccounts(member.getId());
-                    
-                    if (accounts.isEmpty()) {
-                        errors.add("Member " + member.getEmployeeId() + " has no active accounts");
-                        failureCount++;
-                        continue;
-                    }
-
-                    // Deposit to the first active account (or primary account)
-                    SavingAccount primaryAccount = accounts.get(0);
-                    
-                    // Create transaction
-                    Transaction transaction = new Transaction(amount, Transaction.TransactionType.DEPOSIT, 
-                            description != null ? description : "Bulk deposit for " + workDomain + " domain");
-                    transaction.setAccount(primaryAccount);
-                    transaction.setReferenceNumber(generateReferenceNumber());
-                    transactionRepository.save(transaction);
-
-                    // Update account balance
-                    primaryAccount.setCurrentBalance(primaryAccount.getCurrentBalance() + amount);
-                    savingAccountRepository.save(primaryAccount);
-
-                    // Record success
-                    Map<String, Object> depositInfo = new java.util.HashMap<>();
-                    depositInfo.put("memberId", member.getId());
-                    depositInfo.put("memberName", member.getFirstName() + " " + member.getLastName());
-                    depositInfo.put("employeeId", member.getEmployeeId());
-                    depositInfo.put("accountNumber", primaryAccount.getAccountNumber());
-                    depositInfo.put("amount", amount);
-                    depositInfo.put("newBalance", primaryAccount.getCurrentBalance());
-                    depositInfo.put("transactionRef", transaction.getReferenceNumber());
-                    successfulDeposits.add(depositInfo);
-
-                    successCount++;
-                    logger.info("Deposited {} to account {} for member {}", amount, primaryAccount.getAccountNumber(), member.getEmployeeId());
-
-                } catch (Exception e) {
-                    logger.error("Failed to deposit for member {}: {}", member.getEmployeeId(), e.getMessage());
-                    errors.add("Member " + member.getEmployeeId() + ": " + e.getMessage());
-                    failureCount++;
+            domain = Member.WorkDomain.valueOf(workDomain.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid work domain: " + workDomain + ". Valid domains: ACADEMIC, ADMINISTRATION, CONTRACT, OTHER");
+        }
+        String text = description != null ? description : "Bulk deposit for " + domain + " domain";
+        String key = runKey != null && !runKey.isBlank() ? runKey.trim()
+                : LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + "-" + domain;
+        if (!BULK_RUN_KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Run key must be 1-24 letters, digits, '-' or '_'");
+        }
+        String referencePrefix = "BD-" + key + "-";
+
+        List<BulkDepositTarget> targets = jdbcTemplate.query(BULK_DEPOSIT_TARGETS_SQL,
+                (rs, i) -> new BulkDepositTarget(rs.getLong(1), rs.getString(2), rs.getString(3) + " " + rs.getString(4),
+                        rs.getObject(5) != null ? rs.getLong(5) : null, rs.getString(6)),
+                domain.name());
+        logger.info("Found {} active members in domain {}", targets.size(), domain);
+
+        int successCount = 0;
+        List<String> alreadyPosted = new java.util.ArrayList<>();
+        List<String> errors = new java.util.ArrayList<>();
+        List<Map<String, Object>> successfulDeposits = new java.util.ArrayList<>();
+        List<BulkDepositTarget> withAccount = new java.util.ArrayList<>();
+        for (BulkDepositTarget target : targets) {
+            if (target.accountId() == null) {
+                errors.add("Member " + target.employeeId() + " has no active accounts");
+            } else {
+                withAccount.add(target);
+            }
+        }
+
+        for (int from = 0; from < withAccount.size(); from += BULK_DEPOSIT_CHUNK) {
+            List<BulkDepositTarget> slice = withAccount.subList(from, Math.min(from + BULK_DEPOSIT_CHUNK, withAccount.size()));
+            Set<String> postedBefore = postedReferences(slice.stream().map(t -> referencePrefix + t.memberId()).toList());
+            List<BulkDepositTarget> chunk = new java.util.ArrayList<>();
+            for (BulkDepositTarget target : slice) {
+                if (postedBefore.contains(referencePrefix + target.memberId())) {
+                    alreadyPosted.add(target.employeeId());
+                } else {
+                    chunk.add(target);
                 }
             }
+            List<PostingRequest> requests = chunk.stream()
+                    .map(t -> new PostingRequest(t.accountId(), Transaction.TransactionType.DEPOSIT, amount, text,
+                            referencePrefix + t.memberId()))
+                    .toList();
+            List<PostingBatchApplier.Outcome> outcomes = postingBatchApplier.apply(requests);
+            for (int i = 0; i < chunk.size(); i++) {
+                BulkDepositTarget target = chunk.get(i);
+                PostingBatchApplier.Outcome outcome = outcomes.get(i);
+                if (outcome.error() != null) {
+                    logger.error("Failed to deposit for member {}: {}", target.employeeId(), outcome.error().getMessage());
+                    errors.add("Member " + target.employeeId() + ": " + outcome.error().getMessage());
+                    continue;
+                }
+                PostingResult posted = outcome.result();
+                Map<String, Object> depositInfo = new java.util.HashMap<>();
+                depositInfo.put("memberId", target.memberId());
+                depositInfo.put("memberName", target.memberName());
+                depositInfo.put("employeeId", target.employeeId());
+                depositInfo.put("accountNumber", target.accountNumber());
+                depositInfo.put("amount", Money.toDecimal(amount));
+                depositInfo.put("newBalance", Money.toDecimal(posted.balanceAfter()));
+                depositInfo.put("transactionRef", posted.referenceNumber());
+                successfulDeposits.add(depositInfo);
+                successCount++;
+            }
+        }
 
-            // Prepare result summary
-            Map<String, Object> result = new java.util.HashMap<>();
-            result.put("totalMembers", activeMembers.size());
-            result.put("successCount", successCount);
-            result.put("failureCount", failureCount);
-            result.put("totalAmount", successCount * amount);
-            result.put("successfulDeposits", successfulDeposits);
-            result.put("errors", errors);
+        int failureCount = targets.size() - successCount - alreadyPosted.size();
+        Map<String, Object> result = new java.util.HashMap<>();
+        result.put("runKey", key);
+        result.put("totalMembers", targets.size());
+        result.put("successCount", successCount);
+        result.put("alreadyPostedCount", alreadyPosted.size());
+        result.put("alreadyPosted", alreadyPosted);
+        result.put("failureCount", failureCount);
+        result.put("totalAmount", Money.toDecimal(Money.multiply(amount, successCount)));
+        result.put("successfulDeposits", successfulDeposits);
+        result.put("errors", errors);
+
+        logger.info("Bulk deposit {} completed: {} successes, {} already posted, {} failures",
+                key, successCount, alreadyPosted.size(), failureCount);
+        return result;
+    }
 
-            logger.info("Bulk deposit completed: {} successes, {} failures", successCount, failureCount);
-            return result;
+    private Set<String> postedReferences(List<String> references) {
+        Set<String> posted = new HashSet<>();
+        if (references.isEmpty()) {
+            return posted;
+        }
+        Object[] values = references.toArray();
+        jdbcTemplate.query(POSTED_REFERENCES_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", values)),
+                rs -> {
+                    posted.add(rs.getString(1));
+                });
+        return posted;
+    }
 
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Invalid work domain: " + workDomain + ". Valid domains: ACADEMIC, ADMINISTRATION, CONTRACT, OTHER");
-        } catch (Exception e) {
-            logger.error("Error in bulk deposit: {}", e.getMessage(), e);
-            throw new RuntimeException("Bulk deposit failed: " + e.getMessage());
+    private record BulkDepositTarget(Long memberId, String employeeId, String memberName,
+                                     Long accountId, String accountNumber) {
+    }
+
+    // ========== LEDGER MODE ==========
+    // Postings only append. The balance comes from the ledger under the account's ledger
+    // lock, and current_balance is rewritten later by LedgerService.refreshProjections.
+    // The account row is written only by conditional updates that rarely match, and
+    // before the ledger lock, which keeps the lock order of the batch writers (account
+    // row, then ledger row).
+    private Transaction appendToLedger(SavingAccount account, Transaction.TransactionType type,
+                                       long amount, String description) {
+        Long accountId = account.getId();
+        LocalDateTime now = LocalDateTime.now();
+        boolean rowChanged = false;
+        if (account instanceof FormalSavingAccount && type == Transaction.TransactionType.DEPOSIT) {
+            LocalDate today = now.toLocalDate();
+            if (jdbcTemplate.update(CLAIM_MONTHLY_DEPOSIT_SQL, Date.valueOf(today), accountId,
+                    Date.valueOf(today.withDayOfMonth(1))) == 0) {
+                throw new IllegalArgumentException("Monthly deposit already made this month");
+            }
+            rowChanged = true;
         }
+        rowChanged |= jdbcTemplate.update(RECORD_ACTIVITY_SQL, Timestamp.valueOf(now), accountId,
+                Timestamp.valueOf(now.minus(ACTIVITY_GRANULARITY))) > 0;
+
+        ledgerService.lock(accountId);
+        long balance = ledgerService.balance(accountId).balance();
+        if (type == Transaction.TransactionType.WITHDRAWAL) {
+            checkWithdrawal(account, balance, amount);
+        }
+
+        Transaction tx = new Transaction(amount, type, description);
+        tx.setAccount(account);
+        tx.setReferenceNumber(generateReferenceNumber());
+        transactionRepository.save(tx);
+
+        // The returned account carries the new balance without flushing it to the row.
+        entityManager.detach(account);
+        account.setCurrentBalance(type.isCredit() ? Money.add(balance, amount) : Money.subtract(balance, amount));
+        if (rowChanged) {
+            evictAfterCommit(accountId);
+        }
+        return tx;
+    }
+
+    private void evictAfterCommit(Long accountId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityCacheService.evictAccounts(List.of(accountId));
+            }
+        });
     }
 
     // ========== HELPERS ==========
+    // The account entity is cached (region "accounts"), but the balance and the monthly
+    // deposit date it carries must be read from the row, under a row lock held until
+    // commit, or two postings can both start from the same cached balance. In ledger mode
+    // postings never read those fields from the entity, so the cached copy is enough.
+    private SavingAccount loadForPosting(Long accountId) {
+        if (ledgerService.isEnabled()) {
+            return getAccount(accountId);
+        }
+        try {
+            return lockForPosting(entityManager.getReference(SavingAccount.class, accountId));
+        } catch (EntityNotFoundException | ObjectNotFoundException e) {
+            throw new IllegalArgumentException("Account not found: " + accountId);
+        }
+    }
+
+    // refresh() reads the row with SELECT ... FOR UPDATE, bypassing the second-level cache
+    // and overwriting state loaded earlier in this persistence context.
+    private SavingAccount lockForPosting(SavingAccount account) {
+        entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE);
+        return Hibernate.unproxy(account, SavingAccount.class);
+    }
+
+    private void checkWithdrawal(SavingAccount account, long balance, long amount) {
+        Long todayWithdrawals = transactionRepository.getTodayWithdrawalTotal(account.getId());
+        PostingRules.checkWithdrawal(account.getIsActive(), account instanceof FormalSavingAccount,
+                balance, todayWithdrawals != null ? todayWithdrawals : 0L, amount);
+    }
+
     private String generateAccountNumber(String type) {
-        String timestamp = String.valueOf(System.currentTimeMillis());
-        String random = String.format("%04d", (int)(Math.random() * 10000));
-        return type + "-" + timestamp.substring(timestamp.length() - 8) + random;
+        return idGenerator.nextAccountNumber(type);
     }
 
     private String generateReferenceNumber() {
-        return "TXN" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return idGenerator.nextReferenceNumber();
     }
 }
@@ -0,0 +1,230 @@
+package org.wldu.webservices.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Coordination-free generator for account numbers and transaction references.
+ *
+ * Ids are 63-bit Snowflake values: 41 bits of milliseconds since 2024-01-01, 10 bits
+ * of node id and a 12-bit per-millisecond sequence. The timestamp and sequence are
+ * packed in one AtomicLong and advanced with CAS, so ids are strictly increasing per
+ * node without locks. When the sequence is exhausted, or the clock steps back, the
+ * caller waits until the clock passes the last millisecond used; ids never run ahead of
+ * the clock, so a restarted node cannot reissue them.
+ *
+ * The node id is either configured (savings.ids.node-id) or leased from id_node_leases
+ * at startup and renewed while the instance runs. If a renewal finds the lease gone
+ * (the instance stalled past its expiry and another one may hold the id), no further
+ * ids are issued.
+ *
+ * Ids are rendered as 13 Crockford base32 characters followed by a Luhn mod 32 check
+ * character, which catches any single mistyped character and adjacent transpositions.
+ */
+@Component
+public class SnowflakeIdGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnowflakeIdGenerator.class);
+
+    private static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long MAX_PARK_MILLIS = 10;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13;
+
+    private static final String LEASE_SQL =
+            "UPDATE id_node_leases SET holder = ?, expires_at = LOCALTIMESTAMP + make_interval(secs => ?) " +
+            "WHERE node_id = (SELECT node_id FROM id_node_leases WHERE expires_at < LOCALTIMESTAMP " +
+            "                 ORDER BY expires_at, node_id LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+            "RETURNING node_id";
+
+    private static final String RENEW_SQL =
+            "UPDATE id_node_leases SET expires_at = LOCALTIMESTAMP + make_interval(secs => ?) " +
+            "WHERE node_id = ? AND holder = ? AND expires_at >= LOCALTIMESTAMP";
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    private final AtomicLong state = new AtomicLong();
+
+    // Set only when the node id is leased.
+    private final JdbcTemplate jdbcTemplate;
+    private final String leaseHolder;
+    private final int leaseSeconds;
+    private volatile boolean leaseLost;
+
+    @Autowired
+    public SnowflakeIdGenerator(@Value("${savings.ids.node-id:-1}") long configuredNodeId,
+                                @Value("${savings.ids.node-lease-seconds:60}") int leaseSeconds,
+                                JdbcTemplate jdbcTemplate) {
+        this.clock = System::currentTimeMillis;
+        if (configuredNodeId >= 0) {
+            this.nodeId = checkNodeId(configuredNodeId);
+            this.jdbcTemplate = null;
+            this.leaseHolder = null;
+            this.leaseSeconds = 0;
+        } else {
+            this.jdbcTemplate = jdbcTemplate;
+            this.leaseHolder = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+            this.leaseSeconds = leaseSeconds;
+            this.nodeId = leaseNodeId();
+        }
+        logger.info("Id generator using node id {}", nodeId);
+    }
+
+    SnowflakeIdGenerator(long nodeId, LongSupplier clock) {
+        this.nodeId = checkNodeId(nodeId);
+        this.clock = clock;
+        this.jdbcTemplate = null;
+        this.leaseHolder = null;
+        this.leaseSeconds = 0;
+    }
+
+    public long nextId() {
+        if (leaseLost) {
+            throw new IllegalStateException("Node id lease " + nodeId + " was lost; restart to lease a new one");
+        }
+        while (true) {
+            long last = state.get();
+            long lastMillis = last >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            long next;
+            if (now > lastMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if (now == lastMillis && (last & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = last + 1;
+            } else {
+                awaitMillisAfter(lastMillis, now);
+                continue;
+            }
+            if (state.compareAndSet(last, next)) {
+                return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public String nextAccountNumber(String type) {
+        return type + "-" + encode(nextId());
+    }
+
+    public String nextReferenceNumber() {
+        return "TXN" + encode(nextId());
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    // ========== NODE ID LEASE ==========
+
+    @Scheduled(fixedDelayString = "${savings.ids.node-lease-seconds:60}", timeUnit = TimeUnit.SECONDS,
+            initialDelayString = "${savings.ids.node-lease-seconds:60}")
+    public void renewLease() {
+        if (leaseHolder == null || leaseLost) {
+            return;
+        }
+        // Runs every lease period against a lease of twice that, so one missed run is tolerated.
+        if (jdbcTemplate.update(RENEW_SQL, 2 * leaseSeconds, nodeId, leaseHolder) == 0) {
+            leaseLost = true;
+            logger.error("Lease on node id {} expired before it was renewed; id generation stopped", nodeId);
+        }
+    }
+
+    private long leaseNodeId() {
+        List<Long> leased = jdbcTemplate.queryForList(LEASE_SQL, Long.class, leaseHolder, 2 * leaseSeconds);
+        if (leased.isEmpty()) {
+            throw new IllegalStateException("No free node id in id_node_leases; all " + (MAX_NODE_ID + 1) + " are leased");
+        }
+        return leased.get(0);
+    }
+
+    private static long checkNodeId(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("savings.ids.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        return nodeId;
+    }
+
+    // Waits for the clock to pass lastMillis: briefly when the sequence is exhausted, for
+    // as long as the step when the clock moved back.
+    private void awaitMillisAfter(long lastMillis, long now) {
+        long behind = lastMillis - now;
+        if (behind > 0) {
+            logger.warn("Clock moved back {} ms; waiting for it to catch up before issuing ids", behind);
+        }
+        while (now <= lastMillis) {
+            if (lastMillis - now >= 1) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.min(lastMillis - now, MAX_PARK_MILLIS)));
+            } else {
+                Thread.onSpinWait();
+            }
+            now = clock.getAsLong() - EPOCH_MILLIS;
+        }
+    }
+
+    // ========== ENCODING ==========
+
+    public static String encode(long id) {
+        char[] out = new char[ENCODED_LENGTH + 1];
+        long value = id;
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            out[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        out[ENCODED_LENGTH] = ALPHABET[checkValue(out, ENCODED_LENGTH)];
+        return new String(out);
+    }
+
+    /** True if the trailing check character matches the 13 characters before it. */
+    public static boolean isValid(String encoded) {
+        if (encoded == null || encoded.length() < ENCODED_LENGTH + 1) {
+            return false;
+        }
+        char[] chars = encoded.substring(encoded.length() - ENCODED_LENGTH - 1).toCharArray();
+        for (char c : chars) {
+            if (indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return ALPHABET[checkValue(chars, ENCODED_LENGTH)] == chars[ENCODED_LENGTH];
+    }
+
+    // Luhn mod N over the base32 code points.
+    private static int checkValue(char[] chars, int length) {
+        int factor = 2;
+        int sum = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            int addend = factor * indexOf(chars[i]);
+            factor = factor == 2 ? 1 : 2;
+            sum += addend / 32 + addend % 32;
+        }
+        return (32 - sum % 32) % 32;
+    }
+
+    private static int indexOf(char c) {
+        for (int i = 0; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,185 @@
+package org.wldu.webservices.services;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.wldu.webservices.entities.Transaction;
+import org.wldu.webservices.money.Money;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Produces account statements for a date range.
+ *
+ * In ledger mode the opening balance is seeded from the nearest balance snapshot before
+ * the start of the range plus at most one snapshot interval of postings. Otherwise (and
+ * for ranges starting before the ledger was enabled) it is rolled back from the current
+ * balance, which reads every posting from the start of the range up to now, not just up
+ * to its end, so statements for old ranges of busy accounts cost more. Movements are then
+ * streamed in (transaction_date, id) order through a server-side cursor and folded into a
+ * running balance as they are written, so memory use does not depend on the number of
+ * movements.
+ */
+@Service
+public class StatementService {
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final String HEADER_SQL =
+            "SELECT sa.account_number, sa.current_balance - COALESCE(SUM(" +
+            "CASE WHEN t.transaction_type IN ('DEPOSIT', 'INTEREST') THEN t.amount ELSE -t.amount END), 0) " +
+            "FROM saving_accounts sa " +
+            "LEFT JOIN transactions t ON t.account_id = sa.id AND t.transaction_date >= ? " +
+            "WHERE sa.id = ? " +
+            "GROUP BY sa.account_number, sa.current_balance";
+
+    private static final String ACCOUNT_NUMBER_SQL = "SELECT account_number FROM saving_accounts WHERE id = ?";
+
+    private static final String POSTED_SINCE_SQL =
+            "SELECT COALESCE(SUM(ledger_signed_amount(transaction_type, amount)), 0) FROM transactions " +
+            "WHERE account_id = ? AND transaction_date >= ?";
+
+    private static final String MOVEMENTS_SQL =
+            "SELECT transaction_date, reference_number, transaction_type, description, amount " +
+            "FROM transactions " +
+            "WHERE account_id = ? AND transaction_date >= ? AND transaction_date < ? " +
+            "ORDER BY transaction_date, id";
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionPartitionService partitionService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    public StatementService(DataSource dataSource) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /** Resolves the account and opening balance up front so a bad request fails before streaming starts. */
+    public StatementHeader prepareStatement(Long accountId, LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("Statement period must have from <= to");
+        }
+        // The opening balance is rolled back from live movements, which no longer include archived months.
+        partitionService.getArchivedBefore().ifPresent(limit -> {
+            if (from.isBefore(limit)) {
+                throw new IllegalArgumentException("Statements are only available from " + limit);
+            }
+        });
+        try {
+            if (ledgerService.isEnabled()) {
+                return ledgerHeader(accountId, from, to);
+            }
+            return streamingJdbcTemplate.queryForObject(HEADER_SQL,
+                    (rs, i) -> new StatementHeader(accountId, rs.getString(1), from, to, rs.getLong(2)),
+                    Timestamp.valueOf(from.atStartOfDay()), accountId);
+        } catch (EmptyResultDataAccessException e) {
+            throw new IllegalArgumentException("Account not found: " + accountId);
+        }
+    }
+
+    // current_balance is only a lagging projection in ledger mode, so even the rollback
+    // starts from the ledger balance.
+    private StatementHeader ledgerHeader(Long accountId, LocalDate from, LocalDate to) {
+        String accountNumber = streamingJdbcTemplate.queryForObject(ACCOUNT_NUMBER_SQL, String.class, accountId);
+        LocalDateTime start = from.atStartOfDay();
+        long opening;
+        if (ledgerService.isRecorded(start)) {
+            opening = ledgerService.balanceBefore(accountId, start);
+        } else {
+            Long postedSince = streamingJdbcTemplate.queryForObject(POSTED_SINCE_SQL, Long.class,
+                    accountId, Timestamp.valueOf(start));
+            opening = Money.subtract(ledgerService.balance(accountId).balance(), postedSince != null ? postedSince : 0L);
+        }
+        return new StatementHeader(accountId, accountNumber, from, to, opening);
+    }
+
+    public void writeStatement(StatementHeader header, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeNumberField("accountId", header.accountId());
+            json.writeStringField("accountNumber", header.accountNumber());
+            json.writeStringField("from", header.from().toString());
+            json.writeStringField("to", header.to().toString());
+            json.writeNumberField("openingBalance", Money.toDecimal(header.openingBalance()));
+            json.writeArrayFieldStart("entries");
+
+            RunningTotals totals = new RunningTotals(header.openingBalance());
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setReadOnly(true);
+            tx.executeWithoutResult(status -> streamingJdbcTemplate.query(MOVEMENTS_SQL, (RowCallbackHandler) rs -> {
+                Transaction.TransactionType type = Transaction.TransactionType.valueOf(rs.getString(3));
+                long amount = rs.getLong(5);
+                totals.apply(type, amount);
+                try {
+                    json.writeStartObject();
+                    json.writeStringField("date", rs.getTimestamp(1).toLocalDateTime().toString());
+                    json.writeStringField("referenceNumber", rs.getString(2));
+                    json.writeStringField("type", type.name());
+                    json.writeStringField("description", rs.getString(4));
+                    json.writeNumberField(type.isCredit() ? "credit" : "debit", Money.toDecimal(amount));
+                    json.writeNumberField("balance", Money.toDecimal(totals.balance));
+                    json.writeEndObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, header.accountId(), Timestamp.valueOf(header.from().atStartOfDay()),
+                    Timestamp.valueOf(header.to().plusDays(1).atStartOfDay())));
+
+            json.writeEndArray();
+            json.writeNumberField("entryCount", totals.entries);
+            json.writeNumberField("totalCredits", Money.toDecimal(totals.credits));
+            json.writeNumberField("totalDebits", Money.toDecimal(totals.debits));
+            json.writeNumberField("closingBalance", Money.toDecimal(totals.balance));
+            json.writeEndObject();
+        }
+    }
+
+    public record StatementHeader(Long accountId, String accountNumber, LocalDate from, LocalDate to,
+                                  long openingBalance) {
+    }
+
+    private static final class RunningTotals {
+        private long balance;
+        private long credits;
+        private long debits;
+        private int entries;
+
+        RunningTotals(long openingBalance) {
+            this.balance = openingBalance;
+        }
+
+        void apply(Transaction.TransactionType type, long amount) {
+            if (type.isCredit()) {
+                balance += amount;
+                credits += amount;
+            } else {
+                balance -= amount;
+                debits += amount;
+            }
+            entries++;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.wldu.webservices.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.wldu.webservices.dto.TransactionCursor;
+import org.wldu.webservices.dto.TransactionView;
+import org.wldu.webservices.entities.Transaction;
+import org.wldu.webservices.repositories.MemberRepository;
+import org.wldu.webservices.repositories.SavingAccountRepository;
+import org.wldu.webservices.repositories.TransactionRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class TransactionHistoryService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final Comparator<TransactionView> HISTORY_ORDER =
+            Comparator.comparing(TransactionView::transactionDate).reversed()
+                    .thenComparing(TransactionView::id);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private SavingAccountRepository savingAccountRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getAccountHistory(Long accountId, Transaction.TransactionType type,
+                                                 LocalDate from, LocalDate to, String cursor, int size) {
+        if (!savingAccountRepository.existsById(accountId)) {
+            throw new IllegalArgumentException("Account not found: " + accountId);
+        }
+        return page(List.of(accountId), type, from, to, cursor, size);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getMemberHistory(Long memberId, Transaction.TransactionType type,
+                                                LocalDate from, LocalDate to, String cursor, int size) {
+        if (!memberRepository.existsById(memberId)) {
+            throw new IllegalArgumentException("Member not found with id: " + memberId);
+        }
+        List<Long> accountIds = savingAccountRepository.findIdsByMemberId(memberId);
+        return page(accountIds, type, from, to, cursor, size);
+    }
+
+    private Map<String, Object> page(Collection<Long> accountIds, Transaction.TransactionType type,
+                                     LocalDate from, LocalDate to, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("From date must not be after to date");
+        }
+        TransactionCursor position = TransactionCursor.parse(cursor);
+        Collection<Transaction.TransactionType> types =
+                type != null ? EnumSet.of(type) : EnumSet.allOf(Transaction.TransactionType.class);
+        LocalDateTime fromTime = from != null ? from.atStartOfDay() : EARLIEST;
+        LocalDateTime toTime = to != null ? to.plusDays(1).atStartOfDay() : LATEST;
+
+        // Each account's page is one bounded index scan; the page is the first rows of their merge.
+        List<TransactionView> rows = new ArrayList<>();
+        for (Long accountId : accountIds) {
+            rows.addAll(transactionRepository.findHistoryPage(accountId, types, fromTime, toTime,
+                    position.transactionDate(), position.id(), Limit.of(size)));
+        }
+        if (accountIds.size() > 1) {
+            rows.sort(HISTORY_ORDER);
+            if (rows.size() > size) {
+                rows = new ArrayList<>(rows.subList(0, size));
+            }
+        }
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("content", rows);
+        page.put("size", rows.size());
+        page.put("nextCursor", rows.size() == size ? TransactionCursor.after(rows.get(rows.size() - 1)).toString() : null);
+        return page;
+    }
+}
@@ -0,0 +1,224 @@
+package org.wldu.webservices.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Maintains the monthly partitions of the transactions table.
+ *
+ * Partitions are named transactions_pYYYYMM and cover [first of month, first of next
+ * month). Upcoming months are created ahead of time so inserts never miss a partition;
+ * months older than the retention window are detached and moved into the archive
+ * schema, where they stay queryable but no longer widen scans on the live table.
+ * Postings outside every month land in transactions_default; creating their month
+ * moves them into the new partition.
+ */
+@Service
+public class TransactionPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionPartitionService.class);
+
+    private static final String PREFIX = "transactions_p";
+    private static final String DEFAULT_PARTITION = "transactions_default";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String ATTACHED_SQL =
+            "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'transactions'::regclass ORDER BY c.relname";
+
+    private static final String DEFAULT_ROWS_SQL =
+            "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE transaction_date >= ? AND transaction_date < ?)";
+
+    private static final String ARCHIVED_SQL =
+            "SELECT c.relname FROM pg_class c " +
+            "JOIN pg_namespace n ON n.oid = c.relnamespace " +
+            "WHERE n.nspname = ? AND c.relkind = 'r' AND c.relname LIKE 'transactions\\_p%' ORDER BY c.relname";
+
+    // Ledger balances are a snapshot plus the postings after it, so before a month leaves the
+    // live table every account with postings in it gets a snapshot at its last one there.
+    // The balance sums everything up to that sequence number, wherever it was dated.
+    private static final String SNAPSHOT_PARTITION_SQL =
+            "INSERT INTO balance_snapshots (account_id, sequence_number, balance, taken_at) " +
+            "SELECT p.account_id, p.sequence_number, COALESCE(s.balance, 0) + tail.amount, " +
+            "       GREATEST(s.taken_at, tail.taken_at) " +
+            "  FROM (SELECT account_id, MAX(sequence_number) AS sequence_number FROM %s " +
+            "         WHERE sequence_number IS NOT NULL GROUP BY account_id) p " +
+            "  LEFT JOIN LATERAL (SELECT bs.sequence_number, bs.balance, bs.taken_at FROM balance_snapshots bs " +
+            "         WHERE bs.account_id = p.account_id AND bs.sequence_number <= p.sequence_number " +
+            "         ORDER BY bs.sequence_number DESC LIMIT 1) s ON true " +
+            "  CROSS JOIN LATERAL (SELECT COALESCE(SUM(ledger_signed_amount(t.transaction_type, t.amount)), 0) AS amount, " +
+            "         MAX(t.transaction_date) AS taken_at FROM transactions t " +
+            "         WHERE t.account_id = p.account_id AND t.sequence_number > COALESCE(s.sequence_number, 0) " +
+            "           AND t.sequence_number <= p.sequence_number) tail " +
+            " WHERE s.sequence_number IS DISTINCT FROM p.sequence_number";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ClusterJobCoordinator jobCoordinator;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Value("${savings.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${savings.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${savings.partitions.archive-schema:archive}")
+    private String archiveSchema;
+
+    // Nodes starting together would otherwise all try to create the same months.
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensurePartitionsOnStartup() {
+        jobCoordinator.runAsLeader("partitions", this::createUpcomingPartitions);
+    }
+
+    @Scheduled(cron = "${savings.partitions.cron:0 0 3 * * *}")
+    public void scheduledMaintenance() {
+        jobCoordinator.runAsLeader("partitions", () -> {
+            createUpcomingPartitions();
+            if (retentionMonths > 0) {
+                archivePartitionsBefore(YearMonth.now().minusMonths(retentionMonths));
+            }
+        });
+    }
+
+    // ========== READ OPERATIONS ==========
+
+    public Map<String, Object> getPartitions() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("attached", jdbcTemplate.queryForList(ATTACHED_SQL, String.class));
+        result.put("archived", jdbcTemplate.queryForList(ARCHIVED_SQL, String.class, archiveSchema));
+        result.put("defaultPartitionRows",
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + DEFAULT_PARTITION, Long.class));
+        result.put("monthsAhead", monthsAhead);
+        result.put("retentionMonths", retentionMonths);
+        return result;
+    }
+
+    /** First day not covered by archived partitions, if any month has been archived. */
+    public Optional<LocalDate> getArchivedBefore() {
+        List<String> archived = jdbcTemplate.queryForList(ARCHIVED_SQL, String.class, archiveSchema);
+        if (archived.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(monthOf(archived.get(archived.size() - 1)).plusMonths(1).atDay(1));
+    }
+
+    // ========== MAINTENANCE ==========
+
+    public List<String> createUpcomingPartitions() {
+        List<String> created = new ArrayList<>();
+        List<String> attached = jdbcTemplate.queryForList(ATTACHED_SQL, String.class);
+        YearMonth month = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++, month = month.plusMonths(1)) {
+            String name = partitionName(month);
+            if (attached.contains(name)) {
+                continue;
+            }
+            createPartition(name, month);
+            created.add(name);
+        }
+        if (!created.isEmpty()) {
+            logger.info("Created transaction partitions {}", created);
+        }
+        return created;
+    }
+
+    // A new month cannot be attached while the default partition holds rows of that month,
+    // so those rows are copied into the new table and removed from the default first.
+    // The admin endpoint can still race the maintenance job, so the move serializes on the
+    // parent table (ATTACH takes the same lock) and whoever comes second finds the month attached.
+    private void createPartition(String name, YearMonth month) {
+        String bounds = "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')";
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(DEFAULT_ROWS_SQL, Boolean.class, from, to))) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF transactions " + bounds);
+            return;
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE transactions IN SHARE UPDATE EXCLUSIVE MODE");
+            if (jdbcTemplate.queryForList(ATTACHED_SQL, String.class).contains(name)) {
+                return;
+            }
+            jdbcTemplate.execute("SET LOCAL savings.partition_maintenance = 'on'");
+            jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE transactions INCLUDING DEFAULTS)");
+            int moved = jdbcTemplate.update("INSERT INTO " + name + " SELECT * FROM " + DEFAULT_PARTITION +
+                    " WHERE transaction_date >= ? AND transaction_date < ?", from, to);
+            jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION +
+                    " WHERE transaction_date >= ? AND transaction_date < ?", from, to);
+            jdbcTemplate.execute("ALTER TABLE transactions ATTACH PARTITION " + name + " " + bounds);
+            logger.info("Moved {} postings from {} into new partition {}", moved, DEFAULT_PARTITION, name);
+        });
+    }
+
+    public Map<String, Object> archivePartitionsBefore(YearMonth cutoff) {
+        if (!cutoff.isBefore(YearMonth.now())) {
+            throw new IllegalArgumentException("Only months before the current month can be archived");
+        }
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + archiveSchema);
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<String> archived = new ArrayList<>();
+        for (String name : jdbcTemplate.queryForList(ATTACHED_SQL, String.class)) {
+            if (!name.startsWith(PREFIX) || !monthOf(name).isBefore(cutoff)) {
+                continue;
+            }
+            tx.executeWithoutResult(status -> {
+                if (ledgerService.isEnabled()) {
+                    // Holds off late postings into the month until it is detached.
+                    jdbcTemplate.execute("LOCK TABLE " + name + " IN EXCLUSIVE MODE");
+                    int snapshots = jdbcTemplate.update(SNAPSHOT_PARTITION_SQL.formatted(name));
+                    logger.info("Wrote {} balance snapshots before archiving {}", snapshots, name);
+                }
+                jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + name);
+                jdbcTemplate.execute("ALTER TABLE " + name + " SET SCHEMA " + archiveSchema);
+            });
+            archived.add(name);
+        }
+        if (!archived.isEmpty()) {
+            logger.info("Archived transaction partitions {} into schema {}", archived, archiveSchema);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("cutoff", cutoff.toString());
+        result.put("archiveSchema", archiveSchema);
+        result.put("archived", archived);
+        return result;
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PREFIX + month.format(SUFFIX);
+    }
+
+    private static YearMonth monthOf(String partitionName) {
+        return YearMonth.parse(partitionName.substring(PREFIX.length()), SUFFIX);
+    }
+}
@@ -0,0 +1,27 @@
+-- Amount columns move from double precision ETB to bigint santim (1/100 ETB).
+-- Runs before Hibernate schema update, so on an empty database the tables do not
+-- exist yet and Hibernate creates them with bigint columns directly.
+DO $$
+DECLARE
+    col record;
+BEGIN
+    FOR col IN
+        SELECT table_name, column_name
+          FROM information_schema.columns
+         WHERE table_schema = current_schema()
+           AND data_type IN ('double precision', 'real', 'numeric')
+           AND (table_name, column_name) IN (
+                ('saving_accounts', 'current_balance'),
+                ('saving_accounts', 'monthly_amount'),
+                ('saving_accounts', 'target_amount'),
+                ('saving_accounts', 'daily_withdrawal_limit'),
+                ('saving_accounts', 'minimum_balance'),
+                ('transactions', 'amount'),
+                ('shares', 'share_value'),
+                ('members', 'registration_fee'),
+                ('interest_run_checkpoints', 'total_interest'))
+    LOOP
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN %I TYPE bigint USING round(%I * 100)::bigint',
+                       col.table_name, col.column_name, col.column_name);
+    END LOOP;
+END $$;
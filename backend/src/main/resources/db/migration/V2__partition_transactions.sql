@@ -0,0 +1,62 @@
+-- transactions becomes a table range-partitioned by transaction_date month.
+-- Keys on a partitioned table must include the partition key, so the primary key is
+-- (id, transaction_date) and reference_number is indexed but no longer unique
+-- (references are Snowflake ids and unique by construction).
+-- Upcoming partitions are created by TransactionPartitionService.
+CREATE SEQUENCE IF NOT EXISTS transaction_ids;
+
+CREATE TABLE transactions_partitioned (
+    id               bigint       NOT NULL DEFAULT nextval('transaction_ids'),
+    amount           bigint       NOT NULL,
+    transaction_type varchar(20)  NOT NULL,
+    description      varchar(255),
+    transaction_date timestamp(6) NOT NULL,
+    reference_number varchar(50),
+    account_id       bigint       NOT NULL
+) PARTITION BY RANGE (transaction_date);
+
+DO $$
+DECLARE
+    first_month date := date_trunc('month', CURRENT_DATE)::date;
+    last_month  date := (date_trunc('month', CURRENT_DATE) + INTERVAL '3 months')::date;
+    m           date;
+BEGIN
+    IF to_regclass('transactions') IS NOT NULL THEN
+        SELECT LEAST(first_month, COALESCE(date_trunc('month', MIN(transaction_date))::date, first_month))
+          INTO first_month
+          FROM transactions;
+    END IF;
+
+    m := first_month;
+    WHILE m <= last_month LOOP
+        EXECUTE format('CREATE TABLE transactions_p%s PARTITION OF transactions_partitioned FOR VALUES FROM (%L) TO (%L)',
+                       to_char(m, 'YYYYMM'), m, (m + INTERVAL '1 month')::date);
+        m := (m + INTERVAL '1 month')::date;
+    END LOOP;
+
+    IF to_regclass('transactions') IS NOT NULL THEN
+        INSERT INTO transactions_partitioned
+               (id, amount, transaction_type, description, transaction_date, reference_number, account_id)
+        SELECT id, amount, transaction_type, description, transaction_date, reference_number, account_id
+          FROM transactions;
+        PERFORM setval('transaction_ids', COALESCE((SELECT MAX(id) FROM transactions), 0) + 1, false);
+        DROP TABLE transactions;
+    END IF;
+END $$;
+
+ALTER TABLE transactions_partitioned RENAME TO transactions;
+ALTER SEQUENCE transaction_ids OWNED BY transactions.id;
+ALTER TABLE transactions ADD CONSTRAINT transactions_pkey PRIMARY KEY (id, transaction_date);
+
+CREATE INDEX idx_transaction_account_date ON transactions (account_id, transaction_date DESC, id);
+CREATE INDEX idx_transaction_date ON transactions (transaction_date);
+CREATE INDEX idx_transaction_reference ON transactions (reference_number);
+
+-- On an empty database saving_accounts does not exist yet; Hibernate adds the key after creating it.
+DO $$
+BEGIN
+    IF to_regclass('saving_accounts') IS NOT NULL THEN
+        ALTER TABLE transactions ADD CONSTRAINT fk_transactions_account
+            FOREIGN KEY (account_id) REFERENCES saving_accounts (id);
+    END IF;
+END $$;
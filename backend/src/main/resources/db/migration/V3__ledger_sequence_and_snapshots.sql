@@ -0,0 +1,106 @@
+-- Append-only ledger: every posting gets a per-account sequence number, and every
+-- SNAPSHOT_INTERVAL-th posting records the account balance after it. A balance is the
+-- latest snapshot plus the (bounded) tail of postings after it.
+--
+-- Numbering happens in a trigger so every writer (teller postings, the monthly deposit
+-- and interest batch statements) is covered without coordination in Java. Postings
+-- for one account are serialized on pg_advisory_xact_lock(account_id); the single
+-- bigint key space is reserved for ledger locks.
+
+ALTER TABLE transactions ADD COLUMN sequence_number bigint;
+
+UPDATE transactions t
+   SET sequence_number = s.seq
+  FROM (SELECT id, transaction_date,
+               row_number() OVER (PARTITION BY account_id ORDER BY transaction_date, id) AS seq
+          FROM transactions) s
+ WHERE t.id = s.id AND t.transaction_date = s.transaction_date;
+
+CREATE INDEX idx_transaction_account_sequence ON transactions (account_id, sequence_number);
+
+-- taken_at is the latest transaction_date among postings 1..sequence_number, so a
+-- snapshot with taken_at <= T never includes a posting dated after T.
+CREATE TABLE balance_snapshots (
+    account_id      bigint       NOT NULL,
+    sequence_number bigint       NOT NULL,
+    balance         bigint       NOT NULL,
+    taken_at        timestamp(6) NOT NULL,
+    PRIMARY KEY (account_id, sequence_number)
+);
+
+CREATE INDEX idx_balance_snapshot_taken ON balance_snapshots (account_id, taken_at);
+
+-- Existing accounts start from a snapshot of their current balance at their last posting.
+DO $$
+BEGIN
+    IF to_regclass('saving_accounts') IS NOT NULL THEN
+        INSERT INTO balance_snapshots (account_id, sequence_number, balance, taken_at)
+        SELECT sa.id, COALESCE(MAX(t.sequence_number), 0), sa.current_balance,
+               COALESCE(MAX(t.transaction_date), CAST(sa.opening_date AS timestamp), LOCALTIMESTAMP)
+          FROM saving_accounts sa
+          LEFT JOIN transactions t ON t.account_id = sa.id
+         GROUP BY sa.id, sa.current_balance, sa.opening_date;
+    END IF;
+END $$;
+
+CREATE FUNCTION ledger_signed_amount(transaction_type varchar, amount bigint) RETURNS bigint
+    LANGUAGE sql IMMUTABLE AS
+$$ SELECT CASE WHEN transaction_type IN ('DEPOSIT', 'INTEREST') THEN amount ELSE -amount END $$;
+
+CREATE FUNCTION ledger_append() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    snapshot_interval CONSTANT bigint := 100;
+    snap_seq     bigint := 0;
+    snap_balance bigint := 0;
+    snap_at      timestamp := '-infinity';
+    tail_seq     bigint;
+    tail_sum     bigint;
+    tail_at      timestamp;
+BEGIN
+    PERFORM pg_advisory_xact_lock(NEW.account_id);
+
+    SELECT s.sequence_number, s.balance, s.taken_at
+      INTO snap_seq, snap_balance, snap_at
+      FROM balance_snapshots s
+     WHERE s.account_id = NEW.account_id
+     ORDER BY s.sequence_number DESC
+     LIMIT 1;
+    snap_seq := COALESCE(snap_seq, 0);
+
+    SELECT MAX(t.sequence_number) INTO tail_seq
+      FROM transactions t
+     WHERE t.account_id = NEW.account_id AND t.sequence_number > snap_seq;
+    NEW.sequence_number := COALESCE(tail_seq, snap_seq) + 1;
+
+    IF NEW.sequence_number % snapshot_interval = 0 THEN
+        SELECT COALESCE(SUM(ledger_signed_amount(t.transaction_type, t.amount)), 0), MAX(t.transaction_date)
+          INTO tail_sum, tail_at
+          FROM transactions t
+         WHERE t.account_id = NEW.account_id AND t.sequence_number > snap_seq;
+        INSERT INTO balance_snapshots (account_id, sequence_number, balance, taken_at)
+        VALUES (NEW.account_id, NEW.sequence_number,
+                COALESCE(snap_balance, 0) + tail_sum + ledger_signed_amount(NEW.transaction_type, NEW.amount),
+                GREATEST(snap_at, tail_at, NEW.transaction_date));
+    END IF;
+    RETURN NEW;
+END
+$$;
+
+CREATE TRIGGER trg_transactions_ledger_append
+    BEFORE INSERT ON transactions
+    FOR EACH ROW EXECUTE FUNCTION ledger_append();
+
+-- Postings are immutable.
+CREATE FUNCTION ledger_reject_change() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    RAISE EXCEPTION 'transactions are append-only';
+END
+$$;
+
+CREATE TRIGGER trg_transactions_immutable
+    BEFORE UPDATE OR DELETE ON transactions
+    FOR EACH ROW EXECUTE FUNCTION ledger_reject_change();
@@ -0,0 +1,25 @@
+-- Work queue for batch jobs split into account-id ranges. The leader node enqueues
+-- one row per range; every node claims PENDING rows with FOR UPDATE SKIP LOCKED, so
+-- ranges are worked in parallel across the cluster and never by two nodes at once.
+-- A RUNNING row whose lease (claimed_at) has expired belongs to a dead node and is
+-- claimable again; range handlers are idempotent, so re-running one is safe.
+
+CREATE TABLE IF NOT EXISTS job_ranges (
+    job_key      varchar(60)  NOT NULL,
+    range_start  bigint       NOT NULL,
+    range_end    bigint       NOT NULL,
+    job_type     varchar(30)  NOT NULL,
+    params       varchar(200),
+    status       varchar(10)  NOT NULL DEFAULT 'PENDING',
+    attempts     integer      NOT NULL DEFAULT 0,
+    claimed_by   varchar(100),
+    claimed_at   timestamp(6),
+    completed_at timestamp(6),
+    processed    integer,
+    last_error   varchar(500),
+    created_at   timestamp(6) NOT NULL DEFAULT LOCALTIMESTAMP,
+    PRIMARY KEY (job_key, range_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_job_ranges_claimable ON job_ranges (status, claimed_at)
+    WHERE status IN ('PENDING', 'RUNNING');
@@ -0,0 +1,5 @@
+-- idx_account_monthly_deposit led with last_monthly_deposit_date before id, so the
+-- due-account keyset scan (ORDER BY id) could not walk it in id order and sorted every
+-- due row per page. Hibernate creates its replacement, idx_account_monthly_due
+-- (account_type, is_active, id, last_monthly_deposit_date), after this runs.
+DROP INDEX IF EXISTS idx_account_monthly_deposit;
@@ -0,0 +1,50 @@
+-- A unique index on the partitioned transactions table would have to include
+-- transaction_date, which does not stop the same reference being posted twice at
+-- different times. References are claimed in a side table instead. The BEFORE INSERT
+-- trigger covers every writer, and a duplicate fails the insert with a unique violation.
+-- Rows stay in the side table when their partition is archived, so references are never
+-- reused.
+CREATE TABLE transaction_references (
+    reference_number varchar(50)  NOT NULL PRIMARY KEY,
+    transaction_id   bigint       NOT NULL,
+    transaction_date timestamp(6) NOT NULL
+);
+
+INSERT INTO transaction_references (reference_number, transaction_id, transaction_date)
+SELECT reference_number, id, transaction_date
+  FROM transactions
+ WHERE reference_number IS NOT NULL
+ON CONFLICT (reference_number) DO NOTHING;
+
+CREATE FUNCTION transaction_reference_claim() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO transaction_references (reference_number, transaction_id, transaction_date)
+    VALUES (NEW.reference_number, NEW.id, NEW.transaction_date);
+    RETURN NEW;
+END
+$$;
+
+CREATE TRIGGER trg_transactions_reference_unique
+    BEFORE INSERT ON transactions
+    FOR EACH ROW WHEN (NEW.reference_number IS NOT NULL)
+    EXECUTE FUNCTION transaction_reference_claim();
+
+-- Postings dated outside every monthly partition land here instead of failing.
+-- TransactionPartitionService moves them into the month partition when it creates one.
+CREATE TABLE IF NOT EXISTS transactions_default PARTITION OF transactions DEFAULT;
+
+-- Postings stay immutable. The only exception is partition maintenance, which moves
+-- rows out of the default partition and sets savings.partition_maintenance for its
+-- own transaction.
+CREATE OR REPLACE FUNCTION ledger_reject_change() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF TG_OP = 'DELETE' AND current_setting('savings.partition_maintenance', true) = 'on' THEN
+        RETURN OLD;
+    END IF;
+    RAISE EXCEPTION 'transactions are append-only';
+END
+$$;
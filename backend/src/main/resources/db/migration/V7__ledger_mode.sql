@@ -0,0 +1,173 @@
+-- Ledger mode becomes a database switch (ledger_state) that the append trigger reads.
+-- While it is off, inserts skip numbering, snapshots and locking altogether. The
+-- application flips it at startup from savings.ledger.enabled via ledger_set_enabled().
+--
+-- Postings on one account are serialized on its ledger_projection_queue row instead of
+-- pg_advisory_xact_lock. A row lock is kept in the tuple, not in the shared lock table,
+-- so a batch statement touching thousands of accounts cannot run out of lock slots. The
+-- same row marks the account's current_balance projection as stale until
+-- ledger_refresh_projections() rewrites it from the ledger.
+
+CREATE TABLE ledger_state (
+    id         smallint     NOT NULL PRIMARY KEY CHECK (id = 1),
+    enabled    boolean      NOT NULL,
+    changed_at timestamp(6) NOT NULL
+);
+
+INSERT INTO ledger_state (id, enabled, changed_at) VALUES (1, false, LOCALTIMESTAMP);
+
+CREATE TABLE ledger_projection_queue (
+    account_id bigint       NOT NULL PRIMARY KEY,
+    queued_at  timestamp(6) NOT NULL
+);
+
+-- Locks the account's queue row (inserting it if needed) until the transaction ends.
+CREATE FUNCTION ledger_lock_account(account bigint) RETURNS void
+    LANGUAGE sql AS
+$$
+    INSERT INTO ledger_projection_queue (account_id, queued_at)
+    VALUES (account, LOCALTIMESTAMP)
+    ON CONFLICT (account_id) DO UPDATE SET queued_at = EXCLUDED.queued_at
+$$;
+
+CREATE OR REPLACE FUNCTION ledger_append() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    snapshot_interval CONSTANT bigint := 100;
+    snap_seq     bigint := 0;
+    snap_balance bigint := 0;
+    snap_at      timestamp := '-infinity';
+    tail_seq     bigint;
+    tail_sum     bigint;
+    tail_at      timestamp;
+BEGIN
+    IF NOT COALESCE((SELECT enabled FROM ledger_state WHERE id = 1), false) THEN
+        RETURN NEW;
+    END IF;
+
+    PERFORM ledger_lock_account(NEW.account_id);
+
+    SELECT s.sequence_number, s.balance, s.taken_at
+      INTO snap_seq, snap_balance, snap_at
+      FROM balance_snapshots s
+     WHERE s.account_id = NEW.account_id
+     ORDER BY s.sequence_number DESC
+     LIMIT 1;
+    snap_seq := COALESCE(snap_seq, 0);
+
+    SELECT MAX(t.sequence_number) INTO tail_seq
+      FROM transactions t
+     WHERE t.account_id = NEW.account_id AND t.sequence_number > snap_seq;
+    NEW.sequence_number := COALESCE(tail_seq, snap_seq) + 1;
+
+    IF NEW.sequence_number % snapshot_interval = 0 THEN
+        SELECT COALESCE(SUM(ledger_signed_amount(t.transaction_type, t.amount)), 0), MAX(t.transaction_date)
+          INTO tail_sum, tail_at
+          FROM transactions t
+         WHERE t.account_id = NEW.account_id AND t.sequence_number > snap_seq;
+        INSERT INTO balance_snapshots (account_id, sequence_number, balance, taken_at)
+        VALUES (NEW.account_id, NEW.sequence_number,
+                COALESCE(snap_balance, 0) + tail_sum + ledger_signed_amount(NEW.transaction_type, NEW.amount),
+                GREATEST(snap_at, tail_at, NEW.transaction_date));
+    END IF;
+    RETURN NEW;
+END
+$$;
+
+-- Rewrites current_balance from the ledger for up to max_accounts queued accounts and
+-- returns their ids. The queue rows are locked first, which holds off further postings
+-- on those accounts until this commits, so the balances read by the second statement
+-- include every posting they were queued for. Rows and accounts locked by in-flight
+-- work are left for the next call. Only one caller works at a time.
+CREATE FUNCTION ledger_refresh_projections(max_accounts integer) RETURNS bigint[]
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    due       bigint[];
+    refreshed bigint[];
+BEGIN
+    IF NOT pg_try_advisory_xact_lock(4998215, 1) THEN -- ("LDG", 1) in the two-int key space
+        RETURN '{}';
+    END IF;
+
+    SELECT array_agg(account_id) INTO due
+      FROM (SELECT account_id FROM ledger_projection_queue
+             ORDER BY account_id LIMIT max_accounts
+               FOR UPDATE SKIP LOCKED) q;
+    IF due IS NULL THEN
+        RETURN '{}';
+    END IF;
+
+    WITH locked AS (
+        SELECT id FROM saving_accounts WHERE id = ANY (due) ORDER BY id FOR UPDATE SKIP LOCKED
+    ), balances AS (
+        SELECT l.id,
+               COALESCE(s.balance, 0) + COALESCE((
+                   SELECT SUM(ledger_signed_amount(t.transaction_type, t.amount))
+                     FROM transactions t
+                    WHERE t.account_id = l.id AND t.sequence_number > COALESCE(s.sequence_number, 0)), 0) AS balance
+          FROM locked l
+          LEFT JOIN LATERAL (
+               SELECT bs.sequence_number, bs.balance FROM balance_snapshots bs
+                WHERE bs.account_id = l.id ORDER BY bs.sequence_number DESC LIMIT 1) s ON true
+    ), projected AS (
+        UPDATE saving_accounts sa SET current_balance = b.balance
+          FROM balances b WHERE sa.id = b.id
+        RETURNING sa.id
+    ), dequeued AS (
+        DELETE FROM ledger_projection_queue q USING projected p WHERE q.account_id = p.id
+        RETURNING q.account_id
+    )
+    SELECT COALESCE(array_agg(account_id), '{}') INTO refreshed FROM dequeued;
+    RETURN refreshed;
+END
+$$;
+
+-- Switches ledger mode; returns false when it already had the requested value.
+-- Both table locks wait for in-flight postings and hold off new ones, so no posting
+-- straddles the switch. A posting that races the switch may be aborted by deadlock
+-- detection and roll back.
+--   on:  current_balance is authoritative while the ledger is off, so every account
+--        restarts from a snapshot of it, numbered after everything already recorded.
+--   off: every stale projection is rewritten from the ledger, since plain postings
+--        will update current_balance in place from now on.
+CREATE FUNCTION ledger_set_enabled(enable boolean) RETURNS boolean
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    was_enabled boolean;
+BEGIN
+    LOCK TABLE ledger_projection_queue IN EXCLUSIVE MODE;
+    LOCK TABLE transactions IN SHARE MODE;
+    SELECT enabled INTO was_enabled FROM ledger_state WHERE id = 1 FOR UPDATE;
+    IF was_enabled = enable THEN
+        RETURN false;
+    END IF;
+
+    IF enable THEN
+        INSERT INTO balance_snapshots (account_id, sequence_number, balance, taken_at)
+        SELECT sa.id,
+               GREATEST(COALESCE((SELECT MAX(t.sequence_number) FROM transactions t WHERE t.account_id = sa.id), 0),
+                        COALESCE((SELECT MAX(s.sequence_number) FROM balance_snapshots s WHERE s.account_id = sa.id), 0)) + 1,
+               sa.current_balance, LOCALTIMESTAMP
+          FROM saving_accounts sa;
+        DELETE FROM ledger_projection_queue;
+    ELSE
+        UPDATE saving_accounts sa
+           SET current_balance = COALESCE(s.balance, 0) + COALESCE((
+                   SELECT SUM(ledger_signed_amount(t.transaction_type, t.amount))
+                     FROM transactions t
+                    WHERE t.account_id = sa.id AND t.sequence_number > COALESCE(s.sequence_number, 0)), 0)
+          FROM ledger_projection_queue q
+          LEFT JOIN LATERAL (
+               SELECT bs.sequence_number, bs.balance FROM balance_snapshots bs
+                WHERE bs.account_id = q.account_id ORDER BY bs.sequence_number DESC LIMIT 1) s ON true
+         WHERE sa.id = q.account_id;
+        DELETE FROM ledger_projection_queue;
+    END IF;
+
+    UPDATE ledger_state SET enabled = enable, changed_at = LOCALTIMESTAMP WHERE id = 1;
+    RETURN true;
+END
+$$;
@@ -0,0 +1,13 @@
+-- Snowflake node ids (0-1023) leased to running instances that do not configure
+-- savings.ids.node-id. A holder renews its lease well before it expires; an expired row
+-- can be taken by the next instance that starts. The longest-expired row is handed out
+-- first, so a reused node id continues long after its previous holder stopped issuing.
+
+CREATE TABLE id_node_leases (
+    node_id    smallint     NOT NULL PRIMARY KEY CHECK (node_id BETWEEN 0 AND 1023),
+    holder     varchar(255),
+    expires_at timestamp(6) NOT NULL
+);
+
+INSERT INTO id_node_leases (node_id, holder, expires_at)
+SELECT n, NULL, '-infinity' FROM generate_series(0, 1023) AS n;
@@ -0,0 +1,10 @@
+-- Rewritten by the replica health check on every node so that an idle primary still
+-- commits regularly. Replicas measure their lag as the age of the last commit they have
+-- replayed (pg_last_xact_replay_timestamp()), which this keeps meaningful.
+
+CREATE TABLE replication_heartbeat (
+    id      smallint    NOT NULL PRIMARY KEY CHECK (id = 1),
+    beat_at timestamptz NOT NULL
+);
+
+INSERT INTO replication_heartbeat (id, beat_at) VALUES (1, now());
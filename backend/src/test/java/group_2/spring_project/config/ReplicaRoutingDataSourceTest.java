@@ -0,0 +1,267 @@
+package org.wldu.webservices.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Health checks and routing against a real primary and a streaming standby built from it
+ * with pg_basebackup. Routing is exercised as in production, through a
+ * LazyConnectionDataSourceProxy under a DataSourceTransactionManager, inside a request.
+ * Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ReplicaRoutingDataSourceTest {
+
+    private static final String IMAGE = "postgres:16-alpine";
+
+    private static final Network network = Network.newNetwork();
+
+    @Container
+    private static final PostgreSQLContainer<?> primary = new PostgreSQLContainer<>(IMAGE)
+            .withNetwork(network)
+            .withNetworkAliases("primary")
+            .withCopyToContainer(Transferable.of("echo 'host replication all all trust' >> \"$PGDATA/pg_hba.conf\"\n"),
+                    "/docker-entrypoint-initdb.d/replication.sh")
+            .withCommand("postgres", "-c", "wal_level=replica", "-c", "max_wal_senders=4", "-c", "fsync=off");
+
+    @Container
+    private static final GenericContainer<?> standby = new GenericContainer<>(IMAGE)
+            .withNetwork(network)
+            .dependsOn(primary)
+            .withEnv("PGDATA", "/var/lib/postgresql/data")
+            .withExposedPorts(5432)
+            .withCommand("sh", "-c", String.join("\n",
+                    "mkdir -p \"$PGDATA\" && chown postgres:postgres \"$PGDATA\" && chmod 700 \"$PGDATA\"",
+                    "until su-exec postgres pg_basebackup -h primary -U test -D \"$PGDATA\" -R -X stream; do",
+                    "  rm -rf \"$PGDATA\"/*; sleep 1",
+                    "done",
+                    "exec su-exec postgres postgres -c hot_standby=on"))
+            .waitingFor(Wait.forLogMessage(".*ready to accept read-only connections.*", 1)
+                    .withStartupTimeout(Duration.ofMinutes(2)));
+
+    private static DataSource primaryDataSource;
+    private static DataSource standbyDataSource;
+
+    @BeforeAll
+    static void createHeartbeatTable() {
+        primaryDataSource = new DriverManagerDataSource(primary.getJdbcUrl(), primary.getUsername(), primary.getPassword());
+        standbyDataSource = new DriverManagerDataSource(
+                "jdbc:postgresql://" + standby.getHost() + ":" + standby.getMappedPort(5432) + "/" + primary.getDatabaseName(),
+                primary.getUsername(), primary.getPassword());
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V9__replication_heartbeat.sql"))
+                .execute(primaryDataSource);
+    }
+
+    @BeforeEach
+    void bindRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void streamingStandbyIsInRotation() throws InterruptedException {
+        ReplicaRoutingDataSource routing = routing(standbyDataSource, 5);
+
+        Map<String, Object> replica = awaitReplica(routing, r -> Boolean.TRUE.equals(r.get("healthy")));
+
+        assertThat(replica.get("error")).isNull();
+        assertThat((Double) replica.get("lagSeconds")).isLessThanOrEqualTo(5.0);
+    }
+
+    @Test
+    void primaryListedAsReplicaIsNotUsed() {
+        ReplicaRoutingDataSource routing = routing(primaryDataSource, 5);
+
+        routing.checkReplicas();
+
+        Map<String, Object> replica = replicaStatus(routing);
+        assertThat(replica.get("healthy")).isEqualTo(false);
+        assertThat((String) replica.get("error")).contains("not a standby");
+    }
+
+    @Test
+    void disconnectedStandbyLeavesRotation() throws InterruptedException {
+        // Nothing is left to replay once the receiver stops, which the old lag query reported as 0.
+        JdbcTemplate standbyJdbc = new JdbcTemplate(standbyDataSource);
+        String conninfo = standbyJdbc.queryForObject("SHOW primary_conninfo", String.class);
+        ReplicaRoutingDataSource routing = routing(standbyDataSource, 5);
+        awaitReplica(routing, r -> Boolean.TRUE.equals(r.get("healthy")));
+        try {
+            standbyJdbc.execute("ALTER SYSTEM SET primary_conninfo = 'host=unreachable.invalid'");
+            standbyJdbc.execute("SELECT pg_reload_conf()");
+
+            Map<String, Object> replica = awaitReplica(routing, r -> Boolean.FALSE.equals(r.get("healthy")));
+
+            assertThat((String) replica.get("error")).startsWith("WAL receiver is");
+        } finally {
+            standbyJdbc.execute("ALTER SYSTEM SET primary_conninfo = '" + conninfo.replace("'", "''") + "'");
+            standbyJdbc.execute("SELECT pg_reload_conf()");
+        }
+    }
+
+    @Test
+    void standbyThatStopsReplayingFallsBehind() throws InterruptedException {
+        JdbcTemplate standbyJdbc = new JdbcTemplate(standbyDataSource);
+        ReplicaRoutingDataSource routing = routing(standbyDataSource, 1);
+        awaitReplica(routing, r -> Boolean.TRUE.equals(r.get("healthy")));
+        try {
+            standbyJdbc.execute("SELECT pg_wal_replay_pause()");
+
+            Map<String, Object> replica = awaitReplica(routing, r -> Boolean.FALSE.equals(r.get("healthy")));
+
+            assertThat(replica.get("error")).isNull();
+            assertThat((Double) replica.get("lagSeconds")).isGreaterThan(1.0);
+        } finally {
+            standbyJdbc.execute("SELECT pg_wal_replay_resume()");
+        }
+    }
+
+    // ========== ROUTING ==========
+
+    @Test
+    void readOnlyTransactionGoesToReplica() throws InterruptedException {
+        ReplicaRoutingDataSource routing = routing(standbyDataSource, 5);
+        awaitReplica(routing, r -> Boolean.TRUE.equals(r.get("healthy")));
+        DataSource dataSource = lazy(routing);
+
+        assertThat(routeOf(routing, dataSource, true)).isEqualTo("standby");
+        assertThat(inRecovery(dataSource, true)).isTrue();
+    }
+
+    @Test
+    void readWriteTransactionGoesToPrimary() throws InterruptedException {
+        ReplicaRoutingDataSource routing = routing(standbyDataSource, 5);
+        awaitReplica(routing, r -> Boolean.TRUE.equals(r.get("healthy")));
+        DataSource dataSource = lazy(routing);
+
+        assertThat(routeOf(routing, dataSource, false)).isEqualTo(Workload.INTERACTIVE.poolName());
+        assertThat(inRecovery(dataSource, false)).isFalse();
+    }
+
+    @Test
+    void readsFallBackToPrimaryWithoutHealthyReplica() {
+        ReplicaRoutingDataSource routing = routing(primaryDataSource, 5);
+        DataSource dataSource = lazy(routing);
+
+        // Nothing is in rotation before the first check, nor after it rejects the only replica.
+        assertThat(routeOf(routing, dataSource, true)).isEqualTo(Workload.INTERACTIVE.poolName());
+        routing.checkReplicas();
+        assertThat(replicaStatus(routing).get("healthy")).isEqualTo(false);
+        assertThat(routeOf(routing, dataSource, true)).isEqualTo(Workload.INTERACTIVE.poolName());
+    }
+
+    @Test
+    void readsAfterCommittedWriteStayOnPrimary() throws InterruptedException {
+        ReplicaRoutingDataSource routing = routing(standbyDataSource, 5);
+        awaitReplica(routing, r -> Boolean.TRUE.equals(r.get("healthy")));
+        DataSource dataSource = lazy(routing);
+        assertThat(routeOf(routing, dataSource, true)).isEqualTo("standby");
+
+        transactions(dataSource, false).executeWithoutResult(status ->
+                new JdbcTemplate(dataSource).update("UPDATE replication_heartbeat SET beat_at = now() WHERE id = 1"));
+
+        assertThat(routeOf(routing, dataSource, true)).isEqualTo(Workload.INTERACTIVE.poolName());
+        assertThat(inRecovery(dataSource, true)).isFalse();
+
+        // A new request may read from the replica again.
+        bindRequest();
+        assertThat(routeOf(routing, dataSource, true)).isEqualTo("standby");
+    }
+
+    @Test
+    void readYourWritesCanBeSwitchedOff() throws InterruptedException {
+        ReplicaRoutingDataSource routing = routing(standbyDataSource, 5, false);
+        awaitReplica(routing, r -> Boolean.TRUE.equals(r.get("healthy")));
+        DataSource dataSource = lazy(routing);
+
+        transactions(dataSource, false).executeWithoutResult(status ->
+                new JdbcTemplate(dataSource).update("UPDATE replication_heartbeat SET beat_at = now() WHERE id = 1"));
+
+        assertThat(routeOf(routing, dataSource, true)).isEqualTo("standby");
+    }
+
+    private static DataSource lazy(ReplicaRoutingDataSource routing) {
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private static TransactionTemplate transactions(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        template.setReadOnly(readOnly);
+        return template;
+    }
+
+    // Lookup key the routing data source picks inside a transaction of the given kind.
+    private static Object routeOf(ReplicaRoutingDataSource routing, DataSource dataSource, boolean readOnly) {
+        return transactions(dataSource, readOnly).execute(status -> routing.determineCurrentLookupKey());
+    }
+
+    // Whether the connection a transaction of the given kind actually got is on a standby.
+    private static Boolean inRecovery(DataSource dataSource, boolean readOnly) {
+        return transactions(dataSource, readOnly).execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT pg_is_in_recovery()", Boolean.class));
+    }
+
+    private static ReplicaRoutingDataSource routing(DataSource replica, int maxLagSeconds) {
+        return routing(replica, maxLagSeconds, true);
+    }
+
+    private static ReplicaRoutingDataSource routing(DataSource replica, int maxLagSeconds, boolean readYourWrites) {
+        ReplicaProperties properties = new ReplicaProperties();
+        properties.setMaxLagSeconds(maxLagSeconds);
+        properties.setReadYourWrites(readYourWrites);
+        return new ReplicaRoutingDataSource(Map.of(Workload.INTERACTIVE, primaryDataSource),
+                Map.of("standby", replica), properties, new PoolMetricsTracker());
+    }
+
+    // Runs health checks (each one also writes a heartbeat) until the replica matches.
+    private static Map<String, Object> awaitReplica(ReplicaRoutingDataSource routing,
+                                                    Predicate<Map<String, Object>> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
+        while (true) {
+            routing.checkReplicas();
+            Map<String, Object> replica = replicaStatus(routing);
+            if (condition.test(replica) || System.nanoTime() > deadline) {
+                assertThat(condition.test(replica)).as("replica status %s", replica).isTrue();
+                return replica;
+            }
+            Thread.sleep(500);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> replicaStatus(ReplicaRoutingDataSource routing) {
+        Map<String, Object> replicas = (Map<String, Object>) routing.getStatus().get("replicas");
+        return (Map<String, Object>) replicas.get("standby");
+    }
+}
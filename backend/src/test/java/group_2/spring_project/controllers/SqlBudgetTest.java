@@ -0,0 +1,243 @@
+package org.wldu.webservices.controllers;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.wldu.webservices.metrics.MetricsRegistry;
+import org.wldu.webservices.metrics.RequestCounters;
+import org.wldu.webservices.metrics.SqlBudget;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Runs every @SqlBudget endpoint against Postgres with enforcement on, so a handler whose
+ * statements exceed its budget fails here (the refused statement turns into a 500) and a
+ * handler repeating a query is recorded as a violation. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = "savings.metrics.sql-budget.enforce=true")
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+@Import(SqlBudgetTest.BudgetProbe.class)
+class SqlBudgetTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final AtomicInteger employees = new AtomicInteger();
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "&reWriteBatchedInserts=true");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    private long memberId;
+
+    @BeforeEach
+    void createMember() throws Exception {
+        memberId = idOf(withinBudget(post("/api/members")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"employeeId": "EMP-B%d", "firstName": "Abebe", "lastName": "Kebede", "workDomain": "ACADEMIC"}
+                        """.formatted(employees.incrementAndGet()))), "$.id");
+    }
+
+    @Test
+    void memberReads() throws Exception {
+        withinBudget(get("/api/members"));
+        withinBudget(get("/api/members").param("search", "Abebe"));
+        withinBudget(get("/api/members/domain/ACADEMIC"));
+        withinBudget(get("/api/members/{id}/eligibility", memberId));
+        withinBudget(get("/api/members/{id}", memberId));
+    }
+
+    @Test
+    void accountOpeningAndReads() throws Exception {
+        long informal = idOf(withinBudget(post("/api/accounts/informal").param("memberId", String.valueOf(memberId))), "$.accountId");
+        withinBudget(post("/api/accounts/formal")
+                .param("memberId", String.valueOf(memberId)).param("monthlyAmount", "500"));
+
+        String accountNumber = JsonPath.read(withinBudget(get("/api/accounts/{id}", informal))
+                .getResponse().getContentAsString(), "$.accountNumber");
+        withinBudget(get("/api/accounts/{id}", informal));
+        withinBudget(get("/api/accounts/number/{accountNumber}", accountNumber));
+        withinBudget(get("/api/accounts/member/{memberId}", memberId));
+    }
+
+    @Test
+    void postings() throws Exception {
+        long informal = idOf(withinBudget(post("/api/accounts/informal").param("memberId", String.valueOf(memberId))), "$.accountId");
+        long formal = idOf(withinBudget(post("/api/accounts/formal")
+                .param("memberId", String.valueOf(memberId)).param("monthlyAmount", "500")), "$.accountId");
+
+        withinBudget(post("/api/accounts/{id}/deposit", informal).param("amount", "1000"));
+        withinBudget(post("/api/accounts/{id}/deposit", informal).param("amount", "250"));
+        withinBudget(post("/api/accounts/{id}/deposit", formal).param("amount", "500"));
+        withinBudget(post("/api/accounts/{id}/withdraw", informal).param("amount", "100"));
+        withinBudget(post("/api/accounts/{id}/withdraw", informal).param("amount", "100"));
+        // Rejected postings (second monthly deposit, withdrawal from a formal account) stay within budget too.
+        withinBudget(post("/api/accounts/{id}/deposit", formal).param("amount", "500"));
+        withinBudget(post("/api/accounts/{id}/withdraw", formal).param("amount", "100"));
+    }
+
+    @Test
+    void bulkDepositPrefersNonFormalAccount() throws Exception {
+        withinBudget(post("/api/accounts/formal")
+                .param("memberId", String.valueOf(memberId)).param("monthlyAmount", "500"));
+        long informal = idOf(withinBudget(post("/api/accounts/informal").param("memberId", String.valueOf(memberId))), "$.accountId");
+
+        MvcResult result = withinBudget(post("/api/accounts/bulk-deposit")
+                .param("workDomain", "ACADEMIC").param("amount", "75"));
+
+        String json = result.getResponse().getContentAsString();
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        String accountNumber = JsonPath.read(withinBudget(get("/api/accounts/{id}", informal))
+                .getResponse().getContentAsString(), "$.accountNumber");
+        assertThat(JsonPath.<List<String>>read(json,
+                "$.results.successfulDeposits[?(@.memberId == " + memberId + ")].accountNumber"))
+                .containsExactly(accountNumber);
+
+        // A retried run posts nothing for members it already credited.
+        String retry = withinBudget(post("/api/accounts/bulk-deposit")
+                .param("workDomain", "ACADEMIC").param("amount", "75"))
+                .getResponse().getContentAsString();
+        assertThat(JsonPath.<List<String>>read(retry, "$.results.alreadyPosted"))
+                .contains("EMP-B" + employees.get());
+        assertThat(JsonPath.<List<Object>>read(retry,
+                "$.results.successfulDeposits[?(@.memberId == " + memberId + ")]")).isEmpty();
+    }
+
+    @Test
+    void overBudgetStatementFailsAndRepeatIsRecorded() throws Exception {
+        long violationsBefore = violations();
+
+        MvcResult result = mockMvc.perform(get("/test/sql-budget/over")).andReturn();
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(500);
+        assertThat(result.getResponse().getContentAsString()).contains("SQL budget of 2 statements exceeded");
+        assertThat(violations()).isEqualTo(violationsBefore + 1);
+        Map<String, Object> violation = latestViolation();
+        assertThat(violation).containsEntry("endpoint", "BudgetProbe.overBudget")
+                .containsEntry("budget", 2)
+                .containsEntry("statements", 2);
+        assertThat(repeatedQueries(violation)).singleElement().satisfies(query -> {
+            assertThat(query.sql()).isEqualTo(BudgetProbe.PROBE_SQL);
+            assertThat(query.count()).isEqualTo(2);
+            assertThat(query.callSite()).startsWith("SqlBudgetTest$BudgetProbe.overBudget:");
+        });
+    }
+
+    @Test
+    void repeatWithinBudgetIsRecordedWithoutFailing() throws Exception {
+        long violationsBefore = violations();
+
+        MvcResult result = mockMvc.perform(get("/test/sql-budget/repeat")).andReturn();
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        assertThat(violations()).isEqualTo(violationsBefore + 1);
+        Map<String, Object> violation = latestViolation();
+        assertThat(violation).containsEntry("endpoint", "BudgetProbe.repeatWithinBudget")
+                .containsEntry("statements", 3);
+        assertThat(repeatedQueries(violation)).singleElement().satisfies(query -> {
+            assertThat(query.count()).isEqualTo(3);
+            assertThat(query.callSite()).startsWith("SqlBudgetTest$BudgetProbe.repeatWithinBudget:");
+        });
+    }
+
+    private MvcResult withinBudget(MockHttpServletRequestBuilder request) throws Exception {
+        long violationsBefore = violations();
+        MvcResult result = mockMvc.perform(request).andReturn();
+        assertThat(result.getResponse().getStatus())
+                .as("%s %s: %s", result.getRequest().getMethod(), result.getRequest().getRequestURI(),
+                        result.getResponse().getContentAsString())
+                .isLessThan(500);
+        assertThat(violations())
+                .as("%s %s: %s", result.getRequest().getMethod(), result.getRequest().getRequestURI(),
+                        metricsRegistry.getBudgetViolations().get("recent"))
+                .isEqualTo(violationsBefore);
+        return result;
+    }
+
+    private long violations() {
+        return ((Number) metricsRegistry.getBudgetViolations().get("total")).longValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> latestViolation() {
+        return ((List<Map<String, Object>>) metricsRegistry.getBudgetViolations().get("recent")).get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<RequestCounters.RepeatedQuery> repeatedQueries(Map<String, Object> violation) {
+        return (List<RequestCounters.RepeatedQuery>) violation.get("repeatedQueries");
+    }
+
+    private static long idOf(MvcResult result, String path) throws Exception {
+        Number id = JsonPath.read(result.getResponse().getContentAsString(), path);
+        return id.longValue();
+    }
+
+    /** Handlers that break their budgets on purpose; they follow the controllers' catch-all 500 handling. */
+    @RestController
+    static class BudgetProbe {
+
+        static final String PROBE_SQL = "SELECT 1 AS sql_budget_probe";
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @SqlBudget(2)
+        @GetMapping("/test/sql-budget/over")
+        public ResponseEntity<?> overBudget() {
+            try {
+                for (int i = 0; i < 3; i++) {
+                    jdbcTemplate.queryForObject(PROBE_SQL, Integer.class);
+                }
+                return ResponseEntity.ok().build();
+            } catch (Exception e) {
+                return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+            }
+        }
+
+        @SqlBudget(5)
+        @GetMapping("/test/sql-budget/repeat")
+        public ResponseEntity<?> repeatWithinBudget() {
+            for (int i = 0; i < 3; i++) {
+                jdbcTemplate.queryForObject(PROBE_SQL, Integer.class);
+            }
+            return ResponseEntity.ok().build();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.wldu.webservices.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 100_000;
+
+    @Test
+    void concurrentIdsAreUniqueAndIncreasingPerThread() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, System::currentTimeMillis);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long[] ids = new long[IDS_PER_THREAD];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            long[] all = new long[THREADS * IDS_PER_THREAD];
+            int offset = 0;
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get(60, TimeUnit.SECONDS);
+                for (int i = 1; i < ids.length; i++) {
+                    assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+                }
+                System.arraycopy(ids, 0, all, offset, ids.length);
+                offset += ids.length;
+            }
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertThat(all[i]).as("duplicate id").isNotEqualTo(all[i - 1]);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void waitsForTheClockWhenTheSequenceIsExhausted() throws Exception {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+        long last = 0;
+        for (int i = 0; i < 4096; i++) {
+            last = generator.nextId();
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> blocked = executor.submit(generator::nextId);
+            Thread.sleep(50);
+            assertThat(blocked.isDone()).isFalse();
+
+            clock.incrementAndGet();
+            assertThat(blocked.get(5, TimeUnit.SECONDS)).isGreaterThan(last);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void waitsForTheClockWhenItStepsBack() throws Exception {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+        long first = generator.nextId();
+        long firstMillis = clock.get();
+        clock.addAndGet(-1000);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> blocked = executor.submit(generator::nextId);
+            Thread.sleep(50);
+            assertThat(blocked.isDone()).isFalse();
+
+            clock.set(firstMillis + 1);
+            assertThat(blocked.get(5, TimeUnit.SECONDS)).isGreaterThan(first);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void encodedIdsCarryAValidCheckCharacter() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, System::currentTimeMillis);
+        String encoded = SnowflakeIdGenerator.encode(generator.nextId());
+        assertThat(SnowflakeIdGenerator.isValid(encoded)).isTrue();
+
+        char[] typo = encoded.toCharArray();
+        typo[5] = typo[5] == '0' ? '1' : '0';
+        assertThat(SnowflakeIdGenerator.isValid(new String(typo))).isFalse();
+    }
+}
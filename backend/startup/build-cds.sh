@@ -0,0 +1,26 @@
+#!/usr/bin/env bash
+# Builds the AOT-processed jar, extracts it for CDS and records the class-data-sharing
+# archive with a training run that exits right after the context refreshes.
+# The training run starts Flyway and Hibernate, so the database must be reachable;
+# pass datasource overrides as arguments, e.g.
+#   ./build-cds.sh --spring.datasource.url=jdbc:postgresql://localhost:55432/microfance
+set -euo pipefail
+
+here="$(cd "$(dirname "$0")" && pwd)"
+backend="$(cd "$here/.." && pwd)"
+jar="webservices-0.0.1-SNAPSHOT-exec.jar"
+
+mvn -B -q -f "$backend/pom.xml" -Pfast-startup -DskipTests package
+
+rm -rf "$here/app"
+java -Djarmode=tools -jar "$backend/target/$jar" extract --destination "$here/app"
+
+java -XX:ArchiveClassesAtExit="$here/app/application.jsa" \
+    -Dspring.context.exit=onRefresh \
+    -Dspring.aot.enabled=true \
+    -Dspring.profiles.active=fast \
+    -jar "$here/app/$jar" "$@"
+
+echo "Start with:"
+echo "  java -XX:SharedArchiveFile=$here/app/application.jsa -Dspring.aot.enabled=true \\"
+echo "       -Dspring.profiles.active=fast -jar $here/app/$jar"
@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+# Startup benchmark: time from JVM launch to the first answered HTTP request, and the
+# resident set size at that moment, for the default startup and the fast-startup
+# profile (AOT + CDS + lazy infrastructure + no schema diffing).
+# Run build-cds.sh first. Arguments are passed to both variants (datasource overrides).
+#   RUNS=5 ./measure-startup.sh --spring.datasource.url=...
+set -euo pipefail
+
+here="$(cd "$(dirname "$0")" && pwd)"
+jar="$here/app/webservices-0.0.1-SNAPSHOT-exec.jar"
+runs="${RUNS:-5}"
+url="${URL:-https://localhost:8080/api/auth/login}"
+out="$here/results/startup-$(git -C "$here" rev-parse --short HEAD).csv"
+
+[ -f "$jar" ] || { echo "Run build-cds.sh first" >&2; exit 1; }
+mkdir -p "$here/results"
+echo "variant,run,first_request_ms,rss_mb" > "$out"
+
+measure() {
+    local variant="$1"; shift
+    for run in $(seq 1 "$runs"); do
+        local start pid code=000
+        start=$(date +%s%N)
+        java "$@" > "$here/results/$variant-$run.log" 2>&1 &
+        pid=$!
+        # Any HTTP status (401 for an empty login) means the full stack served a request.
+        while [ "$code" = 000 ]; do
+            kill -0 "$pid" 2>/dev/null || { echo "$variant run $run exited early" >&2; exit 1; }
+            code=$(curl -ks -o /dev/null -w '%{http_code}' -X POST -H 'Content-Type: application/json' \
+                -d '{}' "$url" || true)
+            [ "$code" = 000 ] && sleep 0.05
+        done
+        local ms=$(( ($(date +%s%N) - start) / 1000000 ))
+        local rss=$(awk '/VmRSS/ { printf "%.0f", $2 / 1024 }' "/proc/$pid/status")
+        kill "$pid"; wait "$pid" 2>/dev/null || true
+        echo "$variant,$run,$ms,$rss" | tee -a "$out"
+    done
+}
+
+measure baseline -jar "$jar" "${@}"
+measure fast -XX:SharedArchiveFile="$here/app/application.jsa" -Dspring.aot.enabled=true \
+    -Dspring.profiles.active=fast -jar "$jar" "${@}"
+
+echo
+awk -F, 'NR > 1 { ms[$1] = ms[$1] " " $3; rss[$1] = rss[$1] " " $4 }
+    END { for (v in ms) {
+        n = split(ms[v], a, " "); asort(a); m = split(rss[v], r, " "); asort(r);
+        printf "%-9s median first request %6d ms, median RSS %5d MB\n", v, a[int((n + 1) / 2)], r[int((m + 1) / 2)] } }' "$out"
+echo "Results in $out"
@@ -0,0 +1,24 @@
+#!/usr/bin/env bash
+# Builds the backend and the benchmark jar, then runs JMH and writes
+# results/<short commit sha>.json. Extra arguments are passed to JMH,
+# e.g. ./run.sh JwtBenchmark -f 1 -wi 2 -i 3
+set -euo pipefail
+
+here="$(cd "$(dirname "$0")" && pwd)"
+root="$(cd "$here/.." && pwd)"
+sha="$(git -C "$root" rev-parse --short HEAD)"
+if ! git -C "$root" diff --quiet HEAD -- backend; then
+    sha="$sha-dirty"
+fi
+
+mvn -B -q -f "$root/backend/pom.xml" -DskipTests install
+mvn -B -q -f "$here/pom.xml" package
+
+mkdir -p "$here/results"
+java -jar "$here/target/benchmarks.jar" -rf json -rff "$here/results/$sha.json" "$@"
+
+if [ -f "$here/results/baseline.json" ]; then
+    java -cp "$here/target/benchmarks.jar" org.wldu.webservices.benchmarks.CompareResults \
+        "$here/results/baseline.json" "$here/results/$sha.json" || true
+fi
+echo "Results written to benchmarks/results/$sha.json"
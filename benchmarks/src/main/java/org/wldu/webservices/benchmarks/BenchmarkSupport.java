@@ -0,0 +1,27 @@
+package org.wldu.webservices.benchmarks;
+
+import java.lang.reflect.Field;
+
+/** Field injection for beans that are normally wired by Spring. */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    static void inject(Object target, String fieldName, Object value) {
+        Class<?> type = target.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot set " + fieldName + " on " + target.getClass().getName(), e);
+            }
+        }
+        throw new IllegalArgumentException("No field " + fieldName + " on " + target.getClass().getName());
+    }
+}
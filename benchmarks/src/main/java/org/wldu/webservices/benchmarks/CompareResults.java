@@ -0,0 +1,81 @@
+package org.wldu.webservices.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files, e.g. results/baseline.json against the run for
+ * the current commit, and prints the score change per benchmark. Exits with status 1
+ * if any benchmark regressed by more than the threshold (default 10%).
+ *
+ * Usage: java -cp target/benchmarks.jar org.wldu.webservices.benchmarks.CompareResults
+ *        baseline.json current.json [thresholdPercent]
+ */
+public final class CompareResults {
+
+    private CompareResults() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CompareResults <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        boolean regressed = false;
+        System.out.printf("%-80s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode now = entry.getValue().path("primaryMetric");
+            JsonNode before = baseline.containsKey(entry.getKey())
+                    ? baseline.get(entry.getKey()).path("primaryMetric") : null;
+            String unit = now.path("scoreUnit").asText();
+            if (before == null) {
+                System.out.printf("%-80s %14s %14.3f %9s  %s%n", entry.getKey(), "-", now.path("score").asDouble(), "new", unit);
+                continue;
+            }
+            double old = before.path("score").asDouble();
+            double score = now.path("score").asDouble();
+            double change = old == 0 ? 0 : (score - old) / old * 100.0;
+            // Throughput modes are better when higher, time modes when lower.
+            boolean higherIsBetter = unit.endsWith("/s") || unit.endsWith("/ms") || unit.endsWith("/us")
+                    || unit.endsWith("/ns") || unit.endsWith("/min");
+            double worse = higherIsBetter ? -change : change;
+            String flag = worse > threshold ? "  REGRESSION" : "";
+            regressed |= worse > threshold;
+            System.out.printf("%-80s %14.3f %14.3f %+8.1f%%  %s%s%n", entry.getKey(), old, score, change, unit, flag);
+        }
+        for (String missing : baseline.keySet()) {
+            if (!current.containsKey(missing)) {
+                System.out.printf("%-80s %14s %14s %9s%n", missing, "", "-", "removed");
+            }
+        }
+        System.exit(regressed ? 1 : 0);
+    }
+
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new TreeMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            JsonNode params = run.path("params");
+            Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> param = fields.next();
+                key.append(key.indexOf("[") < 0 ? "[" : ",").append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            if (key.indexOf("[") >= 0) {
+                key.append(']');
+            }
+            results.put(key.toString(), run);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,71 @@
+package org.wldu.webservices.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wldu.webservices.entities.Member;
+import org.wldu.webservices.services.MemberService;
+import org.wldu.webservices.services.SnowflakeIdGenerator;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reference, account and share certificate number generation. The snowflake generator
+ * is also measured under contention, since every posting thread shares one instance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGenerationBenchmark {
+
+    private SnowflakeIdGenerator generator;
+    private MemberService memberService;
+    private MethodHandle createInitialShares;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        generator = new SnowflakeIdGenerator(1, 0, null);
+        memberService = new MemberService();
+        createInitialShares = MethodHandles.privateLookupIn(MemberService.class, MethodHandles.lookup())
+                .findVirtual(MemberService.class, "createInitialShares",
+                        MethodType.methodType(void.class, Member.class));
+    }
+
+    @Benchmark
+    public String referenceNumber() {
+        return generator.nextReferenceNumber();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String referenceNumberContended() {
+        return generator.nextReferenceNumber();
+    }
+
+    @Benchmark
+    public String accountNumber() {
+        return generator.nextAccountNumber("FORMAL");
+    }
+
+    @Benchmark
+    public Member initialShareCertificates() throws Throwable {
+        Member member = new Member();
+        member.setEmployeeId("EMP00042");
+        createInitialShares.invoke(memberService, member);
+        return member;
+    }
+}
@@ -0,0 +1,58 @@
+package org.wldu.webservices.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.wldu.webservices.config.JwtConfig;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token work done by {@link JwtConfig}: signing at login and parsing on every
+ * authenticated request. {@code filterPath} mirrors doFilterInternal, which parses
+ * the same token three times (username, then subject and expiry in isTokenValid).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtConfig jwtConfig;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtConfig = new JwtConfig(null);
+        BenchmarkSupport.inject(jwtConfig, "secret", "benchmark-secret-key-that-is-at-least-256-bits-long");
+        BenchmarkSupport.inject(jwtConfig, "expiration", 86400000L);
+        token = jwtConfig.generateToken("clerk", List.of(new SimpleGrantedAuthority("ROLE_ASSISTANT")));
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtConfig.generateToken("clerk", List.of(new SimpleGrantedAuthority("ROLE_ASSISTANT")));
+    }
+
+    @Benchmark
+    public String parse() {
+        return jwtConfig.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean filterPath() {
+        String username = jwtConfig.extractUsername(token);
+        return jwtConfig.isTokenValid(token, username);
+    }
+}
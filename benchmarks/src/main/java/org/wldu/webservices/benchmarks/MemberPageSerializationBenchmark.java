@@ -0,0 +1,98 @@
+package org.wldu.webservices.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.wldu.webservices.dto.MemberListItem;
+import org.wldu.webservices.entities.Member;
+import org.wldu.webservices.entities.Share;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the member list response: a {@code Page<Member>} whose
+ * members carry their eagerly fetched shares, as GET /api/members used to return, and
+ * the {@code Page<MemberListItem>} projection it returns now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberPageSerializationBenchmark {
+
+    @Param({"10", "50"})
+    private int pageSize;
+
+    @Param({"3", "20"})
+    private int sharesPerMember;
+
+    private ObjectMapper objectMapper;
+    private Page<Member> page;
+    private Page<MemberListItem> listItemPage;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        Member.WorkDomain[] domains = Member.WorkDomain.values();
+        List<Member> members = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Member member = new Member();
+            member.setId((long) i + 1);
+            member.setFirstName("First" + i);
+            member.setLastName("Last" + i);
+            member.setEmployeeId(String.format("EMP%05d", i));
+            member.setWorkDomain(domains[i % domains.length]);
+            member.setEmail("member" + i + "@example.org");
+            member.setPhoneNumber("+2519" + String.format("%08d", i));
+            for (int s = 1; s <= sharesPerMember; s++) {
+                Share share = new Share();
+                share.setId((long) i * 100 + s);
+                share.setCertificateNumber("SH-" + member.getEmployeeId() + "-" + String.format("%03d", s));
+                share.setMember(member);
+                member.getShares().add(share);
+            }
+            members.add(member);
+        }
+        page = new PageImpl<>(members, PageRequest.of(0, pageSize, Sort.by("id")), 10_000);
+
+        List<MemberListItem> items = members.stream()
+                .map(m -> new MemberListItem(m.getId(), m.getFirstName(), m.getLastName(), m.getEmployeeId(),
+                        m.getWorkDomain(), m.getEmail(), m.getPhoneNumber(), m.getRegistrationDate(),
+                        m.getRegistrationFee(), m.getIsActive(), m.getDeactivationDate(), m.getDeactivationReason(),
+                        m.getShares().size()))
+                .toList();
+        listItemPage = new PageImpl<>(items, PageRequest.of(0, pageSize, Sort.by("id")), 10_000);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializeListItems() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(listItemPage);
+    }
+}
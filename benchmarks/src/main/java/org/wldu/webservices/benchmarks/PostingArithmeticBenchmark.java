@@ -0,0 +1,57 @@
+package org.wldu.webservices.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wldu.webservices.money.Money;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arithmetic on the posting path: request amounts arrive as decimals, balances are
+ * long minor units, and responses format them back. Interest accrual covers the
+ * per-account work of the interest run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostingArithmeticBenchmark {
+
+    private final BigDecimal requestAmount = new BigDecimal("1250.75");
+    private long balance = Money.etb(48_300) + 45;
+
+    @Benchmark
+    public long deposit() {
+        return Money.add(balance, Money.fromDecimal(requestAmount));
+    }
+
+    @Benchmark
+    public long withdraw() {
+        return Money.subtract(balance, Money.fromDecimal(requestAmount));
+    }
+
+    @Benchmark
+    public BigDecimal toResponse() {
+        return Money.toDecimal(Money.add(balance, Money.fromDecimal(requestAmount)));
+    }
+
+    @Benchmark
+    public String format() {
+        return Money.format(balance);
+    }
+
+    @Benchmark
+    public long monthlyInterest() {
+        return Money.interest(Money.accrue(balance, 700, 30));
+    }
+}
@@ -0,0 +1,107 @@
+package org.wldu.webservices.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.wldu.webservices.controllers.MemberController;
+import org.wldu.webservices.dto.MemberListItem;
+import org.wldu.webservices.repositories.MemberRepository;
+import org.wldu.webservices.services.MemberService;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Java-side part of member search: {@link MemberService#searchMembers(String, Pageable)}
+ * in front of a repository that returns an empty page, and the pageable that Spring Data's
+ * resolver builds from GET /api/members parameters and its @PageableDefault(size = 10,
+ * sort = "id"). The LIKE pattern is built by the JPQL query in the database, so query
+ * execution is database work and is covered by the load tests, not here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"abebe", "  Kebede Tesfaye  "})
+    private String keyword;
+
+    private MemberService memberService;
+    private PageableHandlerMethodArgumentResolver pageableResolver;
+    private MethodParameter pageableParameter;
+    private NativeWebRequest defaultRequest;
+    private NativeWebRequest sortedRequest;
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        memberService = new MemberService();
+        BenchmarkSupport.inject(memberService, "memberRepository", emptyRepository());
+        pageableResolver = new PageableHandlerMethodArgumentResolver();
+        pageableParameter = new MethodParameter(MemberController.class.getMethod("getAllMembers",
+                Pageable.class, String.class, Boolean.class), 0);
+        defaultRequest = request(Map.of("page", new String[]{"3"}));
+        sortedRequest = request(Map.of("page", new String[]{"3"}, "size", new String[]{"10"},
+                "sort", new String[]{"lastName", "firstName", "id"}));
+        pageable = pageableResolver.resolveArgument(pageableParameter, null, defaultRequest, null);
+    }
+
+    @Benchmark
+    public Page<MemberListItem> search() {
+        return memberService.searchMembers(keyword, pageable);
+    }
+
+    @Benchmark
+    public Pageable pageable() {
+        return pageableResolver.resolveArgument(pageableParameter, null, defaultRequest, null);
+    }
+
+    @Benchmark
+    public Pageable pageableWithSort() {
+        return pageableResolver.resolveArgument(pageableParameter, null, sortedRequest, null);
+    }
+
+    // Only searchListItems is reached from searchMembers with a non-blank keyword.
+    private static MemberRepository emptyRepository() {
+        return (MemberRepository) Proxy.newProxyInstance(MemberRepository.class.getClassLoader(),
+                new Class<?>[]{MemberRepository.class}, (proxy, method, args) -> {
+                    if ("searchListItems".equals(method.getName())) {
+                        return Page.empty((Pageable) args[1]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    // The resolver only reads request parameters.
+    private static NativeWebRequest request(Map<String, String[]> parameters) {
+        return (NativeWebRequest) Proxy.newProxyInstance(NativeWebRequest.class.getClassLoader(),
+                new Class<?>[]{NativeWebRequest.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getParameter" -> {
+                        String[] values = parameters.get((String) args[0]);
+                        yield values != null ? values[0] : null;
+                    }
+                    case "getParameterValues" -> parameters.get((String) args[0]);
+                    case "getParameterNames" -> parameters.keySet().iterator();
+                    case "getParameterMap" -> Collections.unmodifiableMap(parameters);
+                    default -> null;
+                });
+    }
+}
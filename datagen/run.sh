@@ -0,0 +1,12 @@
+#!/usr/bin/env bash
+# Builds the backend and the generator, then seeds the configured database.
+# Arguments are key=value overrides of datagen.properties, e.g.
+#   ./run.sh members=100000 transactions=5000000 seed=7
+set -euo pipefail
+
+here="$(cd "$(dirname "$0")" && pwd)"
+root="$(cd "$here/.." && pwd)"
+mvn -B -q -f "$root/backend/pom.xml" -DskipTests install
+mvn -B -q -f "$here/pom.xml" package
+cd "$here"
+exec java -XX:+UseParallelGC -jar target/datagen.jar "$@"
@@ -0,0 +1,316 @@
+package org.wldu.webservices.datagen;
+
+import org.wldu.webservices.entities.InformalSavingAccount;
+import org.wldu.webservices.entities.Member;
+import org.wldu.webservices.entities.Share;
+import org.wldu.webservices.entities.Transaction;
+import org.wldu.webservices.money.Money;
+import org.wldu.webservices.services.SnowflakeIdGenerator;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Writes members [from, to) with their shares, accounts, transactions and ledger
+ * snapshots in one database transaction, using one COPY per table.
+ *
+ * Ledger triggers are bypassed, so this class does what trg_transactions_ledger_append
+ * would: per-account sequence numbers from 1 in posting order, and a balance snapshot
+ * after every SNAPSHOT_INTERVAL-th posting. current_balance and last_transaction_at
+ * are taken from the generated postings, so ledger verification passes. It also does
+ * what trg_transactions_reference_unique would, copying each posting's reference into
+ * transaction_references, so duplicate checks and reference lookups see generated rows.
+ */
+final class ChunkWriter {
+
+    private static final int SNAPSHOT_INTERVAL = 100;
+    private static final int INFORMAL_STREAM = 3;
+    private static final int DETAIL_STREAM = 4;
+
+    private static final String[] FIRST_NAMES = {
+            "Abebe", "Almaz", "Aster", "Bekele", "Biruk", "Dawit", "Eden", "Fikirte", "Genet", "Hana",
+            "Hirut", "Kebede", "Lemlem", "Meron", "Mulugeta", "Selam", "Solomon", "Tesfaye", "Tigist", "Yonas"};
+    private static final String[] LAST_NAMES = {
+            "Alemu", "Assefa", "Ayele", "Bekele", "Demissie", "Gebre", "Girma", "Haile", "Kassa", "Mekonnen",
+            "Negash", "Tadesse", "Tefera", "Tesfaye", "Wolde", "Worku", "Yohannes", "Zewde"};
+
+    // Generated numbers set the sign bit, which Snowflake ids never do, so account and
+    // reference numbers cannot collide with the ones issued by a running service.
+    private static final long GENERATED = Long.MIN_VALUE;
+
+    private static final InformalSavingAccount INFORMAL_DEFAULTS = new InformalSavingAccount();
+
+    private final Plan plan;
+    private final LocalDateTime end;
+
+    ChunkWriter(Plan plan) {
+        this.plan = plan;
+        this.end = plan.asOf.atTime(23, 59, 59);
+    }
+
+    /** Returns the number of transactions written. */
+    long write(Connection connection, int from, int to) throws SQLException {
+        MemberShape[] shapes = new MemberShape[to - from];
+        for (int i = from; i < to; i++) {
+            shapes[i - from] = plan.shape(i);
+        }
+        long[] balances = new long[2 * shapes.length];
+        LocalDateTime[] lastPostings = new LocalDateTime[2 * shapes.length];
+        LocalDate[] lastMonthly = new LocalDate[shapes.length];
+
+        try {
+            writeMembers(connection, shapes);
+            writeShares(connection, shapes);
+            List<Snapshot> snapshots = new ArrayList<>();
+            References references = new References();
+            long written;
+            try (CopyStream transactions = new CopyStream(connection, "transactions",
+                    "id, amount, transaction_type, description, transaction_date, reference_number, account_id, sequence_number")) {
+                for (int s = 0; s < shapes.length; s++) {
+                    writePostings(transactions, snapshots, references, shapes[s], balances, lastPostings, lastMonthly, s);
+                }
+                written = transactions.rows();
+            }
+            writeReferences(connection, references);
+            writeSnapshots(connection, snapshots);
+            writeAccounts(connection, shapes, balances, lastPostings, lastMonthly);
+            connection.commit();
+            return written;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    private void writeMembers(Connection connection, MemberShape[] shapes) throws SQLException {
+        try (CopyStream out = new CopyStream(connection, "members",
+                "id, first_name, last_name, employee_id, work_domain, email, phone_number, registration_date, " +
+                "registration_fee, is_active, deactivation_date, deactivation_reason")) {
+            for (MemberShape shape : shapes) {
+                SplittableRandom random = MemberShape.stream(plan.config.seed(), shape.index, DETAIL_STREAM);
+                String employeeId = employeeId(shape.index);
+                out.add(plan.memberId(shape.index))
+                        .add(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)])
+                        .add(LAST_NAMES[random.nextInt(LAST_NAMES.length)])
+                        .add(employeeId)
+                        .add(shape.domain.name())
+                        .add(employeeId.toLowerCase() + "@example.org")
+                        .add("+2519" + String.format("%08d", random.nextInt(100_000_000)))
+                        .add(shape.registrationDate)
+                        .add(Member.REGISTRATION_FEE)
+                        .add(shape.active);
+                if (shape.active) {
+                    out.addNull().addNull();
+                } else {
+                    out.add(plan.asOf.minusDays(random.nextInt(90))).add("Member request");
+                }
+                out.endRow();
+            }
+        }
+    }
+
+    private void writeShares(Connection connection, MemberShape[] shapes) throws SQLException {
+        try (CopyStream out = new CopyStream(connection, "shares",
+                "id, share_value, purchase_date, certificate_number, is_active, member_id")) {
+            for (MemberShape shape : shapes) {
+                String prefix = "SH-" + employeeId(shape.index) + "-";
+                for (int s = 0; s < shape.shares; s++) {
+                    LocalDate purchased = s < 3 ? shape.registrationDate
+                            : shape.registrationDate.plusDays(7L * s);
+                    out.add(plan.shareId(shape.index, s))
+                            .add(Share.SHARE_VALUE)
+                            .add(purchased.isAfter(plan.asOf) ? plan.asOf : purchased)
+                            .add(prefix + String.format("%03d", s + 1))
+                            .add(true)
+                            .add(plan.memberId(shape.index))
+                            .endRow();
+                }
+            }
+        }
+    }
+
+    private void writePostings(CopyStream out, List<Snapshot> snapshots, References references, MemberShape shape, long[] balances,
+                               LocalDateTime[] lastPostings, LocalDate[] lastMonthly, int slot) throws SQLException {
+        int posted = 0;
+
+        // Formal account: monthly deposits of the fixed amount and quarterly interest.
+        long formalId = plan.formalAccountId(shape.index);
+        long balance = 0;
+        long sequence = 0;
+        for (MemberShape.FormalPosting posting : shape.formalPostings) {
+            long amount;
+            Transaction.TransactionType type;
+            String description;
+            if (posting.interest()) {
+                amount = Math.max(1, Money.interest(Money.accrue(balance, 700, 91)));
+                type = Transaction.TransactionType.INTEREST;
+                description = "Quarterly interest";
+            } else {
+                amount = shape.monthlyAmount;
+                type = Transaction.TransactionType.DEPOSIT;
+                description = "Monthly deposit";
+                lastMonthly[slot] = posting.at().toLocalDate();
+            }
+            balance = Money.add(balance, amount);
+            posting(out, snapshots, references, shape.index, posted++, formalId, ++sequence, type, amount, description, posting.at(), balance);
+            lastPostings[2 * slot] = posting.at();
+        }
+        balances[2 * slot] = balance;
+
+        // Informal account: skewed number of deposits and withdrawals at random times.
+        int count = plan.informalCounts[shape.index];
+        if (shape.informalOpening == null || count == 0) {
+            return;
+        }
+        SplittableRandom random = MemberShape.stream(plan.config.seed(), shape.index, INFORMAL_STREAM);
+        long open = shape.informalOpening.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        long span = Math.max(1, end.toEpochSecond(ZoneOffset.UTC) - open);
+        long[] times = new long[count];
+        for (int i = 0; i < count; i++) {
+            times[i] = open + random.nextLong(span);
+        }
+        Arrays.sort(times);
+
+        long informalId = plan.informalAccountId(shape.index);
+        long limit = INFORMAL_DEFAULTS.getDailyWithdrawalLimit();
+        balance = 0;
+        sequence = 0;
+        for (long time : times) {
+            LocalDateTime at = LocalDateTime.ofEpochSecond(time, 0, ZoneOffset.UTC);
+            long amount;
+            Transaction.TransactionType type;
+            String description;
+            double roll = random.nextDouble();
+            if (roll < 0.38 && balance >= Money.etb(1)) {
+                // 1 birr up to the balance or the daily limit, whole birr
+                long max = Math.min(balance, limit);
+                amount = Money.etb(1) + random.nextLong(max - Money.etb(1) + 1);
+                amount -= amount % Money.MINOR_PER_MAJOR;
+                type = Transaction.TransactionType.WITHDRAWAL;
+                description = "Withdrawal";
+            } else if (roll < 0.40 && balance >= Money.etb(5)) {
+                amount = Money.etb(5);
+                type = Transaction.TransactionType.FEE;
+                description = "Service fee";
+            } else {
+                // 10 to 50,000 ETB, log-uniform, whole birr
+                amount = Money.etb(Math.round(Math.exp(Math.log(10) + random.nextDouble() * Math.log(5000))));
+                type = Transaction.TransactionType.DEPOSIT;
+                description = "Deposit";
+            }
+            balance = type.isCredit() ? Money.add(balance, amount) : Money.subtract(balance, amount);
+            posting(out, snapshots, references, shape.index, posted++, informalId, ++sequence, type, amount, description, at, balance);
+            lastPostings[2 * slot + 1] = at;
+        }
+        balances[2 * slot + 1] = balance;
+    }
+
+    private void posting(CopyStream out, List<Snapshot> snapshots, References references, int index, int posted, long accountId,
+                         long sequence, Transaction.TransactionType type, long amount, String description,
+                         LocalDateTime at, long balanceAfter) throws SQLException {
+        long id = plan.transactionId(index, posted);
+        out.add(id)
+                .add(amount)
+                .add(type.name())
+                .add(description)
+                .add(at)
+                .add(referenceNumber(id))
+                .add(accountId)
+                .add(sequence)
+                .endRow();
+        references.add(id, at);
+        if (sequence % SNAPSHOT_INTERVAL == 0) {
+            snapshots.add(new Snapshot(accountId, sequence, balanceAfter, at));
+        }
+    }
+
+    private static String referenceNumber(long transactionId) {
+        return "TXN" + SnowflakeIdGenerator.encode(transactionId | GENERATED);
+    }
+
+    private void writeReferences(Connection connection, References references) throws SQLException {
+        try (CopyStream out = new CopyStream(connection, "transaction_references",
+                "reference_number, transaction_id, transaction_date")) {
+            for (int i = 0; i < references.size; i++) {
+                out.add(referenceNumber(references.ids[i])).add(references.ids[i]).add(references.dates[i]).endRow();
+            }
+        }
+    }
+
+    private void writeSnapshots(Connection connection, List<Snapshot> snapshots) throws SQLException {
+        try (CopyStream out = new CopyStream(connection, "balance_snapshots",
+                "account_id, sequence_number, balance, taken_at")) {
+            for (Snapshot snapshot : snapshots) {
+                out.add(snapshot.accountId()).add(snapshot.sequence()).add(snapshot.balance())
+                        .add(snapshot.takenAt()).endRow();
+            }
+        }
+    }
+
+    private void writeAccounts(Connection connection, MemberShape[] shapes, long[] balances,
+                               LocalDateTime[] lastPostings, LocalDate[] lastMonthly) throws SQLException {
+        try (CopyStream out = new CopyStream(connection, "saving_accounts",
+                "id, account_type, account_number, current_balance, opening_date, is_active, last_transaction_at, " +
+                "dormant_since, member_id, monthly_amount, last_monthly_deposit_date, maturity_date, interest_rate, " +
+                "target_amount, daily_withdrawal_limit, minimum_balance")) {
+            for (int s = 0; s < shapes.length; s++) {
+                MemberShape shape = shapes[s];
+                long formalId = plan.formalAccountId(shape.index);
+                out.add(formalId).add("FORMAL").add("FORMAL-" + SnowflakeIdGenerator.encode(formalId | GENERATED))
+                        .add(balances[2 * s]).add(shape.formalOpening).add(shape.active).add(lastPostings[2 * s])
+                        .addNull().add(plan.memberId(shape.index))
+                        .add(shape.monthlyAmount).add(lastMonthly[s]).addNull().add(7.0)
+                        .addNull().addNull().addNull()
+                        .endRow();
+                if (shape.informalOpening != null) {
+                    long informalId = plan.informalAccountId(shape.index);
+                    out.add(informalId).add("INFORMAL").add("INFORMAL-" + SnowflakeIdGenerator.encode(informalId | GENERATED))
+                            .add(balances[2 * s + 1]).add(shape.informalOpening).add(shape.active).add(lastPostings[2 * s + 1])
+                            .addNull().add(plan.memberId(shape.index))
+                            .addNull().addNull().addNull().addNull()
+                            .addNull().add(INFORMAL_DEFAULTS.getDailyWithdrawalLimit()).add(INFORMAL_DEFAULTS.getMinimumBalance())
+                            .endRow();
+                }
+            }
+        }
+    }
+
+    private String employeeId(int index) {
+        return employeeId(plan.config.seed(), index);
+    }
+
+    static String employeeId(long seed, int index) {
+        return "GEN" + seed + "-" + String.format("%07d", index);
+    }
+
+    /**
+     * Id and date of every posting in the chunk, copied into transaction_references after the
+     * transactions (one connection cannot run two COPYs at once). The reference is derived
+     * from the id again rather than kept.
+     */
+    private static final class References {
+        private long[] ids = new long[1024];
+        private LocalDateTime[] dates = new LocalDateTime[1024];
+        private int size;
+
+        void add(long id, LocalDateTime date) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                dates = Arrays.copyOf(dates, size * 2);
+            }
+            ids[size] = id;
+            dates[size] = date;
+            size++;
+        }
+    }
+
+    /** A ledger snapshot; about 1% of postings, buffered and copied after the transactions. */
+    private record Snapshot(long accountId, long sequence, long balance, LocalDateTime takenAt) { }
+}
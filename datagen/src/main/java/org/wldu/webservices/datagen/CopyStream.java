@@ -0,0 +1,117 @@
+package org.wldu.webservices.datagen;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Streams rows into one {@code COPY ... FROM STDIN} in PostgreSQL text format,
+ * flushing to the server whenever the local buffer passes FLUSH_CHARS.
+ */
+final class CopyStream implements AutoCloseable {
+
+    private static final int FLUSH_CHARS = 1 << 20;
+
+    private final CopyIn copy;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_CHARS + 4096);
+    private boolean firstField = true;
+    private long rows;
+
+    CopyStream(Connection connection, String table, String columns) throws SQLException {
+        this.copy = connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("COPY " + table + " (" + columns + ") FROM STDIN");
+    }
+
+    CopyStream add(long value) {
+        separator().append(value);
+        return this;
+    }
+
+    CopyStream add(double value) {
+        separator().append(value);
+        return this;
+    }
+
+    CopyStream add(boolean value) {
+        separator().append(value ? 't' : 'f');
+        return this;
+    }
+
+    CopyStream add(LocalDate value) {
+        return value == null ? addNull() : addRaw(value.toString());
+    }
+
+    CopyStream add(LocalDateTime value) {
+        return value == null ? addNull() : addRaw(value.toString());
+    }
+
+    CopyStream add(String value) {
+        if (value == null) {
+            return addNull();
+        }
+        StringBuilder out = separator();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> out.append(c);
+            }
+        }
+        return this;
+    }
+
+    CopyStream addNull() {
+        separator().append("\\N");
+        return this;
+    }
+
+    void endRow() throws SQLException {
+        buffer.append('\n');
+        firstField = true;
+        rows++;
+        if (buffer.length() >= FLUSH_CHARS) {
+            flush();
+        }
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    // Only for values that never need escaping (dates, timestamps).
+    private CopyStream addRaw(String value) {
+        separator().append(value);
+        return this;
+    }
+
+    private StringBuilder separator() {
+        if (!firstField) {
+            buffer.append('\t');
+        }
+        firstField = false;
+        return buffer;
+    }
+
+    private void flush() throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (!copy.isActive()) {
+            return;
+        }
+        flush();
+        copy.endCopy();
+    }
+}
@@ -0,0 +1,175 @@
+package org.wldu.webservices.datagen;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seeds members, shares, formal and informal accounts and skewed transaction histories
+ * straight into PostgreSQL with COPY.
+ *
+ * The schema must already exist (Flyway plus Hibernate, i.e. the backend has started
+ * once against the database). Generated rows are appended after the current maximum ids,
+ * and the id sequences are moved past them at the end. Generation is deterministic for a
+ * given seed, as-of date and starting ids: members are split into chunks that worker
+ * threads pick up in any order, but every row is derived from (seed, member index).
+ *
+ * Usage: java -jar target/datagen.jar [config=datagen.properties] [key=value ...]
+ */
+public class DataGenerator {
+
+    private static final String PARTITION_PREFIX = "transactions_p";
+
+    public static void main(String[] args) throws Exception {
+        DatagenConfig config = DatagenConfig.load(args);
+        long started = System.nanoTime();
+
+        Plan plan;
+        try (Connection connection = connect(config)) {
+            preflight(connection, config);
+            plan = new Plan(config,
+                    maxId(connection, "SELECT COALESCE(MAX(id), 0) FROM members"),
+                    maxId(connection, "SELECT COALESCE(MAX(id), 0) FROM saving_accounts"),
+                    maxId(connection, "SELECT COALESCE(MAX(id), 0) FROM shares"),
+                    maxId(connection, "SELECT GREATEST(COALESCE(MAX(id), 0), " +
+                            "(SELECT last_value FROM transaction_ids)) FROM transactions"));
+            createPartitions(connection, YearMonth.from(plan.asOf.minusMonths(config.historyMonths())),
+                    YearMonth.from(plan.asOf).plusMonths(3));
+        }
+        System.out.printf("Planned %,d members, %,d transactions (%,d formal) as of %s in %.1fs%n",
+                config.members(), plan.totalTransactions(), plan.formalTransactions, plan.asOf, seconds(started));
+
+        generate(config, plan);
+
+        try (Connection connection = connect(config)) {
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT setval(pg_get_serial_sequence('members', 'id'), (SELECT MAX(id) FROM members))");
+                statement.execute("SELECT setval(pg_get_serial_sequence('shares', 'id'), (SELECT MAX(id) FROM shares))");
+                statement.execute("SELECT setval(pg_get_serial_sequence('saving_accounts', 'id'), (SELECT MAX(id) FROM saving_accounts))");
+                statement.execute("SELECT setval('transaction_ids', GREATEST((SELECT MAX(id) FROM transactions), " +
+                        "(SELECT last_value FROM transaction_ids)))");
+                if (config.analyze()) {
+                    System.out.println("Analyzing tables");
+                    statement.execute("ANALYZE members, shares, saving_accounts, transactions, transaction_references, balance_snapshots");
+                }
+            }
+        }
+        System.out.printf("Done in %.1fs%n", seconds(started));
+    }
+
+    private static void generate(DatagenConfig config, Plan plan) throws Exception {
+        int members = config.members();
+        int chunk = config.chunkMembers();
+        int chunks = (members + chunk - 1) / chunk;
+        AtomicInteger nextChunk = new AtomicInteger();
+        AtomicInteger doneChunks = new AtomicInteger();
+        AtomicLong written = new AtomicLong();
+        long started = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(config.threads());
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < config.threads(); t++) {
+            workers.add(executor.submit(() -> {
+                try (Connection connection = connect(config)) {
+                    connection.setAutoCommit(false);
+                    try (Statement statement = connection.createStatement()) {
+                        // Skips the ledger, reference and immutability triggers and FK checks for
+                        // this session only; ChunkWriter fills in sequence numbers, snapshots and
+                        // transaction_references rows.
+                        statement.execute("SET session_replication_role = replica");
+                        statement.execute("SET synchronous_commit = off");
+                    }
+                    ChunkWriter writer = new ChunkWriter(plan);
+                    for (int c = nextChunk.getAndIncrement(); c < chunks; c = nextChunk.getAndIncrement()) {
+                        long rows = writer.write(connection, c * chunk, Math.min(members, (c + 1) * chunk));
+                        long total = written.addAndGet(rows);
+                        int done = doneChunks.incrementAndGet();
+                        if (done % Math.max(1, chunks / 50) == 0 || done == chunks) {
+                            double elapsed = seconds(started);
+                            System.out.printf("%5.1f%%  %,d transactions  %,.0f rows/s%n",
+                                    100.0 * done / chunks, total, total / Math.max(elapsed, 0.001));
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        executor.shutdown();
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void preflight(Connection connection, DatagenConfig config) throws SQLException {
+        for (String table : List.of("members", "shares", "saving_accounts", "transactions", "transaction_references",
+                "balance_snapshots")) {
+            try (PreparedStatement ps = connection.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+                ps.setString(1, table);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next() || !rs.getBoolean(1)) {
+                        throw new IllegalStateException("Table " + table + " does not exist; start the backend once " +
+                                "against this database to create the schema");
+                    }
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT rolsuper FROM pg_roles WHERE rolname = current_user")) {
+            if (!rs.next() || !rs.getBoolean(1)) {
+                throw new IllegalStateException("The datagen user must be a superuser to bypass the ledger " +
+                        "triggers with session_replication_role");
+            }
+        }
+        try (PreparedStatement ps = connection.prepareStatement("SELECT 1 FROM members WHERE employee_id = ?")) {
+            ps.setString(1, ChunkWriter.employeeId(config.seed(), 0));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    throw new IllegalStateException("Members for seed " + config.seed() +
+                            " already exist; use another seed or a fresh database");
+                }
+            }
+        }
+    }
+
+    /** Creates the monthly partitions the history needs, named like TransactionPartitionService's. */
+    private static void createPartitions(Connection connection, YearMonth from, YearMonth to) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+                statement.execute(String.format(
+                        "CREATE TABLE IF NOT EXISTS %s%d%02d PARTITION OF transactions FOR VALUES FROM ('%s') TO ('%s')",
+                        PARTITION_PREFIX, month.getYear(), month.getMonthValue(), month.atDay(1), month.plusMonths(1).atDay(1)));
+            }
+        }
+    }
+
+    private static long maxId(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static Connection connect(DatagenConfig config) throws SQLException {
+        return DriverManager.getConnection(config.jdbcUrl(), config.username(), config.password());
+    }
+
+    private static double seconds(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1e9;
+    }
+}
@@ -0,0 +1,133 @@
+package org.wldu.webservices.datagen;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Properties;
+
+/**
+ * Generator settings, read from a properties file and overridden by {@code key=value}
+ * command-line arguments. See datagen.properties for the keys and defaults.
+ */
+public class DatagenConfig {
+
+    private final Properties properties;
+
+    private DatagenConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    public static DatagenConfig load(String[] args) throws IOException {
+        Properties properties = new Properties();
+        String file = "datagen.properties";
+        for (String arg : args) {
+            if (arg.startsWith("config=")) {
+                file = arg.substring("config=".length());
+            }
+        }
+        Path path = Path.of(file);
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path)) {
+                properties.load(reader);
+            }
+        }
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            properties.setProperty(arg.substring(0, eq).replaceFirst("^--", ""), arg.substring(eq + 1));
+        }
+        DatagenConfig config = new DatagenConfig(properties);
+        config.validate();
+        return config;
+    }
+
+    private void validate() {
+        if (members() < 1) {
+            throw new IllegalArgumentException("members must be at least 1");
+        }
+        if (historyMonths() < 1) {
+            throw new IllegalArgumentException("history-months must be at least 1");
+        }
+        if (informalRatio() < 0 || informalRatio() > 1) {
+            throw new IllegalArgumentException("informal-ratio must be between 0 and 1");
+        }
+        if (skew() <= 0) {
+            throw new IllegalArgumentException("skew must be positive");
+        }
+    }
+
+    public String jdbcUrl() {
+        return string("jdbc-url", "jdbc:postgresql://localhost:5432/microfance");
+    }
+
+    public String username() {
+        return string("username", "postgres");
+    }
+
+    public String password() {
+        return string("password", "");
+    }
+
+    public int members() {
+        return (int) number("members", 1_000_000);
+    }
+
+    public long transactions() {
+        return number("transactions", 50_000_000);
+    }
+
+    public int historyMonths() {
+        return (int) number("history-months", 24);
+    }
+
+    public double informalRatio() {
+        return Double.parseDouble(string("informal-ratio", "0.6"));
+    }
+
+    public double skew() {
+        return Double.parseDouble(string("skew", "1.2"));
+    }
+
+    public int maxPerAccount() {
+        return (int) number("max-per-account", 200_000);
+    }
+
+    public long seed() {
+        return number("seed", 42);
+    }
+
+    public LocalDate asOf() {
+        String value = string("as-of", "");
+        return value.isEmpty() ? LocalDate.now() : LocalDate.parse(value);
+    }
+
+    public int threads() {
+        int threads = (int) number("threads", 0);
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    public int chunkMembers() {
+        return (int) Math.max(1, number("chunk-members", 5000));
+    }
+
+    public boolean analyze() {
+        return Boolean.parseBoolean(string("analyze", "true"));
+    }
+
+    private String string(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue).trim();
+    }
+
+    private long number(String key, long defaultValue) {
+        String value = properties.getProperty(key, "").trim();
+        try {
+            return value.isEmpty() ? defaultValue : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be a whole number, got: " + value);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.wldu.webservices.datagen;
+
+import org.wldu.webservices.entities.Member;
+import org.wldu.webservices.money.Money;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Everything about one generated member that is decided up front: domain, dates,
+ * share count, which accounts exist, the informal account's activity weight and the
+ * formal account's deposit schedule. Derived only from (seed, member index), so the
+ * planning pass and the writing pass see identical members whichever thread runs them.
+ */
+final class MemberShape {
+
+    // Work domain mix: ACADEMIC, ADMINISTRATION, CONTRACT, OTHER.
+    private static final double[] DOMAIN_WEIGHTS = {0.40, 0.30, 0.20, 0.10};
+    private static final Member.WorkDomain[] DOMAINS = Member.WorkDomain.values();
+    private static final double MISSED_MONTH = 0.12;
+    private static final double INACTIVE = 0.03;
+
+    private static final int SHAPE_STREAM = 1;
+    private static final int FORMAL_STREAM = 2;
+
+    /** A formal account posting: deposit of the monthly amount, or quarterly interest. */
+    record FormalPosting(LocalDateTime at, boolean interest) { }
+
+    final int index;
+    final Member.WorkDomain domain;
+    final boolean active;
+    final LocalDate registrationDate;
+    final LocalDate formalOpening;
+    final long monthlyAmount;
+    final LocalDate informalOpening;
+    final double activityWeight;
+    final double roundingDraw;
+    final int shares;
+    final List<FormalPosting> formalPostings;
+
+    MemberShape(long seed, int index, LocalDate asOf, int historyMonths, double informalRatio, double skew) {
+        this.index = index;
+        SplittableRandom random = stream(seed, index, SHAPE_STREAM);
+
+        this.domain = DOMAINS[pick(random.nextDouble(), DOMAIN_WEIGHTS)];
+        this.active = random.nextDouble() >= INACTIVE;
+
+        LocalDate historyStart = asOf.minusMonths(historyMonths);
+        int historyDays = (int) ChronoUnit.DAYS.between(historyStart, asOf);
+        this.formalOpening = historyStart.plusDays(random.nextInt(Math.max(1, historyDays)));
+        this.registrationDate = formalOpening.minusDays(random.nextInt(5 * 365));
+        // 500 to 5,000 ETB in steps of 100
+        this.monthlyAmount = Money.etb(500 + 100L * random.nextInt(46));
+
+        boolean informal = random.nextDouble() < informalRatio;
+        int informalDays = (int) ChronoUnit.DAYS.between(formalOpening, asOf);
+        this.informalOpening = informal ? formalOpening.plusDays(random.nextInt(Math.max(1, informalDays))) : null;
+        // Pareto(skew) with minimum 1: most accounts are quiet, a few are very busy.
+        this.activityWeight = informal ? Math.pow(1.0 - random.nextDouble(), -1.0 / skew) : 0.0;
+        this.roundingDraw = random.nextDouble();
+
+        // 3 initial shares, geometric extras, at most 100 per member
+        int extra = 0;
+        while (extra < 97 && random.nextDouble() < 0.55) {
+            extra++;
+        }
+        this.shares = 3 + extra;
+
+        this.formalPostings = formalSchedule(stream(seed, index, FORMAL_STREAM), asOf);
+    }
+
+    static SplittableRandom stream(long seed, long index, int purpose) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L ^ index * 0xC2B2AE3D27D4EB4FL ^ ((long) purpose << 56));
+    }
+
+    private List<FormalPosting> formalSchedule(SplittableRandom random, LocalDate asOf) {
+        List<FormalPosting> postings = new ArrayList<>();
+        boolean funded = false;
+        for (YearMonth month = YearMonth.from(formalOpening); !month.isAfter(YearMonth.from(asOf)); month = month.plusMonths(1)) {
+            int firstDay = month.equals(YearMonth.from(formalOpening)) ? formalOpening.getDayOfMonth() : 1;
+            int lastDay = month.equals(YearMonth.from(asOf)) ? asOf.getDayOfMonth() : month.lengthOfMonth();
+            if (random.nextDouble() >= MISSED_MONTH) {
+                LocalDate day = month.atDay(firstDay + random.nextInt(lastDay - firstDay + 1));
+                postings.add(new FormalPosting(day.atTime(8 + random.nextInt(9), random.nextInt(60), random.nextInt(60)), false));
+                funded = true;
+            }
+            LocalDate quarterEnd = month.atEndOfMonth();
+            if (funded && month.getMonthValue() % 3 == 0 && !quarterEnd.isAfter(asOf)) {
+                postings.add(new FormalPosting(quarterEnd.atTime(23, 0), true));
+            }
+        }
+        return postings;
+    }
+
+    private static int pick(double draw, double[] weights) {
+        double cumulative = 0;
+        for (int i = 0; i < weights.length; i++) {
+            cumulative += weights[i];
+            if (draw < cumulative) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+}
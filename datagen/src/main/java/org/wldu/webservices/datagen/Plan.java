@@ -0,0 +1,92 @@
+package org.wldu.webservices.datagen;
+
+import java.time.LocalDate;
+import java.util.stream.IntStream;
+
+/**
+ * First pass over all members: decides how many transactions each member's accounts
+ * get, so that every chunk knows its transaction id range before any thread writes.
+ * Formal accounts take what their monthly schedule needs; the remaining budget is
+ * split over informal accounts in proportion to their activity weights.
+ */
+final class Plan {
+
+    final DatagenConfig config;
+    final LocalDate asOf;
+    final long memberBase;
+    final long accountBase;
+    final long shareBase;
+    final long transactionBase;
+    final int[] informalCounts;
+    /** First transaction offset of member i; offsets[members] is the total. */
+    final long[] offsets;
+    final long formalTransactions;
+
+    Plan(DatagenConfig config, long memberBase, long accountBase, long shareBase, long transactionBase) {
+        this.config = config;
+        this.asOf = config.asOf();
+        this.memberBase = memberBase;
+        this.accountBase = accountBase;
+        this.shareBase = shareBase;
+        this.transactionBase = transactionBase;
+
+        int members = config.members();
+        int[] formalCounts = new int[members];
+        double[] weights = new double[members];
+        double[] draws = new double[members];
+        IntStream.range(0, members).parallel().forEach(i -> {
+            MemberShape shape = shape(i);
+            formalCounts[i] = shape.formalPostings.size();
+            weights[i] = shape.activityWeight;
+            draws[i] = shape.roundingDraw;
+        });
+
+        long formal = 0;
+        double totalWeight = 0;
+        for (int i = 0; i < members; i++) {
+            formal += formalCounts[i];
+            totalWeight += weights[i];
+        }
+        this.formalTransactions = formal;
+        long budget = Math.max(0, config.transactions() - formal);
+
+        this.informalCounts = new int[members];
+        this.offsets = new long[members + 1];
+        for (int i = 0; i < members; i++) {
+            if (weights[i] > 0) {
+                double share = budget * weights[i] / totalWeight;
+                long count = (long) share + (draws[i] < share - Math.floor(share) ? 1 : 0);
+                informalCounts[i] = (int) Math.min(count, config.maxPerAccount());
+            }
+            offsets[i + 1] = offsets[i] + formalCounts[i] + informalCounts[i];
+        }
+    }
+
+    MemberShape shape(int index) {
+        return new MemberShape(config.seed(), index, asOf, config.historyMonths(), config.informalRatio(), config.skew());
+    }
+
+    long totalTransactions() {
+        return offsets[offsets.length - 1];
+    }
+
+    long memberId(int index) {
+        return memberBase + index + 1;
+    }
+
+    long formalAccountId(int index) {
+        return accountBase + 2L * index + 1;
+    }
+
+    long informalAccountId(int index) {
+        return accountBase + 2L * index + 2;
+    }
+
+    long shareId(int index, int share) {
+        return shareBase + 100L * index + share + 1;
+    }
+
+    long transactionId(int index, int offsetInMember) {
+        return transactionBase + offsets[index] + offsetInMember + 1;
+    }
+}
@@ -169,12 +169,12 @@ function MemberDetailsModal({
             <div className="space-y-3">
               <div className="flex justify-between items-center">
                 <span className="text-green-600">Total Shares:</span>
-                <span className="font-bold text-green-800 text-lg">{member.shares?.length || 0}</span>
+                <span className="font-bold text-green-800 text-lg">{member.shareCount ?? member.shares?.length ?? 0}</span>
               </div>
               <div className="flex justify-between items-center">
                 <span className="text-green-600">Total Value:</span>
                 <span className="font-bold text-green-800 text-lg">
-                  {formatCurrency((member.shares?.length || 0) * 150)}
+                  {formatCurrency((member.shareCount ?? member.shares?.length ?? 0) * 150)}
                 </span>
               </div>
               
@@ -385,7 +385,7 @@ function MembersList() {
         member.email || '',
         member.workDomain,
         member.isActive ? 'Active' : 'Inactive',
-        member.shares?.length || 0,
+        member.shareCount ?? member.shares?.length ?? 0,
         member.registrationDate ? new Date(member.registrationDate).toLocaleDateString() : ''
       ].join(','))
     ].join('\n')
@@ -804,10 +804,10 @@ function MembersList() {
                         </div>
                         <div>
                           <div className="text-sm font-medium text-gray-900">
-                            {member.shares?.length || 0} shares
+                            {member.shareCount ?? member.shares?.length ?? 0} shares
                           </div>
                           <div className="text-xs text-gray-500">
-                            {formatCurrency((member.shares?.length || 0) * 150)}
+                            {formatCurrency((member.shareCount ?? member.shares?.length ?? 0) * 150)}
                           </div>
                         </div>
                       </div>
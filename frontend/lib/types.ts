@@ -12,6 +12,7 @@ export interface Member {
   deactivationDate?: string
   deactivationReason?: string
   shares?: Share[]
+  shareCount?: number // list endpoints return the count instead of shares
   savingAccounts?: SavingAccount[]
 }
 
@@ -32,6 +33,8 @@ export interface SavingAccount {
   isActive: boolean
   monthlyAmount?: number // For formal accounts
   targetAmount?: number // For informal accounts
+  memberId?: number // list endpoint only
+  memberName?: string // list endpoint only
   transactions?: Transaction[]
 }
 
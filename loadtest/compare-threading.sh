@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# Runs the same open-loop load against the backend on platform threads and then on
+# virtual threads and prints the two reports side by side.
+# Expects the load-test database (docker-compose.yml) to be up. Extra arguments are
+# passed to the generator, e.g. ./compare-threading.sh rates=100,200,400,800
+set -euo pipefail
+
+here="$(cd "$(dirname "$0")" && pwd)"
+root="$(cd "$here/.." && pwd)"
+jar="$root/backend/target/webservices-0.0.1-SNAPSHOT-exec.jar"
+
+mvn -B -q -f "$root/backend/pom.xml" -DskipTests package
+mvn -B -q -f "$here/pom.xml" package
+mkdir -p "$here/results"
+
+for mode in platform virtual; do
+    virtual=false
+    [ "$mode" = virtual ] && virtual=true
+    java -jar "$jar" \
+        --spring.datasource.url="jdbc:postgresql://localhost:55432/microfance?reWriteBatchedInserts=true" \
+        --spring.datasource.password=loadtest \
+        --spring.threads.virtual.enabled=$virtual \
+        > "$here/results/backend-$mode.log" 2>&1 &
+    backend=$!
+    trap 'kill $backend 2>/dev/null || true' EXIT
+
+    # any HTTP response means the backend is up
+    for _ in $(seq 1 120); do
+        curl -ks -o /dev/null https://localhost:8080/ && break
+        sleep 1
+    done
+
+    (cd "$here" && java -jar target/loadtest.jar mode=open output="results/threads-$mode.json" "$@")
+    kill $backend
+    wait $backend 2>/dev/null || true
+done
+trap - EXIT
+
+java -cp "$here/target/loadtest.jar" org.wldu.webservices.loadtest.CompareRuns \
+    "$here/results/threads-platform.json" "$here/results/threads-virtual.json"
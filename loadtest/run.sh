@@ -0,0 +1,10 @@
+#!/usr/bin/env bash
+# Builds the load generator and runs it against an already started backend.
+# Arguments are key=value overrides of loadtest.properties, e.g.
+#   ./run.sh mode=open rates=50,100,200,400 duration-seconds=30
+set -euo pipefail
+
+here="$(cd "$(dirname "$0")" && pwd)"
+mvn -B -q -f "$here/pom.xml" package
+cd "$here"
+exec java -jar target/loadtest.jar "$@"
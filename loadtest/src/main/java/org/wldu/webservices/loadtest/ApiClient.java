@@ -0,0 +1,115 @@
+package org.wldu.webservices.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/** Thin JDK HttpClient wrapper for the backend's REST API. */
+public class ApiClient {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final Duration timeout;
+    private volatile String token;
+
+    public record Response(int status, String body) {
+
+        public boolean ok() {
+            return status >= 200 && status < 300;
+        }
+
+        public JsonNode json() {
+            try {
+                return MAPPER.readTree(body);
+            } catch (IOException e) {
+                throw new IllegalStateException("Response is not JSON: " + body, e);
+            }
+        }
+    }
+
+    public ApiClient(LoadTestConfig config) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(config.requestTimeoutMillis()))
+                .executor(Executors.newVirtualThreadPerTaskExecutor());
+        if (config.insecureTls()) {
+            // The backend ships a self-signed certificate for localhost; only for local targets.
+            SSLParameters parameters = new SSLParameters();
+            parameters.setEndpointIdentificationAlgorithm("");
+            builder.sslContext(trustAll()).sslParameters(parameters);
+        }
+        this.client = builder.build();
+        this.baseUrl = config.baseUrl();
+        this.timeout = Duration.ofMillis(config.requestTimeoutMillis());
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public Response get(String path, Map<String, ?> query) throws IOException, InterruptedException {
+        return send(request(path, query).GET());
+    }
+
+    public Response post(String path, Map<String, ?> query) throws IOException, InterruptedException {
+        return send(request(path, query).POST(HttpRequest.BodyPublishers.noBody()));
+    }
+
+    public Response postJson(String path, Object body) throws IOException, InterruptedException {
+        return send(request(path, Map.of())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body))));
+    }
+
+    private HttpRequest.Builder request(String path, Map<String, ?> query) {
+        String uri = baseUrl + path;
+        if (!query.isEmpty()) {
+            uri += "?" + query.entrySet().stream()
+                    .map(e -> e.getKey() + "=" + URLEncoder.encode(String.valueOf(e.getValue()), StandardCharsets.UTF_8))
+                    .collect(Collectors.joining("&"));
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(uri)).timeout(timeout);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private Response send(HttpRequest.Builder builder) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        return new Response(response.statusCode(), response.body());
+    }
+
+    private static SSLContext trustAll() {
+        try {
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, new TrustManager[]{new X509TrustManager() {
+                public void checkClientTrusted(X509Certificate[] chain, String authType) { }
+                public void checkServerTrusted(X509Certificate[] chain, String authType) { }
+                public X509Certificate[] getAcceptedIssuers() { return new X509Certificate[0]; }
+            }}, null);
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot create TLS context", e);
+        }
+    }
+}
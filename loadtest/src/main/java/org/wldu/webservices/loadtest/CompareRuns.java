@@ -0,0 +1,53 @@
+package org.wldu.webservices.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Prints two load-test reports side by side, step by step: throughput, error rate
+ * and p99 per operation. Used by compare-threading.sh to compare platform and
+ * virtual request threads, but works for any two runs with the same steps.
+ *
+ * Usage: java -cp target/loadtest.jar org.wldu.webservices.loadtest.CompareRuns a.json b.json
+ */
+public final class CompareRuns {
+
+    private CompareRuns() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CompareRuns <a.json> <b.json>");
+            System.exit(2);
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode a = mapper.readTree(new File(args[0])).path("steps");
+        JsonNode b = mapper.readTree(new File(args[1])).path("steps");
+        String nameA = new File(args[0]).getName().replaceFirst("\\.json$", "");
+        String nameB = new File(args[1]).getName().replaceFirst("\\.json$", "");
+
+        for (int i = 0; i < Math.max(a.size(), b.size()); i++) {
+            JsonNode stepA = a.path(i);
+            JsonNode stepB = b.path(i);
+            String label = stepA.isMissingNode() ? stepB.path("label").asText() : stepA.path("label").asText();
+            System.out.printf("%n== %s ==%n", label);
+            System.out.printf("%-16s %22s %22s%n", "", nameA, nameB);
+            System.out.printf("%-16s %22.1f %22.1f%n", "req/s",
+                    stepA.path("throughput").asDouble(), stepB.path("throughput").asDouble());
+            System.out.printf("%-16s %21.2f%% %21.2f%%%n", "error rate",
+                    stepA.path("errorRate").asDouble() * 100, stepB.path("errorRate").asDouble() * 100);
+            Iterator<Map.Entry<String, JsonNode>> operations = stepA.path("operations").fields();
+            while (operations.hasNext()) {
+                Map.Entry<String, JsonNode> operation = operations.next();
+                JsonNode other = stepB.path("operations").path(operation.getKey());
+                System.out.printf("%-16s %19.1f ms %19.1f ms%n", operation.getKey() + " p99",
+                        operation.getValue().path("p99Ms").asDouble(), other.path("p99Ms").asDouble());
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.wldu.webservices.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Creates the data the workload runs against, through the public API so that the
+ * ledger, shares and caches are populated exactly as in normal use. Members are keyed
+ * by seed and index, so re-running against the same database reuses them.
+ */
+public class Fixture {
+
+    private static final String[] DOMAINS = {"ACADEMIC", "ADMINISTRATION", "CONTRACT", "OTHER"};
+    private static final String[] FIRST_NAMES = {"Abebe", "Almaz", "Bekele", "Hirut", "Kebede", "Meron", "Tesfaye", "Selam"};
+    private static final String[] LAST_NAMES = {"Alemu", "Bekele", "Girma", "Haile", "Mekonnen", "Tadesse", "Wolde", "Yohannes"};
+
+    public record Account(long memberId, long formalId, long informalId) { }
+
+    private final List<Account> accounts = new ArrayList<>();
+    private final List<String> searchTerms = new ArrayList<>();
+
+    public List<Account> accounts() {
+        return accounts;
+    }
+
+    public List<String> searchTerms() {
+        return searchTerms;
+    }
+
+    public static String login(ApiClient api, LoadTestConfig config) throws IOException, InterruptedException {
+        ApiClient.Response response = api.postJson("/api/auth/login",
+                Map.of("username", config.username(), "password", config.password()));
+        if (!response.ok()) {
+            throw new IllegalStateException("Login failed with HTTP " + response.status() + ": " + response.body());
+        }
+        return response.json().path("token").asText();
+    }
+
+    public static Fixture create(ApiClient api, LoadTestConfig config) throws Exception {
+        ApiClient.Response registered = api.postJson("/api/auth/register",
+                Map.of("username", config.username(), "password", config.password(), "role", "ADMIN"));
+        if (!registered.ok() && registered.status() != 400) {
+            throw new IllegalStateException("Registering " + config.username() + " failed: " + registered.body());
+        }
+        api.setToken(login(api, config));
+
+        Fixture fixture = new Fixture();
+        for (String name : FIRST_NAMES) {
+            fixture.searchTerms.add(name.toLowerCase());
+        }
+        for (String name : LAST_NAMES) {
+            fixture.searchTerms.add(name.substring(0, 3).toLowerCase());
+        }
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            List<Future<Account>> futures = new ArrayList<>();
+            for (int i = 0; i < config.fixtureMembers(); i++) {
+                int index = i;
+                futures.add(executor.submit(() -> member(api, config, index)));
+            }
+            for (Future<Account> future : futures) {
+                fixture.accounts.add(future.get());
+            }
+        }
+        return fixture;
+    }
+
+    private static Account member(ApiClient api, LoadTestConfig config, int index) throws IOException, InterruptedException {
+        String employeeId = "LT" + config.seed() + "-" + String.format("%05d", index);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("firstName", FIRST_NAMES[index % FIRST_NAMES.length]);
+        body.put("lastName", LAST_NAMES[(index / FIRST_NAMES.length) % LAST_NAMES.length]);
+        body.put("employeeId", employeeId);
+        body.put("workDomain", DOMAINS[index % DOMAINS.length]);
+        body.put("email", employeeId.toLowerCase() + "@loadtest.local");
+
+        long memberId;
+        ApiClient.Response created = api.postJson("/api/members", body);
+        if (created.ok()) {
+            memberId = created.json().path("id").asLong();
+        } else {
+            JsonNode found = api.get("/api/members/search", Map.of("q", employeeId, "size", 1)).json().path("content");
+            if (found.isEmpty()) {
+                throw new IllegalStateException("Cannot create member " + employeeId + ": " + created.body());
+            }
+            memberId = found.get(0).path("id").asLong();
+        }
+
+        long formalId = 0;
+        long informalId = 0;
+        for (JsonNode account : api.get("/api/accounts/member/" + memberId, Map.of()).json()) {
+            if ("FORMAL".equals(account.path("accountType").asText()) && formalId == 0) {
+                formalId = account.path("id").asLong();
+            } else if ("INFORMAL".equals(account.path("accountType").asText()) && informalId == 0) {
+                informalId = account.path("id").asLong();
+            }
+        }
+        if (formalId == 0) {
+            formalId = expectCreated(api.post("/api/accounts/formal",
+                    Map.of("memberId", memberId, "monthlyAmount", config.fixtureMonthlyAmount())), employeeId);
+        }
+        if (informalId == 0) {
+            informalId = expectCreated(api.post("/api/accounts/informal", Map.of("memberId", memberId)), employeeId);
+            api.post("/api/accounts/" + informalId + "/deposit",
+                    Map.of("amount", config.fixtureSeedBalance(), "description", "Load test seed"));
+        }
+        return new Account(memberId, formalId, informalId);
+    }
+
+    private static long expectCreated(ApiClient.Response response, String employeeId) {
+        if (!response.ok()) {
+            throw new IllegalStateException("Cannot open account for " + employeeId + ": " + response.body());
+        }
+        return response.json().path("accountId").asLong();
+    }
+}
@@ -0,0 +1,126 @@
+package org.wldu.webservices.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entry point: builds the fixture, warms up, runs the configured mode and prints a
+ * per-operation report. In open mode every rate in {@code rates} is run as a step so
+ * the saturation point shows up as the first step whose achieved throughput falls
+ * behind the offered rate or whose errors climb.
+ *
+ * Usage: java -jar target/loadtest.jar [config=loadtest.properties] [key=value ...]
+ */
+public class LoadTest {
+
+    private static final double SATURATION_THROUGHPUT = 0.95;
+    private static final double SATURATION_ERROR_RATE = 0.01;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.load(args);
+        ApiClient api = new ApiClient(config);
+
+        System.out.printf("Preparing fixture of %d members on %s%n", config.fixtureMembers(), config.baseUrl());
+        Fixture fixture = Fixture.create(api, config);
+        WorkloadRunner runner = new WorkloadRunner(api, config, fixture);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("startedAt", Instant.now().toString());
+        result.put("settings", config.describe());
+        List<Map<String, Object>> steps = new ArrayList<>();
+
+        if (config.mode() == LoadTestConfig.Mode.CLOSED) {
+            System.out.printf("Warming up for %ds with %d users%n", config.warmupSeconds(), config.users());
+            runner.runClosed(config.users(), config.warmupSeconds());
+            System.out.printf("Measuring for %ds with %d users%n", config.durationSeconds(), config.users());
+            Map<Operation, OperationStats> stats = runner.runClosed(config.users(), config.durationSeconds());
+            steps.add(step("users=" + config.users(), null, stats, config.durationSeconds()));
+        } else {
+            List<Double> rates = config.rates();
+            System.out.printf("Warming up for %ds at %.1f req/s%n", config.warmupSeconds(), rates.get(0));
+            runner.runOpen(rates.get(0), config.warmupSeconds());
+            for (double rate : rates) {
+                System.out.printf("Measuring for %ds at %.1f req/s%n", config.durationSeconds(), rate);
+                Map<Operation, OperationStats> stats = runner.runOpen(rate, config.durationSeconds());
+                steps.add(step("rate=" + rate, rate, stats, config.durationSeconds()));
+            }
+            printSaturation(steps);
+        }
+        result.put("steps", steps);
+
+        if (!config.output().isEmpty()) {
+            Path output = Path.of(config.output());
+            if (output.getParent() != null) {
+                Files.createDirectories(output.getParent());
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), result);
+            System.out.println("Results written to " + output);
+        }
+        System.exit(0);
+    }
+
+    private static Map<String, Object> step(String label, Double offeredRate,
+                                            Map<Operation, OperationStats> stats, long seconds) {
+        Map<String, Object> operations = new LinkedHashMap<>();
+        long completed = 0;
+        long errors = 0;
+        long attempted = 0;
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            Map<String, Object> summary = entry.getValue().toMap(seconds);
+            operations.put(entry.getKey().key(), summary);
+            completed += entry.getValue().completed();
+            errors += entry.getValue().errors();
+            attempted += entry.getValue().completed() + (long) summary.get("dropped");
+        }
+
+        Map<String, Object> step = new LinkedHashMap<>();
+        step.put("label", label);
+        if (offeredRate != null) {
+            step.put("offeredRate", offeredRate);
+        }
+        step.put("throughput", Math.round(completed * 1000.0 / seconds) / 1000.0);
+        step.put("errorRate", attempted == 0 ? 0.0 : Math.round(errors * 10000.0 / attempted) / 10000.0);
+        step.put("operations", operations);
+        print(step);
+        return step;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void print(Map<String, Object> step) {
+        System.out.printf("%n== %s: %.1f req/s, error rate %.2f%% ==%n", step.get("label"),
+                (double) step.get("throughput"), (double) step.get("errorRate") * 100);
+        System.out.printf("%-16s %9s %9s %8s %8s %8s %9s %9s %9s %9s%n",
+                "operation", "count", "req/s", "4xx", "5xx", "failed", "p50 ms", "p95 ms", "p99 ms", "p999 ms");
+        for (Map.Entry<String, Object> entry : ((Map<String, Object>) step.get("operations")).entrySet()) {
+            Map<String, Object> op = (Map<String, Object>) entry.getValue();
+            System.out.printf("%-16s %9d %9.1f %8d %8d %8d %9.1f %9.1f %9.1f %9.1f%n", entry.getKey(),
+                    (long) op.get("completed"), (double) op.get("throughput"), (long) op.get("rejected"),
+                    (long) op.get("serverErrors"), (long) op.get("failures") + (long) op.get("dropped"),
+                    (double) op.get("p50Ms"), (double) op.get("p95Ms"), (double) op.get("p99Ms"),
+                    (double) op.get("p999Ms"));
+        }
+    }
+
+    private static void printSaturation(List<Map<String, Object>> steps) {
+        for (Map<String, Object> step : steps) {
+            double offered = (double) step.get("offeredRate");
+            double achieved = (double) step.get("throughput");
+            double errorRate = (double) step.get("errorRate");
+            if (achieved < offered * SATURATION_THROUGHPUT || errorRate > SATURATION_ERROR_RATE) {
+                System.out.printf("%nSaturated at %.1f req/s offered (achieved %.1f req/s, error rate %.2f%%)%n",
+                        offered, achieved, errorRate * 100);
+                return;
+            }
+        }
+        System.out.printf("%nNo saturation up to %.1f req/s; add higher rates to find it%n",
+                (double) steps.get(steps.size() - 1).get("offeredRate"));
+    }
+}
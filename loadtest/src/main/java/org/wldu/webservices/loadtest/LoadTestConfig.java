@@ -0,0 +1,170 @@
+package org.wldu.webservices.loadtest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Run settings, read from a properties file and overridden by {@code key=value}
+ * command-line arguments. See loadtest.properties for the keys and defaults.
+ */
+public class LoadTestConfig {
+
+    public enum Mode { CLOSED, OPEN }
+
+    private final Properties properties;
+
+    private LoadTestConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    public static LoadTestConfig load(String[] args) throws IOException {
+        Properties properties = new Properties();
+        String file = "loadtest.properties";
+        for (String arg : args) {
+            if (arg.startsWith("config=")) {
+                file = arg.substring("config=".length());
+            }
+        }
+        Path path = Path.of(file);
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path)) {
+                properties.load(reader);
+            }
+        }
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            properties.setProperty(arg.substring(0, eq).replaceFirst("^--", ""), arg.substring(eq + 1));
+        }
+        return new LoadTestConfig(properties);
+    }
+
+    public String baseUrl() {
+        return string("base-url", "https://localhost:8080").replaceAll("/+$", "");
+    }
+
+    public boolean insecureTls() {
+        return Boolean.parseBoolean(string("insecure-tls", "true"));
+    }
+
+    public long requestTimeoutMillis() {
+        return number("request-timeout-millis", 10000);
+    }
+
+    public String username() {
+        return string("username", "loadtest-admin");
+    }
+
+    public String password() {
+        return string("password", "loadtest-password");
+    }
+
+    public Mode mode() {
+        return Mode.valueOf(string("mode", "closed").toUpperCase());
+    }
+
+    public int users() {
+        return (int) number("users", 32);
+    }
+
+    public long thinkMillis() {
+        return number("think-millis", 0);
+    }
+
+    public List<Double> rates() {
+        List<Double> rates = new ArrayList<>();
+        for (String rate : string("rates", "50").split(",")) {
+            if (!rate.isBlank()) {
+                rates.add(Double.parseDouble(rate.trim()));
+            }
+        }
+        if (rates.isEmpty() || rates.stream().anyMatch(r -> r <= 0)) {
+            throw new IllegalArgumentException("rates must be a list of positive requests per second");
+        }
+        return rates;
+    }
+
+    public int maxInFlight() {
+        return (int) number("max-in-flight", 2000);
+    }
+
+    public long warmupSeconds() {
+        return number("warmup-seconds", 15);
+    }
+
+    public long durationSeconds() {
+        return number("duration-seconds", 60);
+    }
+
+    public long seed() {
+        return number("seed", 42);
+    }
+
+    public int fixtureMembers() {
+        return (int) number("fixture.members", 200);
+    }
+
+    public String fixtureSeedBalance() {
+        return string("fixture.seed-balance", "100000");
+    }
+
+    public String fixtureMonthlyAmount() {
+        return string("fixture.monthly-amount", "500");
+    }
+
+    public String bulkAmount() {
+        return string("bulk.amount", "1");
+    }
+
+    public Map<Operation, Integer> mix() {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            int weight = (int) number("mix." + operation.key(), operation.defaultWeight());
+            if (weight < 0) {
+                throw new IllegalArgumentException("mix." + operation.key() + " must not be negative");
+            }
+            if (weight > 0) {
+                mix.put(operation, weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("At least one mix.* weight must be positive");
+        }
+        return mix;
+    }
+
+    public String output() {
+        return string("output", "");
+    }
+
+    private String string(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue).trim();
+    }
+
+    private long number(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        try {
+            return value == null ? defaultValue : Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be a whole number, got: " + value);
+        }
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        properties.stringPropertyNames().stream().sorted()
+                .filter(key -> !key.equals("password"))
+                .forEach(key -> settings.put(key, properties.getProperty(key)));
+        return settings;
+    }
+}
@@ -0,0 +1,28 @@
+package org.wldu.webservices.loadtest;
+
+/** The operations in the synthetic workload mix, with their default weights. */
+public enum Operation {
+    LOGIN("login", 5),
+    MEMBER_LIST("member-list", 25),
+    MEMBER_SEARCH("member-search", 20),
+    DEPOSIT("deposit", 25),
+    WITHDRAW("withdraw", 15),
+    MONTHLY_DEPOSIT("monthly-deposit", 8),
+    BULK_DEPOSIT("bulk-deposit", 2);
+
+    private final String key;
+    private final int defaultWeight;
+
+    Operation(String key, int defaultWeight) {
+        this.key = key;
+        this.defaultWeight = defaultWeight;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public int defaultWeight() {
+        return defaultWeight;
+    }
+}
@@ -0,0 +1,82 @@
+package org.wldu.webservices.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcome counts and a latency histogram (microseconds) for one operation.
+ * Responses are split into ok (2xx), rejected (4xx, e.g. a second monthly deposit in
+ * the same month), server errors (5xx) and failures (timeouts and I/O errors).
+ */
+public class OperationStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Histogram latency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public void record(long latencyNanos, int status) {
+        latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        if (status >= 200 && status < 300) {
+            ok.increment();
+        } else if (status >= 400 && status < 500) {
+            rejected.increment();
+        } else {
+            serverErrors.increment();
+        }
+    }
+
+    public void recordFailure(long latencyNanos) {
+        latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        failures.increment();
+    }
+
+    /** Open loop only: the arrival could not be sent because max-in-flight was reached. */
+    public void recordDropped() {
+        dropped.increment();
+    }
+
+    public long completed() {
+        return ok.sum() + rejected.sum() + serverErrors.sum() + failures.sum();
+    }
+
+    public long errors() {
+        return serverErrors.sum() + failures.sum() + dropped.sum();
+    }
+
+    public double percentileMillis(double percentile) {
+        return latency.getTotalCount() == 0 ? 0 : latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public Map<String, Object> toMap(double seconds) {
+        long attempted = completed() + dropped.sum();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("completed", completed());
+        map.put("throughput", round(completed() / seconds));
+        map.put("ok", ok.sum());
+        map.put("rejected", rejected.sum());
+        map.put("serverErrors", serverErrors.sum());
+        map.put("failures", failures.sum());
+        map.put("dropped", dropped.sum());
+        map.put("errorRate", attempted == 0 ? 0.0 : round((double) errors() / attempted));
+        map.put("p50Ms", round(percentileMillis(50)));
+        map.put("p95Ms", round(percentileMillis(95)));
+        map.put("p99Ms", round(percentileMillis(99)));
+        map.put("p999Ms", round(percentileMillis(99.9)));
+        map.put("maxMs", round(latency.getMaxValue() / 1000.0));
+        return map;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+}
@@ -0,0 +1,157 @@
+package org.wldu.webservices.loadtest;
+
+import java.time.YearMonth;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the operation mix against the backend on virtual threads.
+ *
+ * Closed loop: a fixed number of users each send their next request when the previous
+ * one completes, so throughput falls as latency rises. Open loop: requests arrive on a
+ * fixed schedule regardless of how the server is doing, and latency is measured from
+ * the scheduled arrival time rather than from the actual send, so queueing inside the
+ * generator is not hidden (coordinated omission).
+ */
+public class WorkloadRunner {
+
+    private static final String[] DOMAINS = {"ACADEMIC", "ADMINISTRATION", "CONTRACT", "OTHER"};
+
+    private final ApiClient api;
+    private final LoadTestConfig config;
+    private final Fixture fixture;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final AtomicLong streams;
+
+    public WorkloadRunner(ApiClient api, LoadTestConfig config, Fixture fixture) {
+        this.api = api;
+        this.config = config;
+        this.fixture = fixture;
+        Map<Operation, Integer> mix = config.mix();
+        this.operations = mix.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        this.streams = new AtomicLong(config.seed());
+    }
+
+    public Map<Operation, OperationStats> runClosed(int users, long seconds) {
+        Map<Operation, OperationStats> stats = newStats();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int u = 0; u < users; u++) {
+                SplittableRandom random = new SplittableRandom(streams.getAndIncrement());
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        Operation operation = pick(random);
+                        long start = System.nanoTime();
+                        execute(operation, random, start, stats.get(operation));
+                        if (config.thinkMillis() > 0) {
+                            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(config.thinkMillis()));
+                        }
+                    }
+                });
+            }
+        }
+        return stats;
+    }
+
+    public Map<Operation, OperationStats> runOpen(double ratePerSecond, long seconds) {
+        Map<Operation, OperationStats> stats = newStats();
+        SplittableRandom random = new SplittableRandom(streams.getAndIncrement());
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long start = System.nanoTime();
+        long arrivals = (long) (ratePerSecond * seconds);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < arrivals; i++) {
+                long intended = start + i * intervalNanos;
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Operation operation = pick(random);
+                if (!inFlight.tryAcquire()) {
+                    stats.get(operation).recordDropped();
+                    continue;
+                }
+                SplittableRandom requestRandom = random.split();
+                executor.submit(() -> {
+                    try {
+                        execute(operation, requestRandom, intended, stats.get(operation));
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return stats;
+    }
+
+    private Map<Operation, OperationStats> newStats() {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : operations) {
+            stats.put(operation, new OperationStats());
+        }
+        return stats;
+    }
+
+    private Operation pick(SplittableRandom random) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private void execute(Operation operation, SplittableRandom random, long startNanos, OperationStats stats) {
+        try {
+            ApiClient.Response response = send(operation, random);
+            stats.record(System.nanoTime() - startNanos, response.status());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            stats.recordFailure(System.nanoTime() - startNanos);
+        }
+    }
+
+    private ApiClient.Response send(Operation operation, SplittableRandom random) throws Exception {
+        List<Fixture.Account> accounts = fixture.accounts();
+        Fixture.Account account = accounts.get(random.nextInt(accounts.size()));
+        return switch (operation) {
+            case LOGIN -> api.postJson("/api/auth/login",
+                    Map.of("username", config.username(), "password", config.password()));
+            case MEMBER_LIST -> api.get("/api/members",
+                    Map.of("page", random.nextInt(Math.max(1, accounts.size() / 10)), "size", 10, "sort", "id"));
+            case MEMBER_SEARCH -> api.get("/api/members",
+                    Map.of("search", fixture.searchTerms().get(random.nextInt(fixture.searchTerms().size())), "size", 10));
+            case DEPOSIT -> api.post("/api/accounts/" + account.informalId() + "/deposit",
+                    Map.of("amount", amount(random, 10, 500), "description", "Load test deposit"));
+            case WITHDRAW -> api.post("/api/accounts/" + account.informalId() + "/withdraw",
+                    Map.of("amount", amount(random, 1, 100), "description", "Load test withdrawal"));
+            case MONTHLY_DEPOSIT -> api.post("/api/accounts/" + account.formalId() + "/deposit/monthly",
+                    Map.of("description", "Load test monthly " + YearMonth.now()));
+            case BULK_DEPOSIT -> api.post("/api/accounts/bulk-deposit",
+                    Map.of("workDomain", DOMAINS[random.nextInt(DOMAINS.length)], "amount", config.bulkAmount(),
+                            "description", "Load test bulk deposit"));
+        };
+    }
+
+    private static String amount(SplittableRandom random, int min, int max) {
+        return random.nextInt(min, max + 1) + "." + String.format("%02d", random.nextInt(100));
+    }
+}